@@ -0,0 +1,61 @@
+package com.tranthanhsang.example304.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.tranthanhsang.example304.security.jwt.JwtUtils;
+import com.tranthanhsang.example304.security.services.RefreshTokenService;
+import com.tranthanhsang.example304.security.services.UserDetailsImpl;
+
+// Chi phí CPU cấp token: đăng nhập (BCrypt + ký JWT) so với làm mới bằng refresh token
+// (SHA-256 token cũ + sinh/băm token mới + ký JWT). Không tính câu tra DB ở cả 2 phía.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthCostBenchmark {
+
+    private BCryptPasswordEncoder passwordEncoder;
+    private JwtUtils jwtUtils;
+    private UserDetailsImpl principal;
+    private String passwordHash;
+    private String refreshToken;
+
+    @Setup
+    public void setUp() {
+        // Cùng cấu hình với WebSecurityConfig.passwordEncoder() (strength mặc định 10)
+        passwordEncoder = new BCryptPasswordEncoder();
+        passwordHash = passwordEncoder.encode("matkhau123");
+        jwtUtils = JwtBenchmark.jwtUtils();
+        principal = (UserDetailsImpl) JwtBenchmark.authentication().getPrincipal();
+        refreshToken = RefreshTokenService.newRawToken();
+    }
+
+    @Benchmark
+    public String login() {
+        if (!passwordEncoder.matches("matkhau123", passwordHash)) {
+            throw new IllegalStateException();
+        }
+        return jwtUtils.generateTokenFromPrincipal(principal);
+    }
+
+    @Benchmark
+    public String refresh() {
+        String lookupKey = RefreshTokenService.hash(refreshToken);
+        String rotated = RefreshTokenService.hash(RefreshTokenService.newRawToken());
+        return jwtUtils.generateTokenFromPrincipal(principal) + lookupKey.length() + rotated.length();
+    }
+}
@@ -0,0 +1,114 @@
+package com.tranthanhsang.example304.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.tranthanhsang.example304.entity.Bill;
+import com.tranthanhsang.example304.entity.Category;
+import com.tranthanhsang.example304.entity.Order;
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.Promotion;
+import com.tranthanhsang.example304.entity.TableEntity;
+import com.tranthanhsang.example304.entity.enums.OrderStatus;
+import com.tranthanhsang.example304.entity.enums.PaymentMethod;
+import com.tranthanhsang.example304.entity.enums.PaymentStatus;
+import com.tranthanhsang.example304.model.User;
+import com.tranthanhsang.example304.security.services.BillService;
+import com.tranthanhsang.example304.security.services.OrderDtoAssembler;
+import com.tranthanhsang.example304.security.services.OrderDtoMapper;
+
+// Dữ liệu mẫu trong bộ nhớ cho benchmark (không cần DB / mạng)
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    public static List<Product> products(int count) {
+        Category category = Category.builder().id(1L).name("Trà").build();
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(Product.builder()
+                    .id((long) (i + 1))
+                    .name("Trà đào cam sả " + (i + 1))
+                    .description("Trà đào thơm mát")
+                    .price(BigDecimal.valueOf(25_000L + (i % 10) * 5_000L))
+                    .category(category)
+                    .imageUrl("/images/" + (i + 1) + ".jpg")
+                    .isActive(true)
+                    .promotions(new ArrayList<>())
+                    .build());
+        }
+        return products;
+    }
+
+    public static Promotion percentagePromotion(long id, List<Product> products) {
+        return Promotion.builder()
+                .id(id)
+                .name("Giảm 10%")
+                .discountPercentage(new BigDecimal("10"))
+                .isActive(true)
+                .startDate(java.time.LocalDate.now().minusDays(1))
+                .endDate(java.time.LocalDate.now().plusDays(30))
+                .products(new ArrayList<>(products))
+                .build();
+    }
+
+    public static Order order(long id, List<Product> menu, int itemCount, Promotion promotion) {
+        User employee = new User("nv" + id, "nv" + id + "@coffee.vn", "secret");
+        employee.setId(id);
+        employee.setFullName("Nhân viên " + id);
+
+        Order order = Order.builder()
+                .id(id)
+                .table(TableEntity.builder().id(id).number((int) id).build())
+                .employee(employee)
+                .promotion(promotion)
+                .status(OrderStatus.PENDING)
+                .notes("Ít đá")
+                .createdAt(LocalDateTime.now())
+                .items(new ArrayList<>(itemCount))
+                .build();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            Product product = menu.get(i % menu.size());
+            int quantity = 1 + i % 3;
+            BigDecimal subtotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+            order.getItems().add(OrderItem.builder()
+                    .id(id * 1_000 + i)
+                    .order(order)
+                    .product(product)
+                    .quantity(quantity)
+                    .price(product.getPrice())
+                    .subtotal(subtotal)
+                    .build());
+            total = total.add(subtotal);
+        }
+        order.setTotalAmount(total);
+        return order;
+    }
+
+    public static Bill bill(long id, Order order) {
+        return Bill.builder()
+                .id(id)
+                .order(order)
+                .totalAmount(order.getTotalAmount())
+                .paymentMethod(PaymentMethod.CASH)
+                .paymentStatus(PaymentStatus.PENDING)
+                .issuedAt(LocalDateTime.now())
+                .build();
+    }
+
+    // BillService chỉ có bộ chuyển đổi DTO (hóa đơn truyền vào đã nạp đủ → không cần repository)
+    public static <T extends BillService> T billService(T billService) {
+        OrderDtoAssembler assembler = new OrderDtoAssembler();
+        ReflectionTestUtils.setField(assembler, "orderDtoMapper", new OrderDtoMapper());
+        ReflectionTestUtils.setField(billService, "orderDtoAssembler", assembler);
+        return billService;
+    }
+}
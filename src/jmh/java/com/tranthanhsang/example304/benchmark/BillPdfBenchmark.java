@@ -0,0 +1,124 @@
+package com.tranthanhsang.example304.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.itextpdf.text.Image;
+import com.itextpdf.text.pdf.BarcodeQRCode;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.security.services.BillPdfRenderer;
+import com.tranthanhsang.example304.security.services.BillReceiptRenderer;
+import com.tranthanhsang.example304.security.services.BillService;
+import com.tranthanhsang.example304.security.services.VietQrService;
+
+// Số hóa đơn PDF xuất được mỗi giây (bỏ bước đọc DB):
+// - legacy*: cách cũ, nạp font từ file + dựng Font mỗi lần, chạy trên luồng gọi
+//   (font lấy từ -Dbench.fontPath, mặc định DejaVuSans của Linux)
+// - pooled*: BillService.renderBillPdf → BillPdfRenderer (font nạp 1 lần, tiêu đề dựng sẵn, pool 2 luồng)
+//   + VietQrService (QR sinh tại chỗ, cache theo số tiền / mã đơn)
+// - escPosReceipt: phiếu in nhiệt ESC/POS của cùng hóa đơn (QR do máy in vẽ, không dựng ảnh)
+// Bản cũ tải QR từ img.vietqr.io; ở đây thay bằng sinh QR cục bộ mỗi lần để không phụ thuộc mạng.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BillPdfBenchmark {
+
+    @Param({ "3", "30" })
+    private int itemCount;
+
+    private String fontPath;
+    private BillPdfRenderer renderer;
+    private BillService billService;
+    private BillReceiptRenderer receiptRenderer;
+    private BillDTO dto;
+
+    @Setup
+    public void setUp() throws Exception {
+        fontPath = System.getProperty("bench.fontPath", "/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf");
+        List<Product> menu = BenchmarkFixtures.products(50);
+
+        renderer = new BillPdfRenderer();
+        ReflectionTestUtils.setField(renderer, "fontPath", "");
+        ReflectionTestUtils.setField(renderer, "threads", 2);
+        ReflectionTestUtils.setField(renderer, "queueCapacity", 64);
+        ReflectionTestUtils.setField(renderer, "timeoutMs", 15_000L);
+        renderer.init();
+
+        VietQrService vietQrService = new VietQrService();
+        ReflectionTestUtils.setField(vietQrService, "bankBin", "970422");
+        ReflectionTestUtils.setField(vietQrService, "accountNo", "0398617329");
+        ReflectionTestUtils.setField(vietQrService, "cacheSize", 500L);
+        vietQrService.init();
+
+        receiptRenderer = new BillReceiptRenderer();
+        ReflectionTestUtils.setField(receiptRenderer, "vietQrService", vietQrService);
+        ReflectionTestUtils.setField(receiptRenderer, "codePage", 52);
+        ReflectionTestUtils.setField(receiptRenderer, "qrModuleSize", 6);
+        ReflectionTestUtils.setField(receiptRenderer, "cacheMaxBytes", 8_388_608L);
+        receiptRenderer.init();
+
+        billService = BenchmarkFixtures.billService(new BillService());
+        ReflectionTestUtils.setField(billService, "billPdfRenderer", renderer);
+        ReflectionTestUtils.setField(billService, "vietQrService", vietQrService);
+        dto = billService.convertToDTO(BenchmarkFixtures.bill(1L,
+                BenchmarkFixtures.order(1L, menu, itemCount, BenchmarkFixtures.percentagePromotion(1L, menu))));
+    }
+
+    @TearDown
+    public void tearDown() {
+        renderer.shutdown();
+    }
+
+    @Benchmark
+    public byte[] legacy() throws Exception {
+        return LegacyBillPdf.render(dto, fontPath, qr(dto));
+    }
+
+    @Benchmark
+    public byte[] pooled() {
+        return billService.renderBillPdf(dto);
+    }
+
+    // 4 yêu cầu đồng thời (như nhiều máy thu ngân cùng in)
+    @Benchmark
+    @Threads(4)
+    public byte[] legacyConcurrent() throws Exception {
+        return LegacyBillPdf.render(dto, fontPath, qr(dto));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] pooledConcurrent() {
+        return billService.renderBillPdf(dto);
+    }
+
+    @Benchmark
+    public byte[] escPosReceipt() {
+        return receiptRenderer.render(dto);
+    }
+
+    // Thay cho ảnh img.vietqr.io của bản cũ: sinh QR tại chỗ với cùng kích thước ảnh
+    static Image qr(BillDTO dto) throws Exception {
+        String content = "DonHang" + dto.getOrderId() + "|" + dto.getTotalAmount().intValue();
+        return new BarcodeQRCode(content, 150, 150, null).getImage();
+    }
+}
@@ -0,0 +1,90 @@
+package com.tranthanhsang.example304.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.tranthanhsang.example304.security.jwt.JwtUtils;
+import com.tranthanhsang.example304.security.services.UserDetailsImpl;
+
+import io.jsonwebtoken.Claims;
+
+// Kiểm tra token JWT trên mỗi request (AuthTokenFilter gọi validateToken + getUsernameFromToken)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    // Cùng giá trị mặc định trong application.properties
+    static final String JWT_SECRET = "U2VjdXJlS2V5RXhhbXBsZTEyMzQ1Njc4OTAxMjM0NTY3ODkwMTIzNDU2Nzg5MA==";
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = jwtUtils();
+        token = jwtUtils.generateJwtToken(authentication());
+        if (principalFromToken() == null) {
+            throw new IllegalStateException("Token thiếu claim id/quyền");
+        }
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtils.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return jwtUtils.getUsernameFromToken(token);
+    }
+
+    // Luồng cũ của AuthTokenFilter: validateToken rồi getUsernameFromToken (parse 2 lần)
+    @Benchmark
+    public String validateThenGetUsername() {
+        return jwtUtils.validateToken(token) ? jwtUtils.getUsernameFromToken(token) : null;
+    }
+
+    @Benchmark
+    public Claims parseClaims() {
+        return jwtUtils.parseClaims(token);
+    }
+
+    // Luồng hiện tại của AuthTokenFilter: parse 1 lần + dựng principal từ claims (không DB)
+    @Benchmark
+    public UserDetailsImpl principalFromToken() {
+        Claims claims = jwtUtils.parseClaims(token);
+        return claims != null ? jwtUtils.principalFromClaims(claims) : null;
+    }
+
+    static JwtUtils jwtUtils() {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86_400_000);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    static UsernamePasswordAuthenticationToken authentication() {
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "thungan01", "thungan01@coffee.vn", "secret",
+                "Thu ngân 01", null, null, true, null, null,
+                List.of(new SimpleGrantedAuthority("ROLE_EMPLOYEE")));
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+}
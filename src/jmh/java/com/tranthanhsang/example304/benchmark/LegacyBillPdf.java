@@ -0,0 +1,109 @@
+package com.tranthanhsang.example304.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.stream.Stream;
+
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.payload.response.OrderItemDTO;
+
+// Bản sao BillService.renderBillPdf cũ (nạp font + dựng Font mỗi lần, chạy trên luồng gọi) - làm mốc so sánh
+final class LegacyBillPdf {
+
+    private LegacyBillPdf() {
+    }
+
+    static byte[] render(BillDTO dto, String fontPath, Image qrImage) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            Document document = new Document(PageSize.A4, 36, 36, 36, 36);
+            PdfWriter.getInstance(document, baos);
+            document.open();
+
+            BaseFont baseFont = BaseFont.createFont(fontPath, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
+
+            Font titleFont = new Font(baseFont, 20, Font.BOLD, BaseColor.BLACK);
+            Font textFont = new Font(baseFont, 12, Font.NORMAL, BaseColor.BLACK);
+            Font boldFont = new Font(baseFont, 12, Font.BOLD, BaseColor.BLACK);
+
+            Paragraph title = new Paragraph("COFFEE THANH XANN", titleFont);
+            title.setAlignment(Element.ALIGN_CENTER);
+            document.add(title);
+            document.add(new Paragraph(" "));
+            document.add(new Paragraph("HÓA ĐƠN THANH TOÁN #" + dto.getId(), boldFont));
+            document.add(new Paragraph(
+                    "Ngày xuất: " + dto.getIssuedAt().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
+                    textFont));
+            document.add(new Paragraph(" "));
+
+            document.add(new Paragraph("Bàn: " + dto.getTableNumber(), textFont));
+            document.add(new Paragraph("Nhân viên: " +
+                    (dto.getEmployeeName() != null ? dto.getEmployeeName() : "N/A"), textFont));
+            document.add(new Paragraph("Phương thức thanh toán: " + dto.getPaymentMethod(), textFont));
+            document.add(new Paragraph("Trạng thái: " + dto.getPaymentStatus(), textFont));
+            document.add(new Paragraph(" "));
+
+            PdfPTable table = new PdfPTable(4);
+            table.setWidthPercentage(100);
+            table.setWidths(new float[] { 4, 1, 2, 2 });
+
+            Stream.of("Tên món", "SL", "Đơn giá", "Thành tiền").forEach(header -> {
+                PdfPCell cell = new PdfPCell(new Paragraph(header, boldFont));
+                cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+                table.addCell(cell);
+            });
+
+            for (OrderItemDTO item : dto.getItems()) {
+                table.addCell(new Paragraph(item.getProductName(), textFont));
+                table.addCell(new Paragraph(String.valueOf(item.getQuantity()), textFont));
+                table.addCell(new Paragraph(String.format("%,.0f₫", item.getPrice()), textFont));
+                table.addCell(new Paragraph(String.format("%,.0f₫", item.getSubtotal()), textFont));
+            }
+
+            document.add(table);
+            document.add(new Paragraph(" "));
+
+            Paragraph subTotal = new Paragraph("Tạm tính: " +
+                    String.format("%,.0f₫", dto.getOriginalAmount()), textFont);
+            subTotal.setAlignment(Element.ALIGN_RIGHT);
+            document.add(subTotal);
+
+            Paragraph discount = new Paragraph("Giảm giá: -" +
+                    String.format("%,.0f₫", dto.getDiscountAmount()), textFont);
+            discount.setAlignment(Element.ALIGN_RIGHT);
+            document.add(discount);
+
+            Paragraph total = new Paragraph("Tổng cộng: " +
+                    String.format("%,.0f₫", dto.getTotalAmount()), boldFont);
+            total.setAlignment(Element.ALIGN_RIGHT);
+            document.add(total);
+
+            document.add(new Paragraph(" "));
+
+            qrImage.scaleAbsolute(150, 150);
+            qrImage.setAlignment(Element.ALIGN_CENTER);
+            document.add(qrImage);
+
+            Paragraph qrNote = new Paragraph(
+                    "Quét mã để thanh toán: " + String.format("%,.0f₫", dto.getTotalAmount()),
+                    textFont);
+            qrNote.setAlignment(Element.ALIGN_CENTER);
+            document.add(qrNote);
+
+            document.close();
+            return baos.toByteArray();
+        } catch (Exception e) {
+            throw new RuntimeException("Lỗi khi tạo PDF: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.tranthanhsang.example304.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.tranthanhsang.example304.entity.Bill;
+import com.tranthanhsang.example304.entity.Order;
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.payload.response.OrderItemDTO;
+
+// Bản sao lambda cũ trong BillService.getBillsByTable (duyệt món 3 lần) - làm mốc so sánh
+final class LegacyDtoMapping {
+
+    private LegacyDtoMapping() {
+    }
+
+    static BillDTO toBillDto(Bill bill) {
+        Order order = bill.getOrder();
+
+        BillDTO dto = new BillDTO();
+        dto.setId(bill.getId());
+        dto.setTotalAmount(bill.getTotalAmount());
+        dto.setPaymentMethod(bill.getPaymentMethod().name());
+        dto.setPaymentStatus(bill.getPaymentStatus().name());
+        dto.setIssuedAt(bill.getIssuedAt());
+
+        dto.setOrderId(order.getId());
+        dto.setOrderStatus(order.getStatus().name());
+        dto.setOrderTotal(order.getTotalAmount());
+        dto.setOrderNotes(order.getNotes());
+        dto.setTotalQuantity(order.getItems().stream()
+                .mapToInt(OrderItem::getQuantity)
+                .sum());
+
+        if (order.getTable() != null) {
+            dto.setTableId(order.getTable().getId());
+            dto.setTableNumber(order.getTable().getNumber());
+        }
+
+        if (order.getEmployee() != null) {
+            dto.setEmployeeId(order.getEmployee().getId());
+            dto.setEmployeeName(order.getEmployee().getFullName());
+        }
+
+        if (order.getPromotion() != null) {
+            dto.setPromotionId(order.getPromotion().getId());
+            dto.setPromotionCode(order.getPromotion().getName());
+        } else {
+            dto.setPromotionId(null);
+            dto.setPromotionCode(null);
+        }
+
+        List<OrderItemDTO> itemDTOs = order.getItems().stream().map(item -> {
+            OrderItemDTO itemDTO = new OrderItemDTO();
+            itemDTO.setProductId(item.getProduct().getId());
+            itemDTO.setProductName(item.getProduct().getName());
+            itemDTO.setQuantity(item.getQuantity());
+            itemDTO.setPrice(item.getPrice());
+            itemDTO.setSubtotal(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            itemDTO.setOrderId(order.getId());
+            return itemDTO;
+        }).toList();
+
+        dto.setItems(itemDTOs);
+
+        BigDecimal originalAmount = order.getItems().stream()
+                .map(OrderItem::getSubtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        dto.setOriginalAmount(originalAmount);
+
+        BigDecimal discountAmount = originalAmount.subtract(order.getTotalAmount());
+        dto.setDiscountAmount(discountAmount.compareTo(BigDecimal.ZERO) > 0 ? discountAmount : BigDecimal.ZERO);
+
+        return dto;
+    }
+}
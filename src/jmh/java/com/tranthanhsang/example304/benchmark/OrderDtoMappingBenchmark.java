@@ -0,0 +1,56 @@
+package com.tranthanhsang.example304.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tranthanhsang.example304.entity.Bill;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.security.services.OrderDtoMapper;
+
+// So sánh chi phí dựng 1 BillDTO: lambda cũ (duyệt món 3 lần) và OrderDtoMapper (1 lần).
+// Chạy kèm "-prof gc" để xem số byte cấp phát mỗi DTO (gc.alloc.rate.norm).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderDtoMappingBenchmark {
+
+    @Param({ "3", "10", "30" })
+    private int itemCount;
+
+    private Bill bill;
+    private OrderDtoMapper mapper;
+
+    @Setup
+    public void setUp() {
+        List<Product> menu = BenchmarkFixtures.products(50);
+        bill = BenchmarkFixtures.bill(1L,
+                BenchmarkFixtures.order(1L, menu, itemCount, BenchmarkFixtures.percentagePromotion(1L, menu)));
+        mapper = new OrderDtoMapper();
+    }
+
+    @Benchmark
+    public BillDTO legacyLambda() {
+        return LegacyDtoMapping.toBillDto(bill);
+    }
+
+    @Benchmark
+    public BillDTO singlePassMapper() {
+        return mapper.toBillDto(bill);
+    }
+}
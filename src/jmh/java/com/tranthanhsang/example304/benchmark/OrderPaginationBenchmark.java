@@ -0,0 +1,101 @@
+package com.tranthanhsang.example304.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Danh sách đơn hàng trên bảng 1 triệu dòng (H2 trong bộ nhớ, JOIN bàn như findAllWithRefs):
+// OFFSET + COUNT(*) như Page cũ, so với con trỏ WHERE id < ? ORDER BY id DESC LIMIT n.
+// page = số trang 12 đơn tính từ đơn mới nhất.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPaginationBenchmark {
+    private static final int ORDER_COUNT = 1_000_000;
+    private static final int PAGE_SIZE = 12;
+
+    @Param({ "0", "1000", "40000", "80000" })
+    private int page;
+
+    private Connection connection;
+    private PreparedStatement offsetPage;
+    private PreparedStatement count;
+    private PreparedStatement keysetPage;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:paging;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE");
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS orders");
+            st.execute("DROP TABLE IF EXISTS tables");
+            st.execute("CREATE TABLE tables (id BIGINT PRIMARY KEY, number INT)");
+            st.execute("INSERT INTO tables SELECT X, X FROM SYSTEM_RANGE(1, 20)");
+            st.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, table_id BIGINT REFERENCES tables(id), "
+                    + "status VARCHAR(20), total_amount DECIMAL(12, 2), created_at TIMESTAMP)");
+            st.execute("INSERT INTO orders SELECT X, MOD(X, 20) + 1, 'PAID', 50000, CURRENT_TIMESTAMP "
+                    + "FROM SYSTEM_RANGE(1, " + ORDER_COUNT + ")");
+        }
+        offsetPage = connection.prepareStatement(
+                "SELECT o.id, t.number, o.status, o.total_amount, o.created_at FROM orders o JOIN tables t ON t.id = o.table_id "
+                        + "ORDER BY o.id DESC LIMIT ? OFFSET ?");
+        count = connection.prepareStatement("SELECT COUNT(o.id) FROM orders o");
+        keysetPage = connection.prepareStatement(
+                "SELECT o.id, t.number, o.status, o.total_amount, o.created_at FROM orders o JOIN tables t ON t.id = o.table_id "
+                        + "WHERE o.id < ? ORDER BY o.id DESC LIMIT ?");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    // Page cũ: PageRequest.of(page, 12) → OFFSET + COUNT(*)
+    @Benchmark
+    public long offsetWithCount() throws SQLException {
+        offsetPage.setInt(1, PAGE_SIZE);
+        offsetPage.setLong(2, (long) page * PAGE_SIZE);
+        long sum = read(offsetPage);
+        try (ResultSet rs = count.executeQuery()) {
+            rs.next();
+            return sum + rs.getLong(1);
+        }
+    }
+
+    // Con trỏ: id cuối của trang trước, lấy 12 + 1 dòng để biết còn trang sau
+    @Benchmark
+    public long keyset() throws SQLException {
+        keysetPage.setLong(1, ORDER_COUNT + 1L - (long) page * PAGE_SIZE);
+        keysetPage.setInt(2, PAGE_SIZE + 1);
+        return read(keysetPage);
+    }
+
+    private static long read(PreparedStatement statement) throws SQLException {
+        long sum = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                sum += rs.getLong(1) + rs.getLong(2);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,77 @@
+package com.tranthanhsang.example304.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.Promotion;
+import com.tranthanhsang.example304.security.services.OrderService;
+import com.tranthanhsang.example304.security.services.PromotionEngine;
+import com.tranthanhsang.example304.security.services.PromotionRule;
+
+// Tính tổng tiền + khuyến mãi như trong OrderService.create / update
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderTotalBenchmark {
+
+    @Param({ "3", "10", "30" })
+    private int itemCount;
+
+    // Số sản phẩm thuộc khuyến mãi
+    @Param({ "5", "50" })
+    private int promotionSize;
+
+    private OrderService orderService;
+    private List<OrderItem> items;
+    private Promotion promotion;
+    private PromotionRule rule;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() {
+        List<Product> menu = BenchmarkFixtures.products(100);
+        items = BenchmarkFixtures.order(1L, menu, itemCount, null).getItems();
+        // Khuyến mãi áp dụng cho các sản phẩm cuối menu → phải duyệt gần hết danh sách
+        promotion = BenchmarkFixtures.percentagePromotion(1L, menu.subList(menu.size() - promotionSize, menu.size()));
+        promotion.getProducts().add(menu.get(0));
+        promotion.setDiscountAmount(BigDecimal.ZERO);
+        rule = PromotionRule.compile(promotion);
+        today = LocalDate.now();
+        orderService = new OrderService();
+    }
+
+    @Benchmark
+    public BigDecimal withoutPromotion() {
+        return orderService.calculateTotal(items, null, today);
+    }
+
+    @Benchmark
+    public BigDecimal withPercentagePromotion() {
+        return orderService.calculateTotal(items, promotion, today);
+    }
+
+    // Khuyến mãi đã biên dịch sẵn (như PromotionEngine dùng trong OrderService)
+    @Benchmark
+    public BigDecimal withCompiledPromotion() {
+        return PromotionEngine.evaluate(items, rule, today).getTotalAmount();
+    }
+}
@@ -0,0 +1,102 @@
+package com.tranthanhsang.example304.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tranthanhsang.example304.payload.response.ProductSuggestionDTO;
+import com.tranthanhsang.example304.security.services.SuggestTrie;
+import com.tranthanhsang.example304.security.services.VietnameseText;
+
+// Gợi ý khi gõ: trie top-K so với quét toàn bộ tên (tương đương LIKE '%kw%' + sắp theo lượt bán).
+// SampleTime → xem p99 / p99.9 cho mỗi lần gọi, 4 luồng đọc song song.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ProductSuggestBenchmark {
+    private static final String[] WORDS = { "Trà", "đào", "cam", "sả", "Cà", "phê", "sữa", "đá", "Bạc", "xỉu",
+            "Sinh", "tố", "bơ", "xoài", "Nước", "ép", "dưa", "hấu", "vải", "matcha", "đường", "đen", "kem", "muối" };
+    private static final String[] PREFIXES = { "t", "tra", "tra d", "ca phe s", "dao", "sinh to b", "nuoc ep",
+            "matcha k", "xoai", "bac xiu" };
+
+    @Param({ "500", "5000" })
+    private int productCount;
+
+    private List<SuggestTrie.Entry> entries;
+    private String[] foldedNames;
+    private SuggestTrie trie;
+
+    @Setup
+    public void setUp() {
+        entries = new ArrayList<>(productCount);
+        foldedNames = new String[productCount];
+        for (int i = 0; i < productCount; i++) {
+            String name = WORDS[i % WORDS.length] + " " + WORDS[(i * 7 + 3) % WORDS.length] + " "
+                    + WORDS[(i * 13 + 5) % WORDS.length] + " " + (i + 1);
+            entries.add(new SuggestTrie.Entry((long) i + 1, name, "/images/" + i + ".jpg",
+                    BigDecimal.valueOf(30_000), (i * 31L) % 1000));
+            foldedNames[i] = VietnameseText.fold(name);
+        }
+        trie = SuggestTrie.build(entries, 10);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            next = 0;
+        }
+
+        String prefix() {
+            return PREFIXES[next++ % PREFIXES.length];
+        }
+    }
+
+    @Benchmark
+    public List<ProductSuggestionDTO> trie(Cursor cursor) {
+        return trie.suggest(cursor.prefix(), 8);
+    }
+
+    @Benchmark
+    public List<Long> linearScan(Cursor cursor) {
+        String needle = VietnameseText.fold(cursor.prefix());
+        List<SuggestTrie.Entry> matches = new ArrayList<>();
+        for (int i = 0; i < foldedNames.length; i++) {
+            if (foldedNames[i].contains(needle)) {
+                matches.add(entries.get(i));
+            }
+        }
+        matches.sort((a, b) -> Long.compare(b.weight(), a.weight()));
+        return matches.stream().limit(8).map(SuggestTrie.Entry::productId).toList();
+    }
+
+    // Chi phí dựng lại trie khi 1 sản phẩm thay đổi
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(1)
+    public SuggestTrie rebuild() {
+        return SuggestTrie.build(entries, 10);
+    }
+}
@@ -0,0 +1,97 @@
+package com.tranthanhsang.example304.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.Promotion;
+import com.tranthanhsang.example304.payload.response.PromotionQuoteDTO;
+import com.tranthanhsang.example304.security.services.PromotionIndex;
+import com.tranthanhsang.example304.security.services.PromotionRule;
+
+// Tự chọn khuyến mãi tốt nhất cho 1 đơn: chỉ mục (BitSet sản phẩm + lịch hiệu lực)
+// so với thử lần lượt mọi khuyến mãi. Thực đơn 500 món, mỗi khuyến mãi 1-20 món, ngày hiệu lực ngẫu nhiên.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromotionSelectionBenchmark {
+
+    @Param({ "1000", "5000" })
+    private int promotionCount;
+
+    @Param({ "1", "3" })
+    private int maxPromotions;
+
+    private List<OrderItem> items;
+    private List<PromotionRule> rules;
+    private PromotionIndex index;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Product> menu = BenchmarkFixtures.products(500);
+        items = BenchmarkFixtures.order(1L, menu, 10, null).getItems();
+        today = LocalDate.now();
+
+        rules = new ArrayList<>(promotionCount);
+        for (int i = 0; i < promotionCount; i++) {
+            List<Product> products = new ArrayList<>();
+            int size = 1 + random.nextInt(20);
+            for (int j = 0; j < size; j++) {
+                products.add(menu.get(random.nextInt(menu.size())));
+            }
+            Promotion promotion = BenchmarkFixtures.percentagePromotion(i + 1L, products);
+            if (random.nextBoolean()) {
+                promotion.setDiscountPercentage(BigDecimal.valueOf(5 + random.nextInt(30)));
+            } else {
+                promotion.setDiscountPercentage(null);
+                promotion.setDiscountAmount(BigDecimal.valueOf(1_000L * (5 + random.nextInt(30))));
+            }
+            // Khoảng 1/3 khuyến mãi đã hết hạn hoặc chưa bắt đầu
+            int offset = random.nextInt(90) - 60;
+            promotion.setStartDate(today.plusDays(offset));
+            promotion.setEndDate(today.plusDays(offset + 1 + random.nextInt(60)));
+            rules.add(PromotionRule.compile(promotion));
+        }
+        index = new PromotionIndex(rules);
+    }
+
+    @Benchmark
+    public PromotionQuoteDTO indexed() {
+        return index.best(items, today, maxPromotions, false);
+    }
+
+    // Cách làm không có chỉ mục: tính thử từng khuyến mãi, giữ khuyến mãi giảm nhiều nhất
+    @Benchmark
+    public PromotionQuoteDTO scanAllPromotions() {
+        PromotionQuoteDTO best = PromotionIndex.evaluate(items, null, today);
+        for (PromotionRule rule : rules) {
+            PromotionQuoteDTO quote = PromotionIndex.evaluate(items, rule, today);
+            if (quote.getDiscountAmount().compareTo(best.getDiscountAmount()) > 0) {
+                best = quote;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,72 @@
+package com.tranthanhsang.example304.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tranthanhsang.example304.security.services.VnPayService;
+
+// Tạo URL thanh toán và xác thực callback VNPAY (không gọi mạng)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VnPayBenchmark {
+
+    private VnPayService vnPayService;
+    private Map<String, String> callbackParams;
+    private PrintStream originalErr;
+
+    @Setup
+    public void setUp() {
+        // Log DEBUG của VnPayService ghi ra System.err → bỏ đi để không đo I/O console
+        originalErr = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+
+        vnPayService = new VnPayService();
+        callbackParams = queryParams(vnPayService.createPayment(1234L, 185_000L));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setErr(originalErr);
+    }
+
+    @Benchmark
+    public String createPayment() {
+        return vnPayService.createPayment(1234L, 185_000L);
+    }
+
+    @Benchmark
+    public boolean validateHash() {
+        return vnPayService.validateHash(callbackParams);
+    }
+
+    // Tách query string của URL thanh toán thành map tham số (giống callback trả về)
+    private static Map<String, String> queryParams(String url) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : url.substring(url.indexOf('?') + 1).split("&")) {
+            int eq = pair.indexOf('=');
+            params.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
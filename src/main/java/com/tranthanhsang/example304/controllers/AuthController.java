@@ -5,14 +5,24 @@ import com.tranthanhsang.example304.model.Role;
 import com.tranthanhsang.example304.model.User;
 import com.tranthanhsang.example304.payload.request.LoginRequest;
 import com.tranthanhsang.example304.payload.request.SignupRequest;
+import com.tranthanhsang.example304.payload.request.TokenRefreshRequest;
 import com.tranthanhsang.example304.payload.response.JwtResponse;
 import com.tranthanhsang.example304.payload.response.MessageResponse;
 import com.tranthanhsang.example304.repository.RoleRepository;
 import com.tranthanhsang.example304.repository.UserRepository;
+import com.tranthanhsang.example304.security.BoundedPasswordEncoder;
 import com.tranthanhsang.example304.security.jwt.JwtUtils;
+import com.tranthanhsang.example304.security.services.LoginRateLimiter;
+import com.tranthanhsang.example304.security.services.RefreshTokenService;
+import com.tranthanhsang.example304.security.services.TokenRevocationService;
 import com.tranthanhsang.example304.security.services.UserDetailsImpl;
+import com.tranthanhsang.example304.security.services.UserPrincipalCache;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -45,10 +55,32 @@ public class AuthController {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    UserPrincipalCache principalCache;
+
+    @Autowired
+    RefreshTokenService refreshTokenService;
+
+    @Autowired
+    LoginRateLimiter loginRateLimiter;
+
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
+            HttpServletRequest request) {
         System.out.println("Đăng nhập với username: " + loginRequest.getUsername());
 
+        // ✅ Giới hạn tần suất theo IP + username, chặn trước khi chạy BCrypt
+        long retryAfter = loginRateLimiter.tryAcquire(request.getRemoteAddr(), loginRequest.getUsername());
+        if (retryAfter > 0) {
+            return ResponseEntity
+                    .status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body(new MessageResponse("Đăng nhập quá nhiều lần, vui lòng thử lại sau " + retryAfter + " giây"));
+        }
+
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
@@ -65,14 +97,24 @@ public class AuthController {
                     .map(item -> item.getAuthority())
                     .collect(Collectors.toList());
 
-            return ResponseEntity.ok(new JwtResponse(jwt,
+            JwtResponse response = new JwtResponse(jwt,
                     userDetails.getId(),
                     userDetails.getUsername(),
                     userDetails.getEmail(),
                     userDetails.getFullName(), // ✅ thêm
                     userDetails.getPhone(), // ✅ thêm
                     userDetails.getImageUrl(), // ✅ thêm
-                    roles));
+                    roles);
+            // ✅ Refresh token để làm mới access token (ngắn hạn) mà không phải đăng nhập lại
+            response.setRefreshToken(
+                    refreshTokenService.create(userRepository.getReferenceById(userDetails.getId())));
+            return ResponseEntity.ok(response);
+        } catch (BoundedPasswordEncoder.PasswordHashingBusyException e) {
+            // Pool băm mật khẩu quá tải → báo client thử lại, không tính là sai mật khẩu
+            return ResponseEntity
+                    .status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(new MessageResponse(e.getMessage()));
         } catch (Exception e) {
             System.out.println("Lỗi xác thực: " + e.getMessage());
             return ResponseEntity
@@ -81,6 +123,62 @@ public class AuthController {
         }
     }
 
+    // ✅ Làm mới access token bằng refresh token (xoay vòng: token cũ bị hủy, trả token mới).
+    // Chỉ băm SHA-256 + 1 câu tra DB, không chạy BCrypt như khi đăng nhập.
+    @PostMapping("/refreshtoken")
+    public ResponseEntity<?> refreshToken(@Valid @RequestBody TokenRefreshRequest request) {
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+            UserDetailsImpl userDetails = UserDetailsImpl.build(rotation.user());
+            String jwt = jwtUtils.generateTokenFromPrincipal(userDetails);
+
+            List<String> roles = userDetails.getAuthorities().stream()
+                    .map(item -> item.getAuthority())
+                    .collect(Collectors.toList());
+
+            JwtResponse response = new JwtResponse(jwt,
+                    userDetails.getId(),
+                    userDetails.getUsername(),
+                    userDetails.getEmail(),
+                    userDetails.getFullName(),
+                    userDetails.getPhone(),
+                    userDetails.getImageUrl(),
+                    roles);
+            response.setRefreshToken(rotation.refreshToken());
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Làm mới token thất bại: " + e.getMessage()));
+        }
+    }
+
+    // ✅ Đăng xuất: thu hồi mọi token đã cấp cho tài khoản (tất cả thiết bị)
+    @PostMapping("/signout")
+    public ResponseEntity<?> logoutUser(
+            @RequestHeader(value = "Authorization", required = false) String headerAuth) {
+        // /api/auth/** không đi qua AuthTokenFilter → tự đọc token từ header
+        if (headerAuth == null || !headerAuth.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Thiếu token đăng nhập"));
+        }
+
+        Claims claims = jwtUtils.parseClaims(headerAuth.substring(7));
+        if (claims == null) {
+            return ResponseEntity.status(401).body(new MessageResponse("Token không hợp lệ hoặc đã hết hạn"));
+        }
+
+        // Token cũ chưa có claim uid → tra id theo username
+        Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+        if (userId == null) {
+            userId = userRepository.findByUsername(claims.getSubject()).map(User::getId).orElse(null);
+        }
+
+        tokenRevocationService.revokeAllForUser(userId);
+        refreshTokenService.deleteAllForUser(userId);
+        principalCache.invalidate(claims.getSubject());
+        return ResponseEntity.ok(new MessageResponse("Đăng xuất thành công"));
+    }
+
     @PostMapping("/signup")
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
         if (userRepository.existsByUsername(signUpRequest.getUsername())) {
@@ -3,14 +3,24 @@ package com.tranthanhsang.example304.controllers;
 import com.tranthanhsang.example304.entity.Bill;
 import com.tranthanhsang.example304.entity.enums.PaymentStatus;
 import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.security.services.BillExportService;
+import com.tranthanhsang.example304.security.services.BillPdfCache;
+import com.tranthanhsang.example304.security.services.BillPdfRenderer;
 import com.tranthanhsang.example304.security.services.BillService;
 import com.tranthanhsang.example304.security.services.VnPayService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
+
 import java.util.List;
 import java.util.Map;
 import org.springframework.http.HttpHeaders;
@@ -25,6 +35,14 @@ public class BillController {
     private BillService billService;
     @Autowired
     private VnPayService vnPayService;
+    @Autowired
+    private BillExportService billExportService;
+
+    // Thuộc tính request của Tomcat để gửi file bằng sendfile
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
 
     // ✅ Trả về danh sách BillDTO
     @GetMapping
@@ -36,6 +54,18 @@ public class BillController {
         return ResponseEntity.ok(bills);
     }
 
+    // ✅ Danh sách hóa đơn theo con trỏ (?after=<nextCursor>&limit=), trang cũ (?page=) vẫn giữ
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAnyRole('ROLE_EMPLOYEE', 'ROLE_ADMIN')")
+    public ResponseEntity<?> getAfter(@RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "12") int limit) {
+        try {
+            return ResponseEntity.ok(billService.getAfter(after, limit));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     // Thêm hóa đơn
     @PostMapping
     @PreAuthorize("hasAnyRole('ROLE_EMPLOYEE', 'ROLE_ADMIN')")
@@ -103,18 +133,96 @@ public class BillController {
         return ResponseEntity.ok(updatedBill);
     }
 
+    // ✅ Xuất hàng loạt cho kế toán: from / to = yyyy-MM-dd (tính cả 2 ngày), format = zip (PDF) | csv | jsonl.
+    // Ghi thẳng ra response trong lúc đọc DB (StreamingResponseBody), không gom cả file trong bộ nhớ
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    public ResponseEntity<?> exportBills(
+            @RequestParam String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "zip") String format) {
+        BillExportService.Range range;
+        BillExportService.Format exportFormat;
+        try {
+            range = billExportService.range(from, to);
+            exportFormat = BillExportService.Format.parse(format);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        StreamingResponseBody body = out -> {
+            long count = billExportService.export(range, exportFormat, out);
+            System.out.println("📦 Đã xuất " + count + " hóa đơn (" + exportFormat + ") từ " + range.from()
+                    + " đến " + range.to());
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(exportFormat.contentType()));
+        headers.setContentDispositionFormData("attachment", range.fileName(exportFormat));
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
     @GetMapping("/{id}/pdf")
     // Giả sử bạn có PreAuthorize ở đây
-    public ResponseEntity<byte[]> exportBillPdf(@PathVariable Long id) {
-        byte[] pdfData = billService.generateBillPdf(id);
+    // ✅ PDF lấy từ cache theo phiên bản hóa đơn; trình duyệt gửi lại If-None-Match / If-Modified-Since → 304
+    public ResponseEntity<?> exportBillPdf(@PathVariable Long id, ServletWebRequest webRequest) {
+        BillPdfCache.Key key;
+        try {
+            key = billService.getPdfKey(id);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(key.etag(), key.versionMillis())) {
+            return null; // 304, đã có header ETag / Last-Modified
+        }
+
+        BillPdfCache.CachedPdf pdf;
+        try {
+            pdf = billService.getCachedBillPdf(key);
+        } catch (BillPdfRenderer.BillPdfBusyException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+        }
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentLength(pdf.size());
+        // Luôn hỏi lại server (rẻ: chỉ so ETag), hóa đơn không lưu ở cache dùng chung
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
 
         // SỬA ĐỔI: Đổi "attachment" thành "inline" để PDF mở trong trình duyệt
         headers.setContentDispositionFormData("inline", "HoaDon_" + id + ".pdf");
 
-        return new ResponseEntity<>(pdfData, headers, HttpStatus.OK);
+        // Tomcat hỗ trợ sendfile → kernel gửi thẳng file ra socket, không chép qua heap
+        HttpServletRequest request = webRequest.getRequest();
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, pdf.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, pdf.size());
+            return new ResponseEntity<>(headers, HttpStatus.OK);
+        }
+        return new ResponseEntity<>(new FileSystemResource(pdf.file()), headers, HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/receipt")
+    // ✅ Phiếu in nhiệt ESC/POS (gửi thẳng cho máy in 80mm), cache và 304 giống PDF
+    public ResponseEntity<?> exportBillReceipt(@PathVariable Long id, ServletWebRequest webRequest) {
+        BillPdfCache.Key key;
+        try {
+            key = billService.getPdfKey(id);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(key.etag("receipt"), key.versionMillis())) {
+            return null;
+        }
+
+        byte[] receipt = billService.getReceipt(key);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentLength(receipt.length);
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        headers.setContentDispositionFormData("inline", "HoaDon_" + id + ".bin");
+        return new ResponseEntity<>(receipt, headers, HttpStatus.OK);
     }
 
     @PostMapping("/from-order/{orderId}")
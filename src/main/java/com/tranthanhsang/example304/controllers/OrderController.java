@@ -6,12 +6,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import com.tranthanhsang.example304.security.services.OrderService;
+import com.tranthanhsang.example304.security.services.RevenueSeriesService;
+import com.tranthanhsang.example304.security.services.SalesRollupService;
 import com.tranthanhsang.example304.entity.Order;
 import com.tranthanhsang.example304.entity.enums.OrderStatus;
 import com.tranthanhsang.example304.payload.response.EmployeeSalesDTO;
 import com.tranthanhsang.example304.payload.response.OrderDTO;
 import com.tranthanhsang.example304.payload.response.ProductSalesDTO;
 import com.tranthanhsang.example304.payload.response.RevenueCountDTO;
+import com.tranthanhsang.example304.payload.response.RevenueHeatmapDTO;
 
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
@@ -29,6 +32,10 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
     @Autowired
+    private SalesRollupService salesRollupService;
+    @Autowired
+    private RevenueSeriesService revenueSeriesService;
+    @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
     // ✅ Trả về danh sách OrderDTO
@@ -40,6 +47,17 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    // ✅ Danh sách đơn hàng theo con trỏ (?after=<nextCursor>&limit=), trang cũ (?page=) vẫn giữ
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getAfter(@RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "12") int limit) {
+        try {
+            return ResponseEntity.ok(orderService.getAfter(after, limit));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/submit-draft")
     public ResponseEntity<Void> submitDraftOrder(@RequestBody OrderDTO draftOrder) { // SỬA: Đổi kiểu tham số thành
 
@@ -139,10 +157,15 @@ public class OrderController {
     @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
     public ResponseEntity<List<ProductSalesDTO>> getTopSellingStats(
             // Tham số limit (mặc định 10) để giới hạn số lượng sản phẩm
-            @RequestParam(defaultValue = "10") int limit) {
-
-        List<ProductSalesDTO> stats = orderService.getTopSellingProducts(limit);
-        return ResponseEntity.ok(stats);
+            @RequestParam(defaultValue = "10") int limit,
+            // Cửa sổ thời gian: hour | today | week (trong bộ nhớ), bỏ trống / all = toàn thời gian
+            @RequestParam(required = false) String window) {
+        try {
+            List<ProductSalesDTO> stats = orderService.getTopSellingProducts(limit, window);
+            return ResponseEntity.ok(stats);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/stats/daily-revenue")
@@ -155,6 +178,47 @@ public class OrderController {
         return ResponseEntity.ok(stats);
     }
 
+    // ✅ Chuỗi doanh thu theo khung: granularity = minute | hour | day | week | month,
+    // from / to dạng yyyy-MM-dd hoặc yyyy-MM-ddTHH:mm (to không tính; ngày → hết ngày đó)
+    @GetMapping("/stats/revenue")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    public ResponseEntity<List<RevenueCountDTO>> getRevenueSeries(
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            return ResponseEntity.ok(revenueSeriesService.series(granularity, from, to));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ✅ Tổng doanh thu / số đơn của 1 khoảng bất kỳ
+    @GetMapping("/stats/revenue/summary")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    public ResponseEntity<RevenueCountDTO> getRevenueSummary(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            return ResponseEntity.ok(revenueSeriesService.summary(from, to));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ✅ Bản đồ nhiệt doanh thu thứ × giờ (mặc định 4 tuần gần nhất)
+    @GetMapping("/stats/revenue/heatmap")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    public ResponseEntity<RevenueHeatmapDTO> getRevenueHeatmap(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            return ResponseEntity.ok(revenueSeriesService.heatmap(from, to));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/stats/revenue-by-category")
     @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
     public ResponseEntity<List<ProductSalesDTO>> getRevenueByCategoryStats() {
@@ -163,6 +227,17 @@ public class OrderController {
         return ResponseEntity.ok(stats);
     }
 
+    // ✅ Dựng lại bảng tổng hợp doanh số từ lịch sử đơn PAID (backfill / sửa lệch)
+    @PostMapping("/stats/rollups/rebuild")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    public ResponseEntity<?> rebuildSalesRollups() {
+        try {
+            return ResponseEntity.ok(salesRollupService.rebuild());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(500).body(e.getMessage());
+        }
+    }
+
     @GetMapping("/stats/top-employees")
     @PreAuthorize("hasAnyRole('ROLE_ADMIN')") // Quyền Admin
     public ResponseEntity<List<EmployeeSalesDTO>> getTopSellingEmployeesStats(
@@ -4,12 +4,21 @@ import com.tranthanhsang.example304.entity.Product;
 import com.tranthanhsang.example304.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import com.tranthanhsang.example304.security.services.MenuSnapshot;
+import com.tranthanhsang.example304.security.services.MenuSnapshotService;
+import com.tranthanhsang.example304.security.services.PageCursor;
+import com.tranthanhsang.example304.security.services.ProductSearchIndex;
 import com.tranthanhsang.example304.security.services.ProductService;
+import com.tranthanhsang.example304.security.services.ProductSuggestService;
+import com.tranthanhsang.example304.payload.response.CursorPage;
+import com.tranthanhsang.example304.payload.response.ProductSuggestionDTO;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -26,13 +35,45 @@ public class ProductController {
 
     @Autowired
     private ProductService productService;
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    @Autowired
+    private ProductSuggestService productSuggestService;
 
     // ✅ Trả về danh sách Product
+    // Các API danh sách đọc từ ảnh chụp thực đơn; If-None-Match khớp ETag → 304, không chạm DB
     @GetMapping
     @PreAuthorize("hasAnyRole('ROLE_EMPLOYEE', 'ROLE_ADMIN','ROLE_USER')")
-    public ResponseEntity<Page<Product>> getAll(@RequestParam(defaultValue = "0") int page) {
-        Page<Product> products = productService.getAllPaged(page); // 👈 gọi service xử lý phân trang
-        return ResponseEntity.ok(products);
+    public ResponseEntity<Page<Product>> getAll(@RequestParam(defaultValue = "0") int page, WebRequest request) {
+        MenuSnapshot menu = menuSnapshotService.current();
+        String etag = menu.etag("all", page);
+        if (request.checkNotModified(etag)) {
+            return null; // 304
+        }
+        return withEtag(etag, menu.all(page));
+    }
+
+    // ✅ Danh sách theo con trỏ (?after=<nextCursor>&limit=), không OFFSET / COUNT
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAnyRole('ROLE_EMPLOYEE', 'ROLE_ADMIN','ROLE_USER')")
+    public ResponseEntity<?> getAfter(@RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "12") int limit, WebRequest request) {
+        long cursor;
+        try {
+            cursor = PageCursor.decode(after);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        int size = PageCursor.clamp(limit);
+        MenuSnapshot menu = menuSnapshotService.current();
+        String etag = menu.etag("cursor", cursor, size);
+        if (request.checkNotModified(etag)) {
+            return null; // 304
+        }
+        CursorPage<Product> body = PageCursor.page(menu.before(cursor, size + 1), size, Product::getId, rows -> rows);
+        return withEtag(etag, body);
     }
 
     // Thêm sản phẩm
@@ -96,15 +137,30 @@ public class ProductController {
             @RequestParam(required = false) String categoryName,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
-            Pageable pageable) { // Spring Boot tự động tạo đối tượng này từ các tham số URL
+            Pageable pageable, // Spring Boot tự động tạo đối tượng này từ các tham số URL
+            WebRequest request) {
 
         // THAY ĐỔI 2: Xóa bỏ việc kiểm tra keyword là bắt buộc
         // Giờ đây chúng ta có thể lọc mà không cần từ khóa
+        MenuSnapshot menu = menuSnapshotService.current();
+        String etag = menu.etag("search", productSearchIndex.version(),
+                keyword, categoryName, minPrice, maxPrice, pageable);
+        if (request.checkNotModified(etag)) {
+            return null; // 304
+        }
 
-        // THAY ĐỔI 3: Gọi hàm service mới với pageable
-        Page<Product> results = productService.searchWithFilter(keyword, categoryName, minPrice, maxPrice, pageable);
+        // Chỉ mục trong bộ nhớ: không dấu, khớp tiền tố, xếp theo độ liên quan (không chạm DB)
+        List<Long> rankedIds = productSearchIndex.search(keyword, categoryName, minPrice, maxPrice);
+        return withEtag(etag, menu.search(rankedIds, pageable));
+    }
 
-        return ResponseEntity.ok(results);
+    // ✅ Gợi ý khi gõ tên (typeahead): trie trong bộ nhớ, không dấu, ưu tiên món bán chạy
+    @GetMapping("/suggest")
+    @PreAuthorize("hasAnyRole('ROLE_EMPLOYEE', 'ROLE_ADMIN','ROLE_USER')")
+    public List<ProductSuggestionDTO> suggest(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return productSuggestService.suggest(q, limit);
     }
 
     // Lấy sản phẩm theo ID
@@ -120,21 +176,41 @@ public class ProductController {
     public ResponseEntity<Page<Product>> getByCategoryName(
             @RequestParam String name,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
+            @RequestParam(defaultValue = "12") int size,
+            WebRequest request) {
+        MenuSnapshot menu = menuSnapshotService.current();
+        String etag = menu.etag("category", name, page, size);
+        if (request.checkNotModified(etag)) {
+            return null; // 304
+        }
+
         Pageable pageable = PageRequest.of(page, size);
-        Page<Product> products = productService.getByCategoryName(name, pageable);
-        return ResponseEntity.ok(products);
+        return withEtag(etag, menu.byCategory(name, pageable));
     }
 
     // Lọc sản phẩm theo nhiều tiêu chí
     @GetMapping("/filter")
     @PreAuthorize("hasAnyRole('ROLE_EMPLOYEE', 'ROLE_ADMIN','ROLE_USER')")
-    public List<Product> filterProducts(
+    public ResponseEntity<List<Product>> filterProducts(
             @RequestParam(required = false) String categoryName,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(defaultValue = "price") String sortBy,
-            @RequestParam(defaultValue = "asc") String order) {
-        return productService.filterProducts(categoryName, minPrice, maxPrice, sortBy, order);
+            @RequestParam(defaultValue = "asc") String order,
+            WebRequest request) {
+        MenuSnapshot menu = menuSnapshotService.current();
+        String etag = menu.etag("filter", categoryName, minPrice, maxPrice, sortBy, order);
+        if (request.checkNotModified(etag)) {
+            return null; // 304
+        }
+        return withEtag(etag, menu.filter(categoryName, minPrice, maxPrice, sortBy, order));
+    }
+
+    // no-cache: client vẫn lưu, nhưng phải hỏi lại bằng If-None-Match mỗi lần
+    private <T> ResponseEntity<T> withEtag(String etag, T body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
     }
 }
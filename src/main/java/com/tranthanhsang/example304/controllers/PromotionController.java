@@ -1,5 +1,6 @@
 package com.tranthanhsang.example304.controllers;
 
+import com.tranthanhsang.example304.entity.Order;
 import com.tranthanhsang.example304.entity.Promotion;
 import com.tranthanhsang.example304.entity.Product;
 import com.tranthanhsang.example304.repository.PromotionRepository;
@@ -71,6 +72,17 @@ public class PromotionController {
         }
     }
 
+    // ✅ Báo giá đơn hàng với khuyến mãi (không lưu): tổng tiền + giảm giá từng món
+    @PostMapping("/quote")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_EMPLOYEE')")
+    public ResponseEntity<?> quote(@RequestBody Order order) {
+        try {
+            return ResponseEntity.ok(promotionService.quote(order));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Error quoting order: " + e.getMessage());
+        }
+    }
+
     // Lấy khuyến mãi đang hoạt động
     @GetMapping("/active")
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_EMPLOYEE')")
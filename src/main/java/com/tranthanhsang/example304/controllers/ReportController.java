@@ -0,0 +1,81 @@
+package com.tranthanhsang.example304.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tranthanhsang.example304.payload.response.ReportJobDTO;
+import com.tranthanhsang.example304.security.services.ReportJobService;
+import com.tranthanhsang.example304.security.services.ReportJobService.ReportBusyException;
+import com.tranthanhsang.example304.security.services.ReportJobService.ReportNotReadyException;
+
+// Xuất báo cáo chạy nền: POST tạo job → GET /{id} hỏi trạng thái → GET /{id}/download tải file
+@RestController
+@RequestMapping("/api/reports")
+@PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+public class ReportController {
+    @Autowired
+    private ReportJobService reportJobService;
+
+    // ✅ type = orders | order-items | daily-revenue | product-sales, format = csv | json,
+    // from / to = yyyy-MM-dd (tính cả 2 ngày)
+    @PostMapping
+    public ResponseEntity<?> submit(
+            @RequestParam String type,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            ReportJobDTO job = reportJobService.submit(type, format, from, to);
+            // Đã có file sẵn → 200, job mới / đang chạy → 202
+            return "DONE".equals(job.getStatus())
+                    ? ResponseEntity.ok(job)
+                    : ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (ReportBusyException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> status(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(reportJobService.status(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/{id}/download")
+    public ResponseEntity<?> download(@PathVariable String id) {
+        try {
+            Path file = reportJobService.file(id);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(file.toString().endsWith(".json")
+                    ? MediaType.APPLICATION_JSON
+                    : new MediaType("text", "csv", StandardCharsets.UTF_8));
+            headers.setContentDispositionFormData("attachment", reportJobService.fileName(id));
+            Resource body = new FileSystemResource(file);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+        } catch (ReportNotReadyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -19,6 +19,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.EnumType;
 
@@ -27,7 +28,7 @@ import jakarta.persistence.EnumType;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "bills")
+@Table(name = "bills", indexes = @Index(name = "idx_bills_issued_at", columnList = "issued_at, id"))
 public class Bill {
 
     @Id
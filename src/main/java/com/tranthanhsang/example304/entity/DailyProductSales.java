@@ -0,0 +1,44 @@
+package com.tranthanhsang.example304.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Bảng tổng hợp số lượng bán / doanh thu theo ngày × sản phẩm (chỉ đơn PAID)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "daily_product_sales", uniqueConstraints = @UniqueConstraint(columnNames = { "sales_date",
+        "product_id" }))
+public class DailyProductSales {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Long quantity;
+
+    // Tổng subtotal các món (trước khuyến mãi)
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue;
+}
@@ -54,6 +54,10 @@ public class Order {
     @JoinColumn(name = "promotion_id")
     private Promotion promotion;
 
+    // true: khuyến mãi do server tự chọn (có thể là tổ hợp cộng dồn, promotion chỉ lưu khuyến mãi giảm nhiều nhất)
+    // → lần sửa sau client gửi lại đúng id này thì vẫn tự chọn lại, không tính riêng 1 khuyến mãi
+    private Boolean promotionAuto;
+
     @Lob
     private String notes;
 
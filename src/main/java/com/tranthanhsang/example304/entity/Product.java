@@ -1,6 +1,8 @@
 package com.tranthanhsang.example304.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -20,6 +22,8 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "menu-product")
 public class Product {
 
     @Id
@@ -48,7 +52,10 @@ public class Product {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Phía ngược của Promotion.products: Hibernate không tự xóa cache khi phía sở hữu đổi
+    // → MenuCacheEvictor xóa vùng này sau mỗi lần ghi khuyến mãi
     @ManyToMany(mappedBy = "products")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "menu-product-promotions")
     @JsonIgnoreProperties("products") // bỏ qua products khi serialize Promotion
     private List<Promotion> promotions = new ArrayList<>();
 
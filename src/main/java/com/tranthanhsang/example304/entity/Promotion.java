@@ -1,6 +1,8 @@
 package com.tranthanhsang.example304.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -19,6 +21,8 @@ import java.util.List;
 @NoArgsConstructor
 @Entity
 @Table(name = "promotions")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "menu-promotion")
 public class Promotion {
 
     @Id
@@ -40,6 +44,7 @@ public class Promotion {
     private LocalDateTime updatedAt;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "menu-promotion-products")
     @JoinTable(name = "promotion_products", joinColumns = @JoinColumn(name = "promotion_id"), inverseJoinColumns = @JoinColumn(name = "product_id"))
     @JsonIgnoreProperties("promotions") // bỏ qua promotions khi serialize Product
     private List<Product> products = new ArrayList<>();
@@ -1,5 +1,8 @@
 package com.tranthanhsang.example304.entity;
 
+import jakarta.persistence.Cacheable;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 import jakarta.persistence.Column;
@@ -23,6 +26,8 @@ import com.tranthanhsang.example304.entity.enums.Status;
 @AllArgsConstructor
 @Entity
 @Table(name = "tables")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "menu-table")
 public class TableEntity {
 
     @Id
@@ -0,0 +1,31 @@
+package com.tranthanhsang.example304.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Mốc thu hồi token theo user: mọi JWT cấp trước revokedBefore đều bị từ chối
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "token_revocations")
+public class TokenRevocation {
+
+    @Id
+    private Long userId;
+
+    // Epoch mili giây (cùng đơn vị với claim iat_ms)
+    @Column(nullable = false)
+    private Long revokedBefore;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,55 @@
+package com.tranthanhsang.example304.payload.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 1 trang theo con trỏ (keyset): không có tổng số trang / COUNT(*).
+// nextCursor là chuỗi mờ, gửi lại qua ?after= để lấy trang kế tiếp (null = hết dữ liệu)
+public class CursorPage<T> {
+    private List<T> content = new ArrayList<>();
+    private String nextCursor;
+    private boolean hasNext;
+    private int limit;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> content, String nextCursor, int limit) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+        this.limit = limit;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -12,6 +12,22 @@ public class OrderItemDTO {
     private Long id; // ✅ thêm dòng này
     private String imageUrl;
 
+    public OrderItemDTO() {
+    }
+
+    // Constructor dùng cho JPQL Constructor Expression (nạp món theo lô)
+    public OrderItemDTO(Long id, Long orderId, Long productId, String productName, String imageUrl,
+            Integer quantity, BigDecimal price, BigDecimal subtotal) {
+        this.id = id;
+        this.orderId = orderId;
+        this.productId = productId;
+        this.productName = productName;
+        this.imageUrl = imageUrl;
+        this.quantity = quantity;
+        this.price = price;
+        this.subtotal = subtotal;
+    }
+
     // Getters and setters
     public Long getProductId() {
         return productId;
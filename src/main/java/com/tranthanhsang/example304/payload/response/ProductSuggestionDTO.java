@@ -0,0 +1,53 @@
+package com.tranthanhsang.example304.payload.response;
+
+import java.math.BigDecimal;
+
+// Gợi ý sản phẩm khi gõ tên trên màn hình order
+public class ProductSuggestionDTO {
+    private Long productId;
+    private String name;
+    private String imageUrl;
+    private BigDecimal price;
+
+    public ProductSuggestionDTO() {
+    }
+
+    public ProductSuggestionDTO(Long productId, String name, String imageUrl, BigDecimal price) {
+        this.productId = productId;
+        this.name = name;
+        this.imageUrl = imageUrl;
+        this.price = price;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+}
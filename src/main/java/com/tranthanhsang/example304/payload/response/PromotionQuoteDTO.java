@@ -0,0 +1,160 @@
+package com.tranthanhsang.example304.payload.response;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// Kết quả tính khuyến mãi cho 1 đơn hàng, kèm chi tiết giảm giá từng món
+public class PromotionQuoteDTO {
+    private Long promotionId;
+    private String promotionName;
+    private BigDecimal originalAmount; // Tổng tiền gốc
+    private BigDecimal discountAmount; // Số tiền thực giảm
+    private BigDecimal totalAmount; // Phải trả
+    private List<LineDTO> lines = new ArrayList<>();
+    private List<AppliedDTO> promotions = new ArrayList<>(); // Các khuyến mãi được áp (khi cộng dồn)
+
+    public static class AppliedDTO {
+        private Long promotionId;
+        private String promotionName;
+        private BigDecimal discount;
+
+        public AppliedDTO() {
+        }
+
+        public AppliedDTO(Long promotionId, String promotionName, BigDecimal discount) {
+            this.promotionId = promotionId;
+            this.promotionName = promotionName;
+            this.discount = discount;
+        }
+
+        public Long getPromotionId() {
+            return promotionId;
+        }
+
+        public void setPromotionId(Long promotionId) {
+            this.promotionId = promotionId;
+        }
+
+        public String getPromotionName() {
+            return promotionName;
+        }
+
+        public void setPromotionName(String promotionName) {
+            this.promotionName = promotionName;
+        }
+
+        public BigDecimal getDiscount() {
+            return discount;
+        }
+
+        public void setDiscount(BigDecimal discount) {
+            this.discount = discount;
+        }
+    }
+
+    public static class LineDTO {
+        private Long productId;
+        private Integer quantity;
+        private BigDecimal subtotal;
+        private BigDecimal discount;
+
+        public LineDTO() {
+        }
+
+        public LineDTO(Long productId, Integer quantity, BigDecimal subtotal, BigDecimal discount) {
+            this.productId = productId;
+            this.quantity = quantity;
+            this.subtotal = subtotal;
+            this.discount = discount;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public BigDecimal getSubtotal() {
+            return subtotal;
+        }
+
+        public void setSubtotal(BigDecimal subtotal) {
+            this.subtotal = subtotal;
+        }
+
+        public BigDecimal getDiscount() {
+            return discount;
+        }
+
+        public void setDiscount(BigDecimal discount) {
+            this.discount = discount;
+        }
+    }
+
+    public Long getPromotionId() {
+        return promotionId;
+    }
+
+    public void setPromotionId(Long promotionId) {
+        this.promotionId = promotionId;
+    }
+
+    public String getPromotionName() {
+        return promotionName;
+    }
+
+    public void setPromotionName(String promotionName) {
+        this.promotionName = promotionName;
+    }
+
+    public BigDecimal getOriginalAmount() {
+        return originalAmount;
+    }
+
+    public void setOriginalAmount(BigDecimal originalAmount) {
+        this.originalAmount = originalAmount;
+    }
+
+    public BigDecimal getDiscountAmount() {
+        return discountAmount;
+    }
+
+    public void setDiscountAmount(BigDecimal discountAmount) {
+        this.discountAmount = discountAmount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public List<LineDTO> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<LineDTO> lines) {
+        this.lines = lines;
+    }
+
+    public List<AppliedDTO> getPromotions() {
+        return promotions;
+    }
+
+    public void setPromotions(List<AppliedDTO> promotions) {
+        this.promotions = promotions;
+    }
+}
@@ -0,0 +1,54 @@
+package com.tranthanhsang.example304.payload.response;
+
+import java.math.BigDecimal;
+
+// Bản đồ nhiệt doanh thu thứ × giờ trong khoảng [from, to):
+// hàng = thứ (0 = thứ Hai ... 6 = Chủ nhật), cột = giờ trong ngày (0..23)
+public class RevenueHeatmapDTO {
+    private String from;
+    private String to;
+    private long[][] orderCounts;
+    private BigDecimal[][] revenue;
+
+    public RevenueHeatmapDTO() {
+    }
+
+    public RevenueHeatmapDTO(String from, String to, long[][] orderCounts, BigDecimal[][] revenue) {
+        this.from = from;
+        this.to = to;
+        this.orderCounts = orderCounts;
+        this.revenue = revenue;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public long[][] getOrderCounts() {
+        return orderCounts;
+    }
+
+    public void setOrderCounts(long[][] orderCounts) {
+        this.orderCounts = orderCounts;
+    }
+
+    public BigDecimal[][] getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal[][] revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -1,5 +1,7 @@
 package com.tranthanhsang.example304.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -7,20 +9,52 @@ import org.springframework.stereotype.Repository;
 import com.tranthanhsang.example304.entity.Bill;
 import com.tranthanhsang.example304.entity.enums.PaymentStatus;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BillRepository extends JpaRepository<Bill, Long> {
-    @Query("SELECT b FROM Bill b WHERE b.order.table.id = :tableId")
+    // ✅ Lấy 1 trang hóa đơn kèm đơn hàng, bàn, nhân viên, khuyến mãi (JOIN FETCH, tránh N+1)
+    @Query(value = "SELECT b FROM Bill b LEFT JOIN FETCH b.order o LEFT JOIN FETCH o.table " +
+            "LEFT JOIN FETCH o.employee LEFT JOIN FETCH o.promotion", countQuery = "SELECT COUNT(b) FROM Bill b")
+    Page<Bill> findAllWithOrders(Pageable pageable);
+
+    // ✅ Phân trang theo con trỏ: các hóa đơn có id < cursor, mới nhất trước, không COUNT(*)
+    @Query("SELECT b FROM Bill b LEFT JOIN FETCH b.order o LEFT JOIN FETCH o.table " +
+            "LEFT JOIN FETCH o.employee LEFT JOIN FETCH o.promotion " +
+            "WHERE b.id < :cursor ORDER BY b.id DESC")
+    List<Bill> findPageBefore(@Param("cursor") Long cursor, Pageable pageable);
+
+    @Query("SELECT b FROM Bill b JOIN FETCH b.order o JOIN FETCH o.table t " +
+            "LEFT JOIN FETCH o.employee LEFT JOIN FETCH o.promotion WHERE t.id = :tableId")
     List<Bill> findByTableId(@Param("tableId") Long tableId);
 
-    @Query("SELECT b FROM Bill b WHERE b.order.table.id = :tableId AND b.paymentStatus = :paymentStatus")
+    @Query("SELECT b FROM Bill b JOIN FETCH b.order o JOIN FETCH o.table t " +
+            "LEFT JOIN FETCH o.employee LEFT JOIN FETCH o.promotion " +
+            "WHERE t.id = :tableId AND b.paymentStatus = :paymentStatus")
     List<Bill> findByTableIdAndPaymentStatus(@Param("tableId") Long tableId,
             @Param("paymentStatus") PaymentStatus paymentStatus);
 
-    List<Bill> findByPaymentStatus(PaymentStatus paymentStatus);
+    @Query("SELECT b FROM Bill b LEFT JOIN FETCH b.order o LEFT JOIN FETCH o.table " +
+            "LEFT JOIN FETCH o.employee LEFT JOIN FETCH o.promotion WHERE b.paymentStatus = :paymentStatus")
+    List<Bill> findByPaymentStatus(@Param("paymentStatus") PaymentStatus paymentStatus);
 
     Optional<Bill> findByOrderId(Long orderId);
 
+    // ✅ Xuất hàng loạt: lô tiếp theo sau (afterAt, afterId) theo thứ tự (issuedAt, id), dùng index issued_at
+    @Query("SELECT b FROM Bill b LEFT JOIN FETCH b.order o LEFT JOIN FETCH o.table " +
+            "LEFT JOIN FETCH o.employee LEFT JOIN FETCH o.promotion " +
+            "WHERE b.issuedAt < :to AND (b.issuedAt > :afterAt OR (b.issuedAt = :afterAt AND b.id > :afterId)) " +
+            "ORDER BY b.issuedAt ASC, b.id ASC")
+    List<Bill> findExportBatch(@Param("to") LocalDateTime to, @Param("afterAt") LocalDateTime afterAt,
+            @Param("afterId") Long afterId, Pageable pageable);
+
+    // ✅ Phiên bản PDF / phiếu in của hóa đơn = lần sửa gần nhất của hóa đơn hoặc đơn hàng của nó
+    // (PDF in cả món, tổng tiền, bàn, nhân viên, khuyến mãi của đơn), không nạp món
+    @Query("SELECT CASE WHEN o.updatedAt > COALESCE(b.updatedAt, b.issuedAt, b.createdAt) THEN o.updatedAt "
+            + "ELSE COALESCE(b.updatedAt, b.issuedAt, b.createdAt, o.updatedAt) END "
+            + "FROM Bill b LEFT JOIN b.order o WHERE b.id = :id")
+    Optional<LocalDateTime> findPdfVersion(@Param("id") Long id);
+
 }
@@ -1,9 +1,12 @@
 package com.tranthanhsang.example304.repository;
 
 import com.tranthanhsang.example304.entity.Category;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,6 +14,8 @@ import java.util.Optional;
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findById(Long id);
 
+    // ✅ Query cache: tự hết hiệu lực khi bảng categories thay đổi
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Category> findByParentCategory_Id(Long parentId);
 
     Optional<Category> findByNameIgnoreCase(String name);
@@ -0,0 +1,45 @@
+package com.tranthanhsang.example304.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tranthanhsang.example304.entity.DailyCategorySales;
+import com.tranthanhsang.example304.payload.response.ProductSalesDTO;
+
+@Repository
+public interface DailyCategorySalesRepository extends JpaRepository<DailyCategorySales, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_category_sales (sales_date, category_id, quantity, revenue) " +
+            "VALUES (:day, :categoryId, :quantity, :revenue) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), " +
+            "revenue = revenue + VALUES(revenue)", nativeQuery = true)
+    void upsert(@Param("day") LocalDate day, @Param("categoryId") Long categoryId,
+            @Param("quantity") long quantity, @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_category_sales (sales_date, category_id, quantity, revenue) " +
+            "SELECT CAST(o.created_at AS DATE), p.category_id, SUM(oi.quantity), COALESCE(SUM(oi.subtotal), 0) " +
+            "FROM order_items oi JOIN orders o ON o.id = oi.order_id JOIN products p ON p.id = oi.product_id " +
+            "WHERE o.status = 'PAID' AND o.created_at IS NOT NULL AND p.category_id IS NOT NULL " +
+            "GROUP BY CAST(o.created_at AS DATE), p.category_id", nativeQuery = true)
+    int rebuildFromOrders();
+
+    @Modifying
+    @Query("DELETE FROM DailyCategorySales")
+    int deleteAllRows();
+
+    @Query("SELECT NEW com.tranthanhsang.example304.payload.response.ProductSalesDTO(c.id, c.name, SUM(r.revenue)) " +
+            "FROM DailyCategorySales r JOIN Category c ON c.id = r.categoryId " +
+            "GROUP BY c.id, c.name " +
+            "HAVING SUM(r.quantity) > 0 " +
+            "ORDER BY SUM(r.revenue) DESC")
+    List<ProductSalesDTO> findRevenueByCategory();
+}
@@ -0,0 +1,47 @@
+package com.tranthanhsang.example304.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tranthanhsang.example304.entity.DailyEmployeeSales;
+import com.tranthanhsang.example304.payload.response.EmployeeSalesDTO;
+
+@Repository
+public interface DailyEmployeeSalesRepository extends JpaRepository<DailyEmployeeSales, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_employee_sales (sales_date, employee_id, order_count, revenue) " +
+            "VALUES (:day, :employeeId, :orderCount, :revenue) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+            "revenue = revenue + VALUES(revenue)", nativeQuery = true)
+    void upsert(@Param("day") LocalDate day, @Param("employeeId") Long employeeId,
+            @Param("orderCount") long orderCount, @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_employee_sales (sales_date, employee_id, order_count, revenue) " +
+            "SELECT CAST(o.created_at AS DATE), o.employee_id, COUNT(o.id), COALESCE(SUM(o.total_amount), 0) " +
+            "FROM orders o " +
+            "WHERE o.status = 'PAID' AND o.created_at IS NOT NULL AND o.employee_id IS NOT NULL " +
+            "GROUP BY CAST(o.created_at AS DATE), o.employee_id", nativeQuery = true)
+    int rebuildFromOrders();
+
+    @Modifying
+    @Query("DELETE FROM DailyEmployeeSales")
+    int deleteAllRows();
+
+    @Query("SELECT NEW com.tranthanhsang.example304.payload.response.EmployeeSalesDTO(" +
+            "u.id, u.fullName, u.imageUrl, SUM(r.orderCount)) " +
+            "FROM DailyEmployeeSales r JOIN User u ON u.id = r.employeeId " +
+            "WHERE r.salesDate >= :from " +
+            "GROUP BY u.id, u.fullName, u.imageUrl " +
+            "HAVING SUM(r.orderCount) > 0 " +
+            "ORDER BY SUM(r.orderCount) DESC")
+    List<EmployeeSalesDTO> findTopSelling(@Param("from") LocalDate from);
+}
@@ -0,0 +1,49 @@
+package com.tranthanhsang.example304.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tranthanhsang.example304.entity.DailyProductSales;
+import com.tranthanhsang.example304.payload.response.ProductSalesDTO;
+
+@Repository
+public interface DailyProductSalesRepository extends JpaRepository<DailyProductSales, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_product_sales (sales_date, product_id, quantity, revenue) " +
+            "VALUES (:day, :productId, :quantity, :revenue) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), " +
+            "revenue = revenue + VALUES(revenue)", nativeQuery = true)
+    void upsert(@Param("day") LocalDate day, @Param("productId") Long productId,
+            @Param("quantity") long quantity, @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_product_sales (sales_date, product_id, quantity, revenue) " +
+            "SELECT CAST(o.created_at AS DATE), oi.product_id, SUM(oi.quantity), COALESCE(SUM(oi.subtotal), 0) " +
+            "FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+            "WHERE o.status = 'PAID' AND o.created_at IS NOT NULL AND oi.product_id IS NOT NULL " +
+            "GROUP BY CAST(o.created_at AS DATE), oi.product_id", nativeQuery = true)
+    int rebuildFromOrders();
+
+    @Modifying
+    @Query("DELETE FROM DailyProductSales")
+    int deleteAllRows();
+
+    List<DailyProductSales> findBySalesDateGreaterThanEqual(LocalDate from);
+
+    // ✅ Món bán chạy nhất (toàn thời gian): cộng các dòng theo ngày thay vì quét order_items
+    @Query("SELECT NEW com.tranthanhsang.example304.payload.response.ProductSalesDTO(p.id, p.name, SUM(r.quantity)) " +
+            "FROM DailyProductSales r JOIN Product p ON p.id = r.productId " +
+            "GROUP BY p.id, p.name " +
+            "HAVING SUM(r.quantity) > 0 " +
+            "ORDER BY SUM(r.quantity) DESC")
+    List<ProductSalesDTO> findTopSelling(Pageable pageable);
+}
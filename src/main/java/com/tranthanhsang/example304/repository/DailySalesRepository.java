@@ -0,0 +1,41 @@
+package com.tranthanhsang.example304.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tranthanhsang.example304.entity.DailySales;
+
+@Repository
+public interface DailySalesRepository extends JpaRepository<DailySales, Long> {
+
+    // ✅ Cộng dồn 1 đơn vào dòng của ngày (tạo dòng nếu chưa có) trong 1 câu lệnh, an toàn khi thanh toán đồng thời
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales (sales_date, order_count, revenue) " +
+            "VALUES (:day, :orderCount, :revenue) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+            "revenue = revenue + VALUES(revenue)", nativeQuery = true)
+    void upsert(@Param("day") LocalDate day, @Param("orderCount") long orderCount,
+            @Param("revenue") BigDecimal revenue);
+
+    // Dựng lại từ lịch sử đơn PAID (dùng sau deleteAllRows)
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales (sales_date, order_count, revenue) " +
+            "SELECT CAST(o.created_at AS DATE), COUNT(o.id), COALESCE(SUM(o.total_amount), 0) " +
+            "FROM orders o WHERE o.status = 'PAID' AND o.created_at IS NOT NULL " +
+            "GROUP BY CAST(o.created_at AS DATE)", nativeQuery = true)
+    int rebuildFromOrders();
+
+    @Modifying
+    @Query("DELETE FROM DailySales")
+    int deleteAllRows();
+
+    @Query("SELECT d FROM DailySales d WHERE d.salesDate >= :from AND d.orderCount > 0 ORDER BY d.salesDate ASC")
+    List<DailySales> findSince(@Param("from") LocalDate from);
+}
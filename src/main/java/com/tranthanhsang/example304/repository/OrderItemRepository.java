@@ -1,11 +1,23 @@
 package com.tranthanhsang.example304.repository;
 
 import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.payload.response.OrderItemDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrder_Id(Long orderId);
+
+    // ✅ Nạp món của nhiều đơn hàng (kèm tên + ảnh sản phẩm) trong 1 câu SQL
+    @Query("SELECT NEW com.tranthanhsang.example304.payload.response.OrderItemDTO(" +
+            "i.id, i.order.id, p.id, p.name, p.imageUrl, i.quantity, i.price, i.subtotal) " +
+            "FROM OrderItem i JOIN i.product p " +
+            "WHERE i.order.id IN :orderIds " +
+            "ORDER BY i.id")
+    List<OrderItemDTO> findLinesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
 }
@@ -2,9 +2,6 @@ package com.tranthanhsang.example304.repository;
 
 import com.tranthanhsang.example304.entity.Order;
 import com.tranthanhsang.example304.entity.enums.OrderStatus;
-import com.tranthanhsang.example304.payload.response.EmployeeSalesDTO;
-import com.tranthanhsang.example304.payload.response.ProductSalesDTO;
-import com.tranthanhsang.example304.payload.response.RevenueCountDTO;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -13,51 +10,36 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 import java.time.LocalDateTime;
 import java.util.List;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-        List<Order> findByStatus(OrderStatus status);
-
-        @Query("SELECT o FROM Order o WHERE o.table.id = :tableId")
+        @Query("SELECT o FROM Order o JOIN FETCH o.table LEFT JOIN FETCH o.employee " +
+                        "LEFT JOIN FETCH o.promotion WHERE o.status = :status")
+        List<Order> findByStatus(@Param("status") OrderStatus status);
+
+        // ✅ Lấy 1 trang đơn hàng kèm bàn, nhân viên, khuyến mãi (JOIN FETCH, tránh N+1)
+        @Query(value = "SELECT o FROM Order o JOIN FETCH o.table " +
+                        "LEFT JOIN FETCH o.employee LEFT JOIN FETCH o.promotion", countQuery = "SELECT COUNT(o) FROM Order o")
+        Page<Order> findAllWithRefs(Pageable pageable);
+
+        // ✅ Phân trang theo con trỏ: các đơn có id < cursor, mới nhất trước, không COUNT(*)
+        // (chỉ JOIN FETCH quan hệ 1-1 → LIMIT chạy trong SQL)
+        @Query("SELECT o FROM Order o JOIN FETCH o.table " +
+                        "LEFT JOIN FETCH o.employee LEFT JOIN FETCH o.promotion " +
+                        "WHERE o.id < :cursor ORDER BY o.id DESC")
+        List<Order> findPageBefore(@Param("cursor") Long cursor, Pageable pageable);
+
+        @Query("SELECT o FROM Order o JOIN FETCH o.table t LEFT JOIN FETCH o.employee " +
+                        "LEFT JOIN FETCH o.promotion WHERE t.id = :tableId")
         List<Order> findByTableId(@Param("tableId") Long tableId);
 
         Optional<Order> findFirstByTableIdAndStatus(Long tableId, OrderStatus status);
 
-        @Query("SELECT NEW com.tranthanhsang.example304.payload.response.ProductSalesDTO(oi.product.id, oi.product.name, SUM(oi.quantity)) "
-                        +
-                        "FROM OrderItem oi " +
-                        "WHERE oi.order.status = 'PAID' " + // Chỉ tính món đã được thanh toán
-                        "GROUP BY oi.product.id, oi.product.name " +
-                        "ORDER BY SUM(oi.quantity) DESC")
-        List<ProductSalesDTO> findTopSellingProducts(Pageable pageable);
-
-        @Query(value = "SELECT " +
-        // Dùng DATE_FORMAT để buộc kết quả trả về là STRING, ví dụ: '2025-10-30'
-                        "DATE_FORMAT(created_at, '%Y-%m-%d') AS period, " +
-                        "COUNT(id) AS orderCount, " +
-                        "SUM(total_amount) AS totalRevenue " +
-                        "FROM orders " +
-                        "WHERE status = 'PAID' AND created_at >= :startDate " +
-                        "GROUP BY period " +
-                        "ORDER BY period ASC", nativeQuery = true)
-        List<RevenueCountDTO> findDailyPaidOrderStats(@Param("startDate") LocalDateTime startDate);
-
-        @Query("SELECT NEW com.tranthanhsang.example304.payload.response.ProductSalesDTO(" +
-        // Cần kiểm tra lại: Truy vấn này có thể ném lỗi nếu tên Entity không khớp.
-                        "c.id, c.name, SUM(oi.subtotal)) " +
-                        "FROM OrderItem oi JOIN oi.product p JOIN p.category c " +
-                        "WHERE oi.order.status = 'PAID' " +
-                        "GROUP BY c.id, c.name " +
-                        "ORDER BY SUM(oi.subtotal) DESC")
-        List<ProductSalesDTO> findRevenueByCategoryStats();
-
-        @Query("SELECT NEW com.tranthanhsang.example304.payload.response.EmployeeSalesDTO(" +
-                        "u.id, u.fullName, u.imageUrl, COUNT(o.id)) " +
-                        "FROM Order o JOIN o.employee u " + // Join từ Order sang Employee (User)
+        // ✅ Thời điểm tạo + tổng tiền các đơn PAID từ mốc "since" (nạp lại chuỗi doanh thu theo phút / giờ)
+        @Query("SELECT o.createdAt, o.totalAmount FROM Order o " +
                         "WHERE o.status = com.tranthanhsang.example304.entity.enums.OrderStatus.PAID " +
-                        "  AND o.createdAt >= :startDate " + // Lọc theo ngày
-                        "GROUP BY u.id, u.fullName, u.imageUrl " +
-                        "ORDER BY COUNT(o.id) DESC")
-        List<EmployeeSalesDTO> findTopSellingEmployees(@Param("startDate") LocalDateTime startDate);
-}
\ No newline at end of file
+                        "AND o.createdAt >= :since ORDER BY o.createdAt ASC")
+        List<Object[]> findPaidTotalsSince(@Param("since") LocalDateTime since);
+}
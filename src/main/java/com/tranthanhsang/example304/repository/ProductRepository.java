@@ -7,6 +7,7 @@ import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import java.util.Optional;
 
 @Repository
@@ -21,4 +22,9 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
     Optional<Product> findByNameIgnoreCaseAndIdNot(String name, Long id);
 
     boolean existsByCategoryId(Long categoryId);
+
+    // ✅ Dựng ảnh chụp thực đơn: nạp sẵn danh mục + khuyến mãi trong 1 câu SQL
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.category c LEFT JOIN FETCH c.parentCategory "
+            + "LEFT JOIN FETCH p.promotions")
+    List<Product> findAllForMenu();
 }
@@ -2,10 +2,12 @@ package com.tranthanhsang.example304.repository;
 
 import com.tranthanhsang.example304.entity.Promotion;
 
-import java.time.LocalDate;
+import org.hibernate.jpa.HibernateHints;
+import jakarta.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Page;
@@ -16,11 +18,14 @@ import java.util.List;
 
 @Repository
 public interface PromotionRepository extends JpaRepository<Promotion, Long> {
-    List<Promotion> findByStartDateBeforeAndEndDateAfter(LocalDate start, LocalDate end);
-
     @Query(value = "SELECT p FROM Promotion p LEFT JOIN FETCH p.products", countQuery = "SELECT COUNT(p) FROM Promotion p")
     Page<Promotion> findAllWithProducts(Pageable pageable);
 
+    @Query("SELECT DISTINCT p FROM Promotion p LEFT JOIN FETCH p.products")
+    List<Promotion> findAllWithProductsList();
+
+    // ✅ Query cache: tự hết hiệu lực khi bảng promotions / promotion_products thay đổi
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT p FROM Promotion p LEFT JOIN FETCH p.products WHERE p.id = :id")
     Optional<Promotion> findByIdWithProducts(@Param("id") Long id);
 }
@@ -0,0 +1,20 @@
+package com.tranthanhsang.example304.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tranthanhsang.example304.entity.TokenRevocation;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    // Xóa các mốc cũ hơn thời hạn token (mọi token trước mốc đó đã hết hạn)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TokenRevocation t WHERE t.revokedBefore < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Long cutoff);
+}
@@ -5,6 +5,7 @@ import com.tranthanhsang.example304.security.jwt.AuthTokenFilter;
 import com.tranthanhsang.example304.security.services.UserDetailsServiceImpl;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -14,7 +15,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -36,6 +36,13 @@ public class WebSecurityConfig {
     @Autowired
     private CustomAccessDeniedHandler accessDeniedHandler;
 
+    @Value("${app.auth.password-hash.threads:2}")
+    private int passwordHashThreads;
+    @Value("${app.auth.password-hash.queue-capacity:32}")
+    private int passwordHashQueueCapacity;
+    @Value("${app.auth.password-hash.timeout-ms:10000}")
+    private long passwordHashTimeoutMs;
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
@@ -65,9 +72,11 @@ public class WebSecurityConfig {
         };
     }
 
+    // ✅ BCrypt chạy trên pool riêng có giới hạn (không chiếm luồng Tomcat)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder() {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(),
+                passwordHashThreads, passwordHashQueueCapacity, passwordHashTimeoutMs);
     }
 
     @Bean
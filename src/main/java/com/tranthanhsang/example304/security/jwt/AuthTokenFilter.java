@@ -1,6 +1,9 @@
 package com.tranthanhsang.example304.security.jwt;
 
-import com.tranthanhsang.example304.security.services.UserDetailsServiceImpl;
+import com.tranthanhsang.example304.security.services.TokenRevocationService;
+import com.tranthanhsang.example304.security.services.UserDetailsImpl;
+import com.tranthanhsang.example304.security.services.UserPrincipalCache;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,9 +11,9 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -23,7 +26,14 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // Các đường dẫn luôn đọc quyền / trạng thái tài khoản mới nhất
+    @Value("${app.auth.fresh-paths:/api/users/}")
+    private String[] freshPaths;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
@@ -35,20 +45,33 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             String jwt = parseJwt(request);
             System.out.println("🔐 Token nhận được: " + jwt);
 
-            if (jwt != null && jwtUtils.validateToken(jwt)) {
-                String username = jwtUtils.getUsernameFromToken(jwt);
+            // ✅ Chỉ parse + kiểm tra chữ ký token 1 lần
+            Claims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null;
+            if (claims != null) {
+                String username = claims.getSubject();
                 System.out.println("👤 Username từ token: " + username);
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                System.out.println("🔑 Authorities: " + userDetails.getAuthorities());
-
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities());
-
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                // ✅ Lấy id + quyền từ token, không truy vấn DB.
+                // Token cũ hoặc đường dẫn cần dữ liệu mới → đọc qua cache ngắn hạn.
+                UserDetailsImpl userDetails = jwtUtils.principalFromClaims(claims);
+                if (userDetails == null || requiresFreshPrincipal(request)) {
+                    userDetails = principalCache.get(username);
+                }
+
+                // ✅ Token đã bị thu hồi (đăng xuất / đổi quyền / xóa tài khoản) → không xác thực
+                if (tokenRevocationService.isRevoked(userDetails.getId(), jwtUtils.issuedAtMillis(claims))) {
+                    System.out.println("⛔ Token đã bị thu hồi: " + username);
+                } else {
+                    System.out.println("🔑 Authorities: " + userDetails.getAuthorities());
+
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails,
+                            null,
+                            userDetails.getAuthorities());
+
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             } else {
                 System.out.println("⚠️ Token không hợp lệ hoặc không tồn tại.");
             }
@@ -69,6 +92,16 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         return null;
     }
 
+    private boolean requiresFreshPrincipal(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        for (String prefix : freshPaths) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
         String path = request.getRequestURI();
@@ -0,0 +1,232 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tranthanhsang.example304.entity.Bill;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.repository.BillRepository;
+import com.tranthanhsang.example304.security.services.BillPdfRenderer.BillPdfBusyException;
+
+// Xuất hàng loạt hóa đơn theo khoảng ngày (đối soát cuối ngày): ZIP các file PDF, CSV hoặc JSON lines.
+// - Đọc theo lô keyset (issuedAt, id) kèm JOIN FETCH, mỗi lô xong là bỏ → bộ nhớ không tăng theo số hóa đơn.
+// - PDF dựng song song trên pool của BillPdfRenderer, tối đa `parallelism` hóa đơn đang dựng cùng lúc,
+//   ghi vào ZIP đúng thứ tự; pool đầy (đang phục vụ thu ngân) → chờ bớt hoặc tự dựng trên luồng xuất.
+@Service
+public class BillExportService {
+    private static final String[] CSV_COLUMNS = { "bill_id", "issued_at", "order_id", "table_number", "employee",
+            "payment_method", "payment_status", "promotion", "total_quantity", "original_amount", "discount_amount",
+            "total_amount" };
+
+    @Autowired
+    private BillRepository billRepo;
+    @Autowired
+    private OrderDtoAssembler orderDtoAssembler;
+    @Autowired
+    private BillPdfRenderer billPdfRenderer;
+    @Autowired
+    private VietQrService vietQrService;
+
+    @Value("${app.bills.export.batch-size:200}")
+    private int batchSize;
+    @Value("${app.bills.export.parallelism:2}")
+    private int parallelism;
+    @Value("${app.bills.export.max-days:93}")
+    private int maxDays;
+
+    // Ngày giờ dạng ISO giống API
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    public enum Format {
+        ZIP("application/zip"), CSV("text/csv; charset=UTF-8"), JSONL("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new RuntimeException("❌ Định dạng không hợp lệ: " + value + " (zip | csv | jsonl)");
+            }
+        }
+    }
+
+    // Khoảng ngày [from, to] (tính cả 2 ngày), kiểm tra trước khi bắt đầu ghi response
+    public record Range(LocalDate from, LocalDate to) {
+        public String fileName(Format format) {
+            return "HoaDon_" + from + "_" + to + "." + format.extension();
+        }
+    }
+
+    public Range range(String from, String to) {
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = LocalDate.parse(from);
+            end = to == null || to.isBlank() ? start : LocalDate.parse(to);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new RuntimeException("❌ Ngày không hợp lệ (yyyy-MM-dd): from=" + from + ", to=" + to);
+        }
+        if (end.isBefore(start)) {
+            throw new RuntimeException("❌ Ngày kết thúc phải sau ngày bắt đầu");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxDays) {
+            throw new RuntimeException("❌ Chỉ xuất tối đa " + maxDays + " ngày mỗi lần");
+        }
+        return new Range(start, end);
+    }
+
+    // ✅ Ghi toàn bộ hóa đơn trong khoảng ra out, trả về số hóa đơn đã ghi
+    public long export(Range range, Format format, OutputStream out) throws IOException {
+        return switch (format) {
+            case ZIP -> writeZip(range, out);
+            case CSV -> writeCsv(range, out);
+            case JSONL -> writeJsonLines(range, out);
+        };
+    }
+
+    private long writeZip(Range range, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDF đã nén sẵn bên trong → lưu nguyên (STORED), không tốn CPU nén lần nữa
+        zip.setMethod(ZipOutputStream.STORED);
+        Deque<Pending> inFlight = new ArrayDeque<>();
+        try {
+            long count = forEachBill(range, dto -> {
+                inFlight.add(new Pending(dto.getId(), submit(dto, inFlight, zip)));
+                if (inFlight.size() >= parallelism) {
+                    writeEntry(zip, inFlight.poll());
+                }
+            });
+            while (!inFlight.isEmpty()) {
+                writeEntry(zip, inFlight.poll());
+            }
+            zip.finish();
+            zip.flush();
+            return count;
+        } finally {
+            // Client ngắt kết nối giữa chừng → hủy các PDF đang chờ
+            inFlight.forEach(pending -> pending.pdf().cancel(true));
+        }
+    }
+
+    // Pool đầy → ghi bớt PDF đang chờ rồi thử lại; không còn gì để chờ → dựng luôn trên luồng xuất
+    private Future<byte[]> submit(BillDTO dto, Deque<Pending> inFlight, ZipOutputStream zip) throws IOException {
+        while (true) {
+            try {
+                return billPdfRenderer.submit(dto, () -> vietQrService.image(dto));
+            } catch (BillPdfBusyException e) {
+                if (inFlight.isEmpty()) {
+                    return CompletableFuture
+                            .completedFuture(billPdfRenderer.renderInline(dto, () -> vietQrService.image(dto)));
+                }
+                writeEntry(zip, inFlight.poll());
+            }
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zip, Pending pending) throws IOException {
+        byte[] pdf = billPdfRenderer.await(pending.pdf());
+        CRC32 crc = new CRC32();
+        crc.update(pdf);
+        ZipEntry entry = new ZipEntry("HoaDon_" + pending.billId() + ".pdf");
+        entry.setSize(pdf.length);
+        entry.setCompressedSize(pdf.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(pdf);
+        zip.closeEntry();
+    }
+
+    // Mỗi dòng 1 hóa đơn (không kèm món), cùng định dạng CSV với báo cáo
+    private long writeCsv(Range range, OutputStream out) throws IOException {
+        CsvWriter csv = new CsvWriter(out);
+        csv.header(CSV_COLUMNS);
+        long count = forEachBill(range, dto -> csv.row(dto.getId(), dto.getIssuedAt(), dto.getOrderId(),
+                dto.getTableNumber(), dto.getEmployeeName(), dto.getPaymentMethod(), dto.getPaymentStatus(),
+                dto.getPromotionCode(), dto.getTotalQuantity(), dto.getOriginalAmount(), dto.getDiscountAmount(),
+                dto.getTotalAmount()));
+        csv.flush();
+        return count;
+    }
+
+    // Mỗi dòng 1 BillDTO dạng JSON (kèm danh sách món)
+    private long writeJsonLines(Range range, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long count = forEachBill(range, dto -> {
+            writer.write(objectMapper.writeValueAsString(dto));
+            writer.write('\n');
+        });
+        writer.flush();
+        return count;
+    }
+
+    private long forEachBill(Range range, BillConsumer consumer) throws IOException {
+        LocalDateTime afterAt = range.from().atStartOfDay();
+        long afterId = 0;
+        long count = 0;
+        List<Bill> batch;
+        do {
+            batch = nextBatch(range, afterAt, afterId);
+            for (BillDTO dto : orderDtoAssembler.toBillDtos(batch)) {
+                consumer.accept(dto);
+                count++;
+            }
+            if (!batch.isEmpty()) {
+                Bill last = batch.get(batch.size() - 1);
+                afterAt = last.getIssuedAt();
+                afterId = last.getId();
+            }
+        } while (batch.size() == batchSize);
+        return count;
+    }
+
+    private List<Bill> nextBatch(Range range, LocalDateTime afterAt, long afterId) {
+        return billRepo.findExportBatch(range.to().plusDays(1).atStartOfDay(), afterAt, afterId,
+                PageRequest.of(0, batchSize));
+    }
+
+    private record Pending(Long billId, Future<byte[]> pdf) {
+    }
+
+    @FunctionalInterface
+    private interface BillConsumer {
+        void accept(BillDTO dto) throws IOException;
+    }
+}
@@ -0,0 +1,110 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import jakarta.annotation.PostConstruct;
+
+// Cache PDF hóa đơn đã xuất: file nằm trên đĩa, chỉ mục (id + phiên bản → file) trong bộ nhớ.
+// Phiên bản = lần sửa gần nhất của hóa đơn hoặc đơn hàng của nó → sửa là đổi khóa, bản cũ không bao giờ bị trả nhầm.
+// Giới hạn theo tổng dung lượng; bị loại khỏi chỉ mục (LRU / invalidate) thì xóa luôn file.
+@Service
+public class BillPdfCache {
+    @Value("${app.bill.pdf-cache.dir:${java.io.tmpdir}/example304-bill-pdf}")
+    private String dir;
+    @Value("${app.bill.pdf-cache.max-bytes:104857600}")
+    private long maxBytes;
+
+    private Path root;
+    private Cache<Key, CachedPdf> cache;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(dir);
+        Files.createDirectories(root);
+        // Chỉ mục không lưu qua lần khởi động → dọn file cũ
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "bill-*.pdf")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, CachedPdf pdf) -> (int) Math.min(pdf.size(), Integer.MAX_VALUE))
+                .removalListener((Key key, CachedPdf pdf, RemovalCause cause) -> {
+                    if (pdf != null) {
+                        deleteQuietly(pdf.file());
+                    }
+                })
+                .build();
+    }
+
+    // ✅ Lấy file PDF của đúng phiên bản; chưa có → gọi render (mỗi khóa chỉ render 1 lần dù nhiều request cùng lúc)
+    public CachedPdf get(Key key, Supplier<byte[]> render) {
+        CachedPdf cached = cache.get(key, k -> write(k, render.get()));
+        if (!Files.exists(cached.file())) {
+            // File bị xóa ngoài ý muốn → dựng lại
+            cache.asMap().remove(key, cached);
+            cached = cache.get(key, k -> write(k, render.get()));
+        }
+        return cached;
+    }
+
+    // Xóa mọi phiên bản PDF của hóa đơn (gọi sau khi sửa / xóa hóa đơn)
+    public void invalidate(Long billId) {
+        cache.asMap().keySet().removeIf(key -> key.billId().equals(billId));
+    }
+
+    private CachedPdf write(Key key, byte[] pdf) {
+        try {
+            // Tên file riêng cho mỗi lần ghi: file của bản bị loại (xóa bất đồng bộ) không trùng file mới.
+            // File chỉ được đưa vào chỉ mục sau khi ghi xong → không ai đọc được file ghi dở
+            Path file = Files.createTempFile(root, "bill-" + key.billId() + "-", ".pdf");
+            Files.write(file, pdf);
+            return new CachedPdf(file, pdf.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không ghi được PDF hóa đơn vào cache: " + e.getMessage(), e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("⚠️ Không xóa được file PDF cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Khóa cache: id hóa đơn + thời điểm sửa gần nhất (cũng dùng làm ETag / Last-Modified)
+    public record Key(Long billId, LocalDateTime version) {
+        public long versionMillis() {
+            return version.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        public String etag() {
+            return etag("bill");
+        }
+
+        // Mỗi loại tài liệu (PDF, phiếu in) có ETag riêng trên cùng phiên bản
+        public String etag(String kind) {
+            return "\"" + kind + "-" + billId + "-" + versionMillis() + "\"";
+        }
+    }
+
+    public record CachedPdf(Path file, long size) {
+    }
+}
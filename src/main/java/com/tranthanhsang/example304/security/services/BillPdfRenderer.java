@@ -0,0 +1,291 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.ColumnText;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfImportedPage;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfStream;
+import com.itextpdf.text.pdf.PdfWriter;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.payload.response.OrderItemDTO;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Xuất PDF hóa đơn:
+// - Font DejaVuSans đóng gói trong jar (fonts/), nạp 1 lần khi khởi động; BaseFont / Font dùng chung
+//   (app.bill.font-path chỉ dùng khi muốn thay bằng font khác trên máy chủ).
+// - Phần đầu hóa đơn cố định (tên quán) dựng sẵn 1 lần thành trang PDF nhỏ, mỗi hóa đơn chỉ nhúng lại.
+// - Chạy trên pool riêng giới hạn số luồng + hàng đợi (đầy → BillPdfBusyException, controller trả 429).
+// Metrics: bill.pdf.queue / .active / .rejected (qua /actuator/metrics).
+@Service
+public class BillPdfRenderer implements MeterBinder {
+    private static final String SHOP_NAME = "COFFEE THANH XANN";
+    private static final DateTimeFormatter ISSUED_AT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final float MARGIN = 36;
+    private static final float HEADER_HEIGHT = 30;
+
+    @Value("${app.bill.font-path:}")
+    private String fontPath;
+    @Value("${app.bill.pdf.threads:2}")
+    private int threads;
+    @Value("${app.bill.pdf.queue-capacity:16}")
+    private int queueCapacity;
+    @Value("${app.bill.pdf.timeout-ms:15000}")
+    private long timeoutMs;
+
+    private Font titleFont;
+    private Font textFont;
+    private Font boldFont;
+    private byte[] headerPdf;
+    // PdfReader không an toàn khi nhiều luồng cùng đọc → mỗi luồng của pool giữ 1 bản
+    private final ThreadLocal<PdfReader> headerReader = new ThreadLocal<>();
+
+    private ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    public void init() throws IOException, DocumentException {
+        BaseFont regular;
+        BaseFont bold;
+        if (fontPath != null && !fontPath.isBlank()) {
+            regular = BaseFont.createFont(fontPath, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
+            bold = regular;
+        } else {
+            regular = classpathFont("DejaVuSans.ttf");
+            bold = classpathFont("DejaVuSans-Bold.ttf");
+        }
+        // Phần lớn thời gian xuất là nén bộ glyph font nhúng → nén nhanh (file lớn hơn chút)
+        regular.setCompressionLevel(PdfStream.BEST_SPEED);
+        // Tên quán (chỉ nằm trong tiêu đề dựng sẵn) dùng font đậm thật;
+        // phần thân in đậm giả lập trên cùng font thường → mỗi hóa đơn chỉ nhúng 1 bộ glyph
+        titleFont = new Font(bold, 20, bold == regular ? Font.BOLD : Font.NORMAL, BaseColor.BLACK);
+        textFont = new Font(regular, 12, Font.NORMAL, BaseColor.BLACK);
+        boldFont = new Font(regular, 12, Font.BOLD, BaseColor.BLACK);
+        headerPdf = renderHeader();
+
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "bill-pdf-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        System.out.println("🧾 Đã nạp font PDF hóa đơn: "
+                + (fontPath != null && !fontPath.isBlank() ? fontPath : "DejaVuSans (classpath)"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bill.pdf.queue", executor, e -> e.getQueue().size())
+                .description("Số hóa đơn đang chờ xuất PDF")
+                .register(registry);
+        Gauge.builder("bill.pdf.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Số luồng đang xuất PDF hóa đơn")
+                .register(registry);
+        FunctionCounter.builder("bill.pdf.rejected", rejected, AtomicLong::get)
+                .description("Số yêu cầu xuất PDF bị từ chối do hàng đợi đầy")
+                .register(registry);
+    }
+
+    // ✅ Xuất PDF trên pool; qr được gọi trong luồng của pool (lỗi / null → in dòng thông báo thay cho mã QR)
+    public byte[] render(BillDTO dto, Callable<Image> qr) {
+        return await(submit(dto, qr));
+    }
+
+    // Đưa 1 hóa đơn vào hàng đợi (xuất hàng loạt giữ nhiều Future cùng lúc); hàng đợi đầy → BillPdfBusyException
+    public Future<byte[]> submit(BillDTO dto, Callable<Image> qr) {
+        try {
+            return executor.submit(() -> write(dto, qr));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new BillPdfBusyException("Đang có quá nhiều hóa đơn được xuất PDF, vui lòng thử lại sau");
+        }
+    }
+
+    public byte[] await(Future<byte[]> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new BillPdfBusyException("Quá thời gian xuất PDF hóa đơn, vui lòng thử lại sau");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị gián đoạn khi xuất PDF hóa đơn", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Lỗi khi tạo PDF: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // Xuất ngay trên luồng gọi (xuất hàng loạt dùng khi pool đang đầy)
+    byte[] renderInline(BillDTO dto, Callable<Image> qr) {
+        try {
+            return write(dto, qr);
+        } catch (Exception e) {
+            throw new RuntimeException("Lỗi khi tạo PDF: " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] write(BillDTO dto, Callable<Image> qr) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(16 * 1024);
+        Document document = new Document(PageSize.A4, MARGIN, MARGIN, MARGIN, MARGIN);
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        writer.setCompressionLevel(PdfStream.BEST_SPEED);
+        document.open();
+
+        // --- Tiêu đề (nhúng trang dựng sẵn) ---
+        PdfImportedPage header = writer.getImportedPage(headerReader(), 1);
+        Image headerImage = Image.getInstance(header);
+        headerImage.setAlignment(Element.ALIGN_CENTER);
+        document.add(headerImage);
+        document.add(new Paragraph(" "));
+        document.add(new Paragraph("HÓA ĐƠN THANH TOÁN #" + dto.getId(), boldFont));
+        document.add(new Paragraph("Ngày xuất: " + dto.getIssuedAt().format(ISSUED_AT), textFont));
+        document.add(new Paragraph(" "));
+
+        // --- Thông tin bàn / nhân viên ---
+        document.add(new Paragraph("Bàn: " + dto.getTableNumber(), textFont));
+        document.add(new Paragraph("Nhân viên: " +
+                (dto.getEmployeeName() != null ? dto.getEmployeeName() : "N/A"), textFont));
+        document.add(new Paragraph("Phương thức thanh toán: " + dto.getPaymentMethod(), textFont));
+        document.add(new Paragraph("Trạng thái: " + dto.getPaymentStatus(), textFont));
+        document.add(new Paragraph(" "));
+
+        // --- Bảng món ---
+        PdfPTable table = new PdfPTable(4);
+        table.setWidthPercentage(100);
+        table.setWidths(new float[] { 4, 1, 2, 2 });
+        for (String title : new String[] { "Tên món", "SL", "Đơn giá", "Thành tiền" }) {
+            PdfPCell cell = new PdfPCell(new Paragraph(title, boldFont));
+            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+            table.addCell(cell);
+        }
+        for (OrderItemDTO item : dto.getItems()) {
+            table.addCell(new Paragraph(item.getProductName(), textFont));
+            table.addCell(new Paragraph(String.valueOf(item.getQuantity()), textFont));
+            table.addCell(new Paragraph(money(item.getPrice()), textFont));
+            table.addCell(new Paragraph(money(item.getSubtotal()), textFont));
+        }
+        document.add(table);
+        document.add(new Paragraph(" "));
+
+        // --- Tổng kết ---
+        document.add(right("Tạm tính: " + money(dto.getOriginalAmount()), textFont));
+        document.add(right("Giảm giá: -" + money(dto.getDiscountAmount()), textFont));
+        document.add(right("Tổng cộng: " + money(dto.getTotalAmount()), boldFont));
+        document.add(new Paragraph(" "));
+
+        // --- QR VietQR ---
+        Image qrImage = null;
+        try {
+            qrImage = qr.call();
+        } catch (Exception e) {
+            System.err.println("⚠️ Không tải được mã QR cho hóa đơn #" + dto.getId() + ": " + e.getMessage());
+        }
+        if (qrImage != null) {
+            qrImage.scaleAbsolute(150, 150);
+            qrImage.setAlignment(Element.ALIGN_CENTER);
+            document.add(qrImage);
+
+            Paragraph qrNote = new Paragraph("Quét mã để thanh toán: " + money(dto.getTotalAmount()), textFont);
+            qrNote.setAlignment(Element.ALIGN_CENTER);
+            document.add(qrNote);
+        } else {
+            document.add(new Paragraph("(Không thể tải mã QR)", textFont));
+        }
+
+        document.close();
+        return baos.toByteArray();
+    }
+
+    // Trang PDF nhỏ chỉ chứa tên quán (rộng bằng vùng in của A4)
+    private byte[] renderHeader() throws DocumentException {
+        Rectangle size = new Rectangle(PageSize.A4.getWidth() - 2 * MARGIN, HEADER_HEIGHT);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document(size, 0, 0, 0, 0);
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        document.open();
+        PdfContentByte canvas = writer.getDirectContent();
+        ColumnText.showTextAligned(canvas, Element.ALIGN_CENTER, new Phrase(SHOP_NAME, titleFont),
+                size.getWidth() / 2, 8, 0);
+        document.close();
+        return baos.toByteArray();
+    }
+
+    private PdfReader headerReader() throws IOException {
+        PdfReader reader = headerReader.get();
+        if (reader == null) {
+            reader = new PdfReader(headerPdf);
+            headerReader.set(reader);
+        }
+        return reader;
+    }
+
+    private static BaseFont classpathFont(String name) throws IOException, DocumentException {
+        try (InputStream in = BillPdfRenderer.class.getResourceAsStream("/fonts/" + name)) {
+            if (in == null) {
+                throw new IOException("Không tìm thấy font fonts/" + name + " trong classpath");
+            }
+            return BaseFont.createFont(name, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, true, in.readAllBytes(), null);
+        }
+    }
+
+    private static Paragraph right(String text, Font font) {
+        Paragraph paragraph = new Paragraph(text, font);
+        paragraph.setAlignment(Element.ALIGN_RIGHT);
+        return paragraph;
+    }
+
+    private static String money(Number amount) {
+        return String.format("%,.0f₫", amount);
+    }
+
+    // Pool xuất PDF quá tải
+    public static class BillPdfBusyException extends RuntimeException {
+        public BillPdfBusyException(String message) {
+            super(message);
+        }
+    }
+}
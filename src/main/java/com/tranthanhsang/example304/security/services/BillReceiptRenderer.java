@@ -0,0 +1,99 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.time.format.DateTimeFormatter;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.payload.response.OrderItemDTO;
+
+import jakarta.annotation.PostConstruct;
+
+// Phiếu in nhiệt 80mm (ESC/POS) cho hóa đơn: cùng nội dung với PDF, vài KB, QR do máy in tự vẽ.
+// Cache trong bộ nhớ theo cùng khóa với PDF (id + lần sửa gần nhất).
+@Service
+public class BillReceiptRenderer {
+    private static final String SHOP_NAME = "COFFEE THANH XANN";
+    private static final DateTimeFormatter ISSUED_AT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    @Autowired
+    private VietQrService vietQrService;
+
+    // Tham số n của lệnh ESC t cho bảng mã Windows-1258 (Epson: 52)
+    @Value("${app.bill.receipt.code-page:52}")
+    private int codePage;
+    // Máy in không hỗ trợ bảng mã tiếng Việt → in không dấu
+    @Value("${app.bill.receipt.ascii:false}")
+    private boolean ascii;
+    @Value("${app.bill.receipt.qr-module-size:6}")
+    private int qrModuleSize;
+    @Value("${app.bill.receipt.cache-max-bytes:8388608}")
+    private long cacheMaxBytes;
+
+    private Cache<BillPdfCache.Key, byte[]> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((BillPdfCache.Key key, byte[] receipt) -> receipt.length)
+                .build();
+    }
+
+    // ✅ Phiếu in của đúng phiên bản hóa đơn; chưa có → dựng từ BillDTO rồi giữ lại
+    public byte[] get(BillPdfCache.Key key, Supplier<BillDTO> bill) {
+        return cache.get(key, k -> render(bill.get()));
+    }
+
+    public void invalidate(Long billId) {
+        cache.asMap().keySet().removeIf(key -> key.billId().equals(billId));
+    }
+
+    public byte[] render(BillDTO dto) {
+        EscPosReceipt receipt = new EscPosReceipt(codePage, ascii);
+
+        // --- Tiêu đề ---
+        receipt.align('C').bold(true).large(true).line(SHOP_NAME).large(false)
+                .line("HÓA ĐƠN THANH TOÁN #" + dto.getId()).bold(false)
+                .line("Ngày xuất: " + dto.getIssuedAt().format(ISSUED_AT));
+
+        // --- Thông tin bàn / nhân viên ---
+        receipt.align('L')
+                .line("Bàn: " + dto.getTableNumber())
+                .line("Nhân viên: " + (dto.getEmployeeName() != null ? dto.getEmployeeName() : "N/A"))
+                .line("Thanh toán: " + dto.getPaymentMethod() + " - " + dto.getPaymentStatus())
+                .separator();
+
+        // --- Món: tên 1 dòng, "SL x đơn giá ... thành tiền" dòng dưới ---
+        for (OrderItemDTO item : dto.getItems()) {
+            receipt.wrapped(item.getProductName())
+                    .columns("  " + item.getQuantity() + " x " + money(item.getPrice()), money(item.getSubtotal()));
+        }
+
+        // --- Tổng kết ---
+        receipt.separator()
+                .columns("Tạm tính", money(dto.getOriginalAmount()))
+                .columns("Giảm giá", "-" + money(dto.getDiscountAmount()))
+                .bold(true).columns("TỔNG CỘNG", money(dto.getTotalAmount())).bold(false);
+
+        // --- QR VietQR ---
+        if (dto.getTotalAmount() != null) {
+            receipt.line("").align('C')
+                    .qr(vietQrService.payload(dto.getTotalAmount().longValue(), dto.getOrderId()), qrModuleSize)
+                    .line("")
+                    .line("Quét mã để thanh toán: " + money(dto.getTotalAmount()));
+        }
+
+        receipt.align('C').line("Cảm ơn quý khách!");
+        return receipt.cut(3).toByteArray();
+    }
+
+    private static String money(Number amount) {
+        return amount != null ? String.format("%,.0f₫", amount) : "";
+    }
+}
@@ -2,7 +2,6 @@ package com.tranthanhsang.example304.security.services;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
@@ -10,6 +9,7 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import com.tranthanhsang.example304.entity.Bill;
 import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.payload.response.CursorPage;
 import com.tranthanhsang.example304.payload.response.OrderDTO;
 import com.tranthanhsang.example304.payload.response.OrderItemDTO;
 import com.tranthanhsang.example304.repository.BillRepository;
@@ -25,22 +25,9 @@ import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Page;
-import java.io.ByteArrayOutputStream;
-
-import com.itextpdf.text.BaseColor;
-import com.itextpdf.text.Document;
-import com.itextpdf.text.PageSize;
-import com.itextpdf.text.Paragraph;
-import com.itextpdf.text.Font;
-import com.itextpdf.text.FontFactory;
-import com.itextpdf.text.Image;
-import com.itextpdf.text.pdf.BaseFont;
-import com.itextpdf.text.pdf.PdfPCell;
-import java.util.stream.Stream;
+import org.springframework.data.domain.PageImpl;
 
-import com.itextpdf.text.pdf.PdfPTable;
-import com.itextpdf.text.pdf.PdfWriter;
-import com.itextpdf.text.Element;
+import com.itextpdf.text.Image;
 
 @Service
 public class BillService {
@@ -56,7 +43,20 @@ public class BillService {
     @Autowired
     private OrderService orderService;
     @Autowired
+    private SalesRollupService salesRollupService;
+    @Autowired
     private VnPayService vnPayService;
+    @Autowired
+    private OrderDtoAssembler orderDtoAssembler;
+
+    @Autowired
+    private BillPdfRenderer billPdfRenderer;
+    @Autowired
+    private VietQrService vietQrService;
+    @Autowired
+    private BillPdfCache billPdfCache;
+    @Autowired
+    private BillReceiptRenderer billReceiptRenderer;
 
     // Lấy tất cả hóa đơn
     public Page<BillDTO> getAll(int page) {
@@ -64,11 +64,19 @@ public class BillService {
         // đầu)
         Pageable pageable = PageRequest.of(page, 12, Sort.by("id").descending());
 
-        // 2. Lấy dữ liệu đã phân trang từ repository
-        Page<Bill> billPage = billRepo.findAll(pageable);
+        // 2. Lấy dữ liệu đã phân trang từ repository (kèm đơn hàng, bàn, nhân viên)
+        Page<Bill> billPage = billRepo.findAllWithOrders(pageable);
+
+        // 3. Chuyển đổi cả trang sang BillDTO (món ăn được nạp theo lô)
+        List<BillDTO> dtos = orderDtoAssembler.toBillDtos(billPage.getContent());
+        return new PageImpl<>(dtos, billPage.getPageable(), billPage.getTotalElements());
+    }
 
-        // 3. Chuyển đổi Page<Bill> thành Page<BillDTO> (dùng hàm convertToDTO của bạn)
-        return billPage.map(this::convertToDTO);
+    // ✅ Lấy hóa đơn theo con trỏ (?after=), không OFFSET / COUNT
+    public CursorPage<BillDTO> getAfter(String after, int limit) {
+        int size = PageCursor.clamp(limit);
+        List<Bill> rows = billRepo.findPageBefore(PageCursor.decode(after), PageRequest.of(0, size + 1));
+        return PageCursor.page(rows, size, Bill::getId, orderDtoAssembler::toBillDtos);
     }
 
     // Tạo mới hóa đơn
@@ -114,6 +122,7 @@ public class BillService {
     }
 
     // Cập nhật hóa đơn
+    @Transactional
     public Bill update(Long id, Bill bill) {
         System.out.println("📥 Yêu cầu cập nhật bill #" + id);
         System.out.println("➡️ Trạng thái mới: " + bill.getPaymentStatus());
@@ -133,6 +142,7 @@ public class BillService {
         existing.setUpdatedAt(LocalDateTime.now());
 
         Bill updated = billRepo.save(existing);
+        TransactionHooks.afterCommit(() -> invalidateDocuments(id));
         System.out.println("✅ Bill đã cập nhật: #" + updated.getId());
 
         // ✅ Nếu trạng thái chuyển từ PENDING → PAID → push cho khách để ẩn QR
@@ -150,292 +160,33 @@ public class BillService {
     }
 
     // Xóa hóa đơn
+    @Transactional
     public void delete(Long id) {
         billRepo.deleteById(id);
+        TransactionHooks.afterCommit(() -> invalidateDocuments(id));
     }
 
     // Chuyển đổi Bill entity sang BillDTO
     public BillDTO convertToDTO(Bill bill) {
-        Order order = bill.getOrder();
-
-        BillDTO dto = new BillDTO();
-        dto.setId(bill.getId());
-        dto.setTotalAmount(bill.getTotalAmount());
-        dto.setPaymentMethod(bill.getPaymentMethod().name());
-        dto.setPaymentStatus(bill.getPaymentStatus().name());
-        dto.setIssuedAt(bill.getIssuedAt());
-
-        // Đơn hàng
-        dto.setOrderId(order.getId());
-        dto.setOrderStatus(order.getStatus().name());
-        dto.setOrderTotal(order.getTotalAmount());
-        dto.setOrderNotes(order.getNotes());
-        dto.setTotalQuantity(order.getItems().stream()
-                .mapToInt(OrderItem::getQuantity)
-                .sum());
-
-        // Bàn
-        if (order.getTable() != null) {
-            dto.setTableId(order.getTable().getId());
-            dto.setTableNumber(order.getTable().getNumber());
-        }
-
-        // Nhân viên
-        if (order.getEmployee() != null) {
-            dto.setEmployeeId(order.getEmployee().getId());
-            dto.setEmployeeName(order.getEmployee().getFullName());
-        }
-
-        // ✅ Khuyến mãi (có thể null)
-        if (order.getPromotion() != null) {
-            dto.setPromotionId(order.getPromotion().getId());
-            dto.setPromotionCode(order.getPromotion().getName());
-        } else {
-            dto.setPromotionId(null);
-            dto.setPromotionCode(null);
-        }
-
-        // Món ăn
-        List<OrderItemDTO> itemDTOs = order.getItems().stream().map(item -> {
-            OrderItemDTO itemDTO = new OrderItemDTO();
-            itemDTO.setProductId(item.getProduct().getId());
-            itemDTO.setProductName(item.getProduct().getName());
-            itemDTO.setQuantity(item.getQuantity());
-            itemDTO.setPrice(item.getPrice());
-            itemDTO.setSubtotal(item.getSubtotal());
-            itemDTO.setOrderId(order.getId());
-            return itemDTO;
-        }).toList();
-
-        dto.setItems(itemDTOs);
-
-        // ✅ Tính originalAmount
-        BigDecimal originalAmount = order.getItems().stream()
-                .map(OrderItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        dto.setOriginalAmount(originalAmount);
-
-        // ✅ Tính discountAmount
-        BigDecimal discountAmount = originalAmount.subtract(order.getTotalAmount());
-        dto.setDiscountAmount(discountAmount.compareTo(BigDecimal.ZERO) > 0 ? discountAmount : BigDecimal.ZERO);
-
-        return dto;
+        return orderDtoAssembler.toBillDto(bill);
     }
 
     // Lấy hóa đơn theo ID bàn
     public List<BillDTO> getBillsByTable(Long tableId) {
         List<Bill> bills = billRepo.findByTableId(tableId);
-
-        return bills.stream().map(bill -> {
-            Order order = bill.getOrder();
-
-            BillDTO dto = new BillDTO();
-            dto.setId(bill.getId());
-            dto.setTotalAmount(bill.getTotalAmount());
-            dto.setPaymentMethod(bill.getPaymentMethod().name());
-            dto.setPaymentStatus(bill.getPaymentStatus().name());
-            dto.setIssuedAt(bill.getIssuedAt());
-
-            // Đơn hàng
-            dto.setOrderId(order.getId());
-            dto.setOrderStatus(order.getStatus().name());
-            dto.setOrderTotal(order.getTotalAmount());
-            dto.setOrderNotes(order.getNotes());
-            dto.setTotalQuantity(order.getItems().stream()
-                    .mapToInt(OrderItem::getQuantity)
-                    .sum());
-
-            // Bàn
-            if (order.getTable() != null) {
-                dto.setTableId(order.getTable().getId());
-                dto.setTableNumber(order.getTable().getNumber());
-            }
-
-            // Nhân viên
-            if (order.getEmployee() != null) {
-                dto.setEmployeeId(order.getEmployee().getId());
-                dto.setEmployeeName(order.getEmployee().getFullName());
-            }
-
-            // ✅ Khuyến mãi (có thể null)
-            if (order.getPromotion() != null) {
-                dto.setPromotionId(order.getPromotion().getId());
-                dto.setPromotionCode(order.getPromotion().getName());
-            } else {
-                dto.setPromotionId(null);
-                dto.setPromotionCode(null);
-            }
-
-            // Món ăn
-            List<OrderItemDTO> itemDTOs = order.getItems().stream().map(item -> {
-                OrderItemDTO itemDTO = new OrderItemDTO();
-                itemDTO.setProductId(item.getProduct().getId());
-                itemDTO.setProductName(item.getProduct().getName());
-                itemDTO.setQuantity(item.getQuantity());
-                itemDTO.setPrice(item.getPrice());
-                itemDTO.setSubtotal(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-                itemDTO.setOrderId(order.getId());
-                return itemDTO;
-            }).toList();
-
-            dto.setItems(itemDTOs);
-
-            // ✅ Tính originalAmount
-            BigDecimal originalAmount = order.getItems().stream()
-                    .map(OrderItem::getSubtotal)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            dto.setOriginalAmount(originalAmount);
-
-            // ✅ Tính discountAmount
-            BigDecimal discountAmount = originalAmount.subtract(order.getTotalAmount());
-            dto.setDiscountAmount(discountAmount.compareTo(BigDecimal.ZERO) > 0 ? discountAmount : BigDecimal.ZERO);
-
-            return dto;
-        }).toList();
+        return orderDtoAssembler.toBillDtos(bills);
     }
 
     // Lấy hóa đơn theo ID bàn và trạng thái thanh toán
     public List<BillDTO> getBillsByTableAndPaymentStatus(Long tableId, PaymentStatus paymentStatus) {
         List<Bill> bills = billRepo.findByTableIdAndPaymentStatus(tableId, paymentStatus);
-
-        return bills.stream().map(bill -> {
-            Order order = bill.getOrder();
-            BillDTO dto = new BillDTO();
-
-            dto.setId(bill.getId());
-            dto.setTotalAmount(bill.getTotalAmount());
-            dto.setPaymentMethod(bill.getPaymentMethod().name());
-            dto.setPaymentStatus(bill.getPaymentStatus().name());
-            dto.setIssuedAt(bill.getIssuedAt());
-
-            // Đơn hàng
-            dto.setOrderId(order.getId());
-            dto.setOrderStatus(order.getStatus().name());
-            dto.setOrderTotal(order.getTotalAmount());
-            dto.setOrderNotes(order.getNotes());
-            dto.setTotalQuantity(order.getItems().stream()
-                    .mapToInt(OrderItem::getQuantity)
-                    .sum());
-
-            // Bàn
-            if (order.getTable() != null) {
-                dto.setTableId(order.getTable().getId());
-                dto.setTableNumber(order.getTable().getNumber());
-            }
-
-            // Nhân viên
-            if (order.getEmployee() != null) {
-                dto.setEmployeeId(order.getEmployee().getId());
-                dto.setEmployeeName(order.getEmployee().getFullName());
-            }
-
-            // ✅ Khuyến mãi (có thể null)
-            if (order.getPromotion() != null) {
-                dto.setPromotionId(order.getPromotion().getId());
-                dto.setPromotionCode(order.getPromotion().getName());
-            } else {
-                dto.setPromotionId(null);
-                dto.setPromotionCode(null);
-            }
-
-            // Món ăn
-            List<OrderItemDTO> itemDTOs = order.getItems().stream().map(item -> {
-                OrderItemDTO itemDTO = new OrderItemDTO();
-                itemDTO.setProductId(item.getProduct().getId());
-                itemDTO.setProductName(item.getProduct().getName());
-                itemDTO.setQuantity(item.getQuantity());
-                itemDTO.setPrice(item.getPrice());
-                itemDTO.setSubtotal(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-                itemDTO.setOrderId(order.getId());
-                return itemDTO;
-            }).toList();
-
-            dto.setItems(itemDTOs);
-
-            // ✅ Tính originalAmount
-            BigDecimal originalAmount = order.getItems().stream()
-                    .map(OrderItem::getSubtotal)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            dto.setOriginalAmount(originalAmount);
-
-            // ✅ Tính discountAmount
-            BigDecimal discountAmount = originalAmount.subtract(order.getTotalAmount());
-            dto.setDiscountAmount(discountAmount.compareTo(BigDecimal.ZERO) > 0 ? discountAmount : BigDecimal.ZERO);
-
-            return dto;
-        }).toList();
+        return orderDtoAssembler.toBillDtos(bills);
     }
 
     // Lấy hóa đơn theo trạng thái thanh toán
     public List<BillDTO> getBillsByPaymentStatus(PaymentStatus paymentStatus) {
         List<Bill> bills = billRepo.findByPaymentStatus(paymentStatus);
-
-        return bills.stream().map(bill -> {
-            Order order = bill.getOrder();
-            BillDTO dto = new BillDTO();
-
-            dto.setId(bill.getId());
-            dto.setTotalAmount(bill.getTotalAmount());
-            dto.setPaymentMethod(bill.getPaymentMethod().name());
-            dto.setPaymentStatus(bill.getPaymentStatus().name());
-            dto.setIssuedAt(bill.getIssuedAt());
-
-            // Đơn hàng
-            dto.setOrderId(order.getId());
-            dto.setOrderStatus(order.getStatus().name());
-            dto.setOrderTotal(order.getTotalAmount());
-            dto.setOrderNotes(order.getNotes());
-            dto.setTotalQuantity(order.getItems().stream()
-                    .mapToInt(OrderItem::getQuantity)
-                    .sum());
-
-            // Bàn
-            if (order.getTable() != null) {
-                dto.setTableId(order.getTable().getId());
-                dto.setTableNumber(order.getTable().getNumber());
-            }
-
-            // Nhân viên
-            if (order.getEmployee() != null) {
-                dto.setEmployeeId(order.getEmployee().getId());
-                dto.setEmployeeName(order.getEmployee().getFullName());
-            }
-
-            // ✅ Khuyến mãi (có thể null)
-            if (order.getPromotion() != null) {
-                dto.setPromotionId(order.getPromotion().getId());
-                dto.setPromotionCode(order.getPromotion().getName());
-            } else {
-                dto.setPromotionId(null);
-                dto.setPromotionCode(null);
-            }
-
-            // Món ăn
-            List<OrderItemDTO> itemDTOs = order.getItems().stream().map(item -> {
-                OrderItemDTO itemDTO = new OrderItemDTO();
-                itemDTO.setProductId(item.getProduct().getId());
-                itemDTO.setProductName(item.getProduct().getName());
-                itemDTO.setQuantity(item.getQuantity());
-                itemDTO.setPrice(item.getPrice());
-                itemDTO.setSubtotal(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-                itemDTO.setOrderId(order.getId());
-                return itemDTO;
-            }).toList();
-
-            dto.setItems(itemDTOs);
-
-            // ✅ Tính originalAmount
-            BigDecimal originalAmount = order.getItems().stream()
-                    .map(OrderItem::getSubtotal)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            dto.setOriginalAmount(originalAmount);
-
-            // ✅ Tính discountAmount
-            BigDecimal discountAmount = originalAmount.subtract(order.getTotalAmount());
-            dto.setDiscountAmount(discountAmount.compareTo(BigDecimal.ZERO) > 0 ? discountAmount : BigDecimal.ZERO);
-
-            return dto;
-        }).toList();
+        return orderDtoAssembler.toBillDtos(bills);
     }
 
     // Lấy hóa đơn theo ID
@@ -446,6 +197,8 @@ public class BillService {
         return convertToDTO(bill);
     }
 
+    // ✅ Bill, đơn hàng, bàn và bảng tổng hợp doanh số đổi trong cùng 1 transaction
+    @Transactional
     public Bill updatePaymentStatus(Long id, PaymentStatus newStatus) {
         System.out.println("📥 Yêu cầu cập nhật trạng thái bill #" + id + " thành " + newStatus);
 
@@ -463,6 +216,7 @@ public class BillService {
         existing.setUpdatedAt(LocalDateTime.now());
 
         Bill updated = billRepo.save(existing);
+        TransactionHooks.afterCommit(() -> invalidateDocuments(id));
         System.out.println("✅ Đã cập nhật trạng thái bill #" + updated.getId());
 
         // Nếu bill vừa được thanh toán, push thông báo cho khách hàng
@@ -470,9 +224,13 @@ public class BillService {
             Order order = updated.getOrder();
             TableEntity table = order.getTable();
 
-            // 1. Cập nhật trạng thái Order → PAID
+            // 1. Cập nhật trạng thái Order → PAID (đơn đã PAID từ lúc tạo bill thì không cộng thống kê lần nữa)
+            boolean becamePaid = order.getStatus() != OrderStatus.PAID;
             order.setStatus(OrderStatus.PAID);
             orderRepo.save(order);
+            if (becamePaid) {
+                salesRollupService.recordPaid(order);
+            }
 
             // 2. Cập nhật trạng thái Bàn → FREE
             if (table != null) {
@@ -500,110 +258,49 @@ public class BillService {
         return updated;
     }
 
-    public byte[] generateBillPdf(Long billId) {
-        Bill bill = billRepo.findById(billId)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy hóa đơn với ID: " + billId));
-
-        BillDTO dto = convertToDTO(bill);
-
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            Document document = new Document(PageSize.A4, 36, 36, 36, 36);
-            PdfWriter.getInstance(document, baos);
-            document.open();
-
-            // --- 🔤 NẠP FONT HỖ TRỢ TIẾNG VIỆT ---
-            String fontPath = "C:/Windows/Fonts/times.ttf";
-            BaseFont baseFont = BaseFont.createFont(fontPath, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
-
-            Font titleFont = new Font(baseFont, 20, Font.BOLD, BaseColor.BLACK);
-            Font textFont = new Font(baseFont, 12, Font.NORMAL, BaseColor.BLACK);
-            Font boldFont = new Font(baseFont, 12, Font.BOLD, BaseColor.BLACK);
-
-            // --- Tiêu đề ---
-
-            Paragraph title = new Paragraph("COFFEE THANH XANN", titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            document.add(title);
-            document.add(new Paragraph(" "));
-            document.add(new Paragraph("HÓA ĐƠN THANH TOÁN #" + dto.getId(), boldFont));
-            document.add(new Paragraph(
-                    "Ngày xuất: " + dto.getIssuedAt().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
-                    textFont));
-            document.add(new Paragraph(" "));
-
-            // --- Thông tin bàn / nhân viên ---
-            document.add(new Paragraph("Bàn: " + dto.getTableNumber(), textFont));
-            document.add(new Paragraph("Nhân viên: " +
-                    (dto.getEmployeeName() != null ? dto.getEmployeeName() : "N/A"), textFont));
-            document.add(new Paragraph("Phương thức thanh toán: " + dto.getPaymentMethod(), textFont));
-            document.add(new Paragraph("Trạng thái: " + dto.getPaymentStatus(), textFont));
-            document.add(new Paragraph(" "));
-
-            // --- Bảng món ---
-            PdfPTable table = new PdfPTable(4);
-            table.setWidthPercentage(100);
-            table.setWidths(new float[] { 4, 1, 2, 2 });
-
-            Stream.of("Tên món", "SL", "Đơn giá", "Thành tiền").forEach(header -> {
-                PdfPCell cell = new PdfPCell(new Paragraph(header, boldFont));
-                cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-                table.addCell(cell);
-            });
-
-            for (OrderItemDTO item : dto.getItems()) {
-                table.addCell(new Paragraph(item.getProductName(), textFont));
-                table.addCell(new Paragraph(String.valueOf(item.getQuantity()), textFont));
-                table.addCell(new Paragraph(String.format("%,.0f₫", item.getPrice()), textFont));
-                table.addCell(new Paragraph(String.format("%,.0f₫", item.getSubtotal()), textFont));
-            }
-
-            document.add(table);
-            document.add(new Paragraph(" "));
-
-            // --- Tổng kết ---
-            Paragraph subTotal = new Paragraph("Tạm tính: " +
-                    String.format("%,.0f₫", dto.getOriginalAmount()), textFont);
-            subTotal.setAlignment(Element.ALIGN_RIGHT);
-            document.add(subTotal);
-
-            Paragraph discount = new Paragraph("Giảm giá: -" +
-                    String.format("%,.0f₫", dto.getDiscountAmount()), textFont);
-            discount.setAlignment(Element.ALIGN_RIGHT);
-            document.add(discount);
+    // ✅ Khóa cache PDF (id + lần sửa gần nhất) → controller trả 304 mà không cần dựng PDF
+    public BillPdfCache.Key getPdfKey(Long billId) {
+        LocalDateTime version = billRepo.findPdfVersion(billId)
+                .orElseGet(() -> {
+                    if (!billRepo.existsById(billId)) {
+                        throw new RuntimeException("Không tìm thấy hóa đơn với ID: " + billId);
+                    }
+                    return LocalDateTime.of(1970, 1, 1, 0, 0); // hóa đơn cũ chưa có mốc thời gian
+                });
+        return new BillPdfCache.Key(billId, version);
+    }
 
-            Paragraph total = new Paragraph("Tổng cộng: " +
-                    String.format("%,.0f₫", dto.getTotalAmount()), boldFont);
-            total.setAlignment(Element.ALIGN_RIGHT);
-            document.add(total);
+    // File PDF đã cache của đúng phiên bản (chưa có → dựng 1 lần rồi lưu)
+    public BillPdfCache.CachedPdf getCachedBillPdf(BillPdfCache.Key key) {
+        return billPdfCache.get(key, () -> generateBillPdf(key.billId()));
+    }
 
-            document.add(new Paragraph(" "));
+    // Phiếu in nhiệt ESC/POS cùng phiên bản (cache trong bộ nhớ, vài KB mỗi hóa đơn)
+    public byte[] getReceipt(BillPdfCache.Key key) {
+        return billReceiptRenderer.get(key, () -> getById(key.billId()));
+    }
 
-            // --- QR VietQR ---
-            String qrUrl = String.format(
-                    "https://img.vietqr.io/image/970422-0398617329-compact.png?amount=%s&addInfo=DonHang%s&accountName=%s",
-                    dto.getTotalAmount().intValue(), dto.getOrderId(), "TRAN%20THANH%20SANG");
+    // Hóa đơn đổi / bị xóa → bỏ PDF và phiếu in đã cache
+    private void invalidateDocuments(Long billId) {
+        billPdfCache.invalidate(billId);
+        billReceiptRenderer.invalidate(billId);
+    }
 
-            try {
-                Image qrImage = Image.getInstance(qrUrl);
-                qrImage.scaleAbsolute(150, 150);
-                qrImage.setAlignment(Element.ALIGN_CENTER);
-                document.add(qrImage);
+    public byte[] generateBillPdf(Long billId) {
+        Bill bill = billRepo.findById(billId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy hóa đơn với ID: " + billId));
 
-                Paragraph qrNote = new Paragraph(
-                        "Quét mã để thanh toán: " + String.format("%,.0f₫", dto.getTotalAmount()),
-                        textFont);
-                qrNote.setAlignment(Element.ALIGN_CENTER);
-                document.add(qrNote);
+        return renderBillPdf(convertToDTO(bill));
+    }
 
-            } catch (Exception e) {
-                document.add(new Paragraph("(Không thể tải mã QR)", textFont));
-            }
+    // Dựng file PDF từ BillDTO (không truy cập DB), chạy trên pool của BillPdfRenderer
+    public byte[] renderBillPdf(BillDTO dto) {
+        return billPdfRenderer.render(dto, () -> loadQrImage(dto));
+    }
 
-            document.close();
-            return baos.toByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException("Lỗi khi tạo PDF: " + e.getMessage(), e);
-        }
+    // Ảnh QR VietQR cho hóa đơn (sinh tại chỗ, không gọi mạng)
+    protected Image loadQrImage(BillDTO dto) throws Exception {
+        return vietQrService.image(dto);
     }
 
     @Transactional
@@ -628,6 +325,7 @@ public class BillService {
         Bill savedBill = billRepo.save(newBill);
         order.setStatus(OrderStatus.PAID); // Đổi Order thành PAID
         orderRepo.save(order); // Lưu Order đã đổi trạng thái
+        salesRollupService.recordPaid(order); // Cộng vào bảng tổng hợp doanh số (cùng transaction)
 
         // 4. Đổi trạng thái Bàn thành FREE
         TableEntity table = order.getTable();
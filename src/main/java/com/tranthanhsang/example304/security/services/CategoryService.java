@@ -22,6 +22,10 @@ public class CategoryService {
     private FileUploadService fileUploadService;
     @Autowired
     private ProductRepository productRepository;
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
 
     public Page<CategoryDTO> getAllCategories(Pageable pageable) {
         // 1. Gọi repository để lấy dữ liệu dạng Page<Category>
@@ -49,7 +53,9 @@ public class CategoryService {
         category.setName(category.getName().trim());
         category.setCreatedAt(LocalDateTime.now());
         category.setUpdatedAt(LocalDateTime.now());
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        menuSnapshotService.invalidate();
+        return saved;
     }
 
     // Cập nhật danh mục
@@ -84,7 +90,10 @@ public class CategoryService {
             existing.setParentCategory(null);
         }
 
-        return categoryRepository.save(existing);
+        Category saved = categoryRepository.save(existing);
+        menuSnapshotService.invalidate(); // tên danh mục nằm trong JSON sản phẩm
+        productSearchIndex.refreshCategory(id); // và là bộ lọc của chỉ mục tìm kiếm
+        return saved;
     }
 
     // Xóa danh mục
@@ -102,6 +111,7 @@ public class CategoryService {
 
         // Sau khi xóa ảnh mới xóa danh mục
         categoryRepository.delete(existing);
+        menuSnapshotService.invalidate();
     }
 
     // Lấy danh mục theo ID
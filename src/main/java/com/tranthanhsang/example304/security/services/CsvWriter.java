@@ -0,0 +1,56 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+// CSV theo RFC 4180, có BOM UTF-8 để Excel hiện đúng tiếng Việt.
+// Dùng chung cho báo cáo (ReportWriter) và xuất hóa đơn hàng loạt (BillExportService).
+final class CsvWriter implements Closeable {
+    private final BufferedWriter writer;
+
+    CsvWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    // BOM + dòng tiêu đề, gọi 1 lần trước dòng đầu tiên
+    void header(String... columns) throws IOException {
+        writer.write('\uFEFF');
+        writer.write(String.join(",", columns));
+        writer.write("\r\n");
+    }
+
+    void row(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(cell(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    // Chỉ bọc ngoặc kép khi ô có dấu phẩy, ngoặc kép hoặc xuống dòng
+    static String cell(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = ReportWriter.text(value);
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,164 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+
+// Dựng luồng lệnh ESC/POS cho máy in nhiệt 80mm (48 cột, font A).
+// Tiếng Việt in bằng bảng mã Windows-1258: chữ có dấu thanh (ế, ữ...) không có sẵn trong bảng mã
+// → tách thành chữ gốc (ê, ư...) + dấu thanh tổ hợp, máy in tự chồng dấu lên chữ.
+// Máy in không có bảng 1258 → chế độ ASCII (bỏ dấu).
+final class EscPosReceipt {
+    static final int WIDTH = 48;
+
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final byte LF = 0x0A;
+    private static final Charset CP1258 = Charset.forName("windows-1258");
+    // Dấu huyền, sắc, ngã, hỏi, nặng
+    private static final String TONE_MARKS = "\u0300\u0301\u0303\u0309\u0323";
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+    private final CharsetEncoder encoder;
+    private final boolean ascii;
+
+    // codePage = tham số n của lệnh ESC t (bảng WPC1258 trên máy Epson là 52); ascii = in không dấu
+    EscPosReceipt(int codePage, boolean ascii) {
+        this.ascii = ascii;
+        this.encoder = ascii ? null : CP1258.newEncoder();
+        raw(ESC, '@');
+        if (!ascii) {
+            raw(ESC, 't', codePage);
+        }
+    }
+
+    EscPosReceipt align(char alignment) {
+        return raw(ESC, 'a', alignment == 'C' ? 1 : alignment == 'R' ? 2 : 0);
+    }
+
+    EscPosReceipt bold(boolean on) {
+        return raw(ESC, 'E', on ? 1 : 0);
+    }
+
+    // Chữ cao và rộng gấp đôi (GS ! 0x11)
+    EscPosReceipt large(boolean on) {
+        return raw(GS, '!', on ? 0x11 : 0x00);
+    }
+
+    EscPosReceipt line(String text) {
+        text(text);
+        out.write(LF);
+        return this;
+    }
+
+    // Trái - phải trên cùng 1 dòng (tên khoản ... số tiền)
+    EscPosReceipt columns(String left, String right) {
+        int gap = WIDTH - columnsOf(left) - columnsOf(right);
+        if (gap < 1) {
+            // Không đủ chỗ → số tiền xuống dòng, căn phải
+            return wrapped(left).line(" ".repeat(Math.max(WIDTH - columnsOf(right), 0)) + right);
+        }
+        return line(left + " ".repeat(gap) + right);
+    }
+
+    // Chữ dài → xuống dòng theo từ
+    EscPosReceipt wrapped(String text) {
+        String rest = Normalizer.normalize(text, Normalizer.Form.NFC).trim();
+        while (rest.length() > WIDTH) {
+            int cut = rest.lastIndexOf(' ', WIDTH);
+            if (cut <= 0) {
+                cut = WIDTH;
+            }
+            line(rest.substring(0, cut));
+            rest = rest.substring(cut).trim();
+        }
+        return line(rest);
+    }
+
+    EscPosReceipt separator() {
+        return line("-".repeat(WIDTH));
+    }
+
+    // Mã QR in bằng lệnh gốc của máy in (GS ( k, model 2, sửa lỗi mức M)
+    EscPosReceipt qr(String data, int moduleSize) {
+        byte[] bytes = data.getBytes(StandardCharsets.US_ASCII);
+        raw(GS, '(', 'k', 4, 0, '1', 'A', '2', 0);
+        raw(GS, '(', 'k', 3, 0, '1', 'C', moduleSize);
+        raw(GS, '(', 'k', 3, 0, '1', 'E', '1');
+        int length = bytes.length + 3;
+        raw(GS, '(', 'k', length & 0xFF, (length >> 8) & 0xFF, '1', 'P', '0');
+        out.write(bytes, 0, bytes.length);
+        return raw(GS, '(', 'k', 3, 0, '1', 'Q', '0');
+    }
+
+    // Đẩy giấy rồi cắt (GS V 66 n)
+    EscPosReceipt cut(int feedLines) {
+        return raw(GS, 'V', 66, feedLines);
+    }
+
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    // Số cột chiếm trên giấy: chữ dựng sẵn (NFC) mỗi ký tự 1 cột
+    static int columnsOf(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFC).length();
+    }
+
+    private void text(String text) {
+        String nfc = Normalizer.normalize(text, Normalizer.Form.NFC);
+        StringBuilder sb = new StringBuilder(nfc.length() + 8);
+        for (int i = 0; i < nfc.length(); i++) {
+            char ch = nfc.charAt(i);
+            if (ch < 0x80) {
+                sb.append(ch);
+            } else if (ascii) {
+                sb.append(toAscii(ch));
+            } else if (encoder.canEncode(ch)) {
+                sb.append(ch);
+            } else {
+                sb.append(splitTone(ch));
+            }
+        }
+        byte[] bytes = ascii ? sb.toString().getBytes(StandardCharsets.US_ASCII)
+                : sb.toString().getBytes(CP1258);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    // ế → ê + dấu sắc; không tách được → bỏ dấu
+    private String splitTone(char ch) {
+        String decomposed = Normalizer.normalize(String.valueOf(ch), Normalizer.Form.NFD);
+        StringBuilder base = new StringBuilder(2);
+        StringBuilder tones = new StringBuilder(1);
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            (TONE_MARKS.indexOf(c) >= 0 ? tones : base).append(c);
+        }
+        String composed = Normalizer.normalize(base, Normalizer.Form.NFC);
+        return encoder.canEncode(composed) ? composed + tones : toAscii(ch);
+    }
+
+    private static String toAscii(char ch) {
+        switch (ch) {
+            case 'đ':
+                return "d";
+            case 'Đ':
+                return "D";
+            case '₫':
+                return "d";
+            default:
+                String stripped = Normalizer.normalize(String.valueOf(ch), Normalizer.Form.NFD)
+                        .replaceAll("\\p{M}", "");
+                return stripped.length() == 1 && stripped.charAt(0) < 0x80 ? stripped : "?";
+        }
+    }
+
+    private EscPosReceipt raw(int... bytes) {
+        for (int b : bytes) {
+            out.write(b);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,100 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+// Giới hạn tần suất đăng nhập bằng token bucket, theo IP và theo username.
+// Bucket lưu trong Caffeine (giới hạn số key, tự hết hạn khi không dùng) → không tăng bộ nhớ vô hạn.
+@Component
+public class LoginRateLimiter {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.login.ip-capacity:30}")
+    private int ipCapacity;
+    @Value("${app.auth.login.ip-refill-per-minute:30}")
+    private int ipRefillPerMinute;
+    @Value("${app.auth.login.username-capacity:5}")
+    private int usernameCapacity;
+    @Value("${app.auth.login.username-refill-per-minute:5}")
+    private int usernameRefillPerMinute;
+
+    private Cache<String, TokenBucket> ipBuckets;
+    private Cache<String, TokenBucket> usernameBuckets;
+    private Counter ipThrottled;
+    private Counter usernameThrottled;
+
+    @PostConstruct
+    public void init() {
+        ipBuckets = newBucketCache();
+        usernameBuckets = newBucketCache();
+        ipThrottled = meterRegistry.counter("auth.login.throttled", "key", "ip");
+        usernameThrottled = meterRegistry.counter("auth.login.throttled", "key", "username");
+    }
+
+    // Trả về 0 nếu được phép đăng nhập, ngược lại là số giây cần chờ
+    public long tryAcquire(String ip, String username) {
+        long waitNanos = ipBuckets.get(ip, k -> new TokenBucket(ipCapacity, ipRefillPerMinute)).tryConsume();
+        if (waitNanos > 0) {
+            ipThrottled.increment();
+            return toSeconds(waitNanos);
+        }
+
+        String key = username == null ? "" : username.trim().toLowerCase();
+        waitNanos = usernameBuckets.get(key, k -> new TokenBucket(usernameCapacity, usernameRefillPerMinute))
+                .tryConsume();
+        if (waitNanos > 0) {
+            usernameThrottled.increment();
+            return toSeconds(waitNanos);
+        }
+        return 0;
+    }
+
+    private static Cache<String, TokenBucket> newBucketCache() {
+        return Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .maximumSize(10_000)
+                .build();
+    }
+
+    private static long toSeconds(long nanos) {
+        return Math.max(1, (nanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    // Token bucket: tối đa capacity lượt, hồi refillPerMinute lượt mỗi phút
+    static class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int capacity, int refillPerMinute) {
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerMinute / 60_000_000_000.0;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        // 0 nếu lấy được 1 lượt, ngược lại là số nano giây đến khi có lượt tiếp theo
+        synchronized long tryConsume() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
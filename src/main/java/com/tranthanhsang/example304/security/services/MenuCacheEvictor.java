@@ -0,0 +1,39 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.tranthanhsang.example304.entity.Product;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Xóa các vùng second-level cache mà Hibernate không tự xóa khi ghi.
+// Entity Product / Category / TableEntity / Promotion và query cache được Hibernate tự cập nhật;
+// riêng collection phía ngược Product.promotions phải xóa tay khi Promotion.products thay đổi.
+@Component
+public class MenuCacheEvictor {
+    static final String PRODUCT_PROMOTIONS = Product.class.getName() + ".promotions";
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    // Xóa Product.promotions của các sản phẩm bị ảnh hưởng (sau khi transaction commit)
+    public void evictProductPromotions(Collection<Long> productIds) {
+        Set<Long> ids = new HashSet<>(productIds);
+        if (ids.isEmpty()) {
+            return;
+        }
+        // Xóa sau commit để request khác không nạp lại dữ liệu cũ vào cache trước khi commit xong
+        TransactionHooks.afterCommit(() -> {
+            Cache cache = emf.getCache().unwrap(Cache.class);
+            for (Long id : ids) {
+                cache.evictCollectionData(PRODUCT_PROMOTIONS, id);
+            }
+        });
+    }
+}
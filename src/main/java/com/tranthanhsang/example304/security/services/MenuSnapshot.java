@@ -0,0 +1,215 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.tranthanhsang.example304.entity.Product;
+
+// Ảnh chụp thực đơn trong bộ nhớ: bất biến, có phiên bản.
+// Các API danh sách sản phẩm lọc / sắp xếp / phân trang trên ảnh chụp thay vì truy vấn DB.
+// Product bên trong đã nạp sẵn category + promotions và KHÔNG được sửa (dùng chung giữa các request).
+public final class MenuSnapshot {
+    private static final int DEFAULT_PAGE_SIZE = 12;
+
+    // Các cột cho phép sắp xếp (tên thuộc tính giống Sort của Spring Data)
+    private static final Map<String, Comparator<Product>> SORTABLE = new HashMap<>();
+
+    static {
+        SORTABLE.put("id", by(Product::getId));
+        SORTABLE.put("name", by(p -> VietnameseText.fold(p.getName())));
+        SORTABLE.put("price", by(Product::getPrice));
+        SORTABLE.put("stockQuantity", by(Product::getStockQuantity));
+        SORTABLE.put("isActive", by(Product::getIsActive));
+        SORTABLE.put("createdAt", by(Product::getCreatedAt));
+        SORTABLE.put("updatedAt", by(Product::getUpdatedAt));
+    }
+
+    private final long generation;
+    private final String version;
+    private final List<Product> byIdAsc;
+    private final List<Product> byIdDesc;
+    private final Map<Long, Product> byId;
+    // Tên danh mục đã chuẩn hóa, cùng chỉ số với byIdAsc
+    private final String[] foldedCategories;
+
+    MenuSnapshot(long generation, String version, List<Product> products) {
+        this.generation = generation;
+        this.version = version;
+
+        List<Product> sorted = new ArrayList<>(products);
+        sorted.sort(Comparator.comparing(Product::getId));
+        this.byIdAsc = List.copyOf(sorted);
+        this.byIdDesc = List.copyOf(sorted.reversed());
+
+        this.byId = new HashMap<>();
+        this.foldedCategories = new String[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            Product p = sorted.get(i);
+            byId.put(p.getId(), p);
+            foldedCategories[i] = p.getCategory() != null ? VietnameseText.fold(p.getCategory().getName()) : null;
+        }
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return byIdAsc.size();
+    }
+
+    // Toàn bộ sản phẩm, id tăng dần (chỉ đọc)
+    public List<Product> products() {
+        return byIdAsc;
+    }
+
+    // Sản phẩm theo id (null nếu không có trong thực đơn)
+    public Product product(Long id) {
+        return byId.get(id);
+    }
+
+    // ✅ ETag mạnh = phiên bản ảnh chụp + băm tham số request
+    // Cùng phiên bản + cùng tham số → cùng nội dung JSON
+    public String etag(Object... params) {
+        StringBuilder key = new StringBuilder();
+        for (Object param : params) {
+            key.append(param).append('\u0000');
+        }
+        return "\"" + version + "-" + sha256Prefix(key.toString()) + "\"";
+    }
+
+    // Tất cả sản phẩm, mới nhất trước, 12 sản phẩm mỗi trang
+    public Page<Product> all(int page) {
+        Pageable pageable = PageRequest.of(page, DEFAULT_PAGE_SIZE, Sort.by("id").descending());
+        return slice(byIdDesc, pageable);
+    }
+
+    // ✅ Trang theo con trỏ: sản phẩm có id < cursor, mới nhất trước (tìm nhị phân trên danh sách id giảm dần)
+    public List<Product> before(long cursor, int limit) {
+        int lo = 0;
+        int hi = byIdDesc.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (byIdDesc.get(mid).getId() >= cursor) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return byIdDesc.subList(lo, Math.min(byIdDesc.size(), lo + limit));
+    }
+
+    // Sản phẩm theo tên danh mục (không phân biệt hoa thường / dấu)
+    public Page<Product> byCategory(String categoryName, Pageable pageable) {
+        return slice(match(categoryName, null, null), pageable);
+    }
+
+    // Lọc + sắp xếp, trả về toàn bộ kết quả
+    public List<Product> filter(String categoryName, BigDecimal minPrice, BigDecimal maxPrice,
+            String sortBy, String order) {
+        List<Product> result = match(categoryName, minPrice, maxPrice);
+        Comparator<Product> comparator = SORTABLE.get(sortBy);
+        if (comparator == null) {
+            return result; // fallback nếu sortBy sai: giữ thứ tự id tăng dần
+        }
+        result.sort("desc".equalsIgnoreCase(order) ? comparator.reversed() : comparator);
+        return result;
+    }
+
+    // Trang kết quả tìm kiếm: ids đã xếp hạng theo độ liên quan (ProductSearchIndex).
+    // Pageable có sort → sắp lại theo cột; id không còn trong ảnh chụp thì bỏ qua
+    public Page<Product> search(List<Long> rankedIds, Pageable pageable) {
+        List<Product> result = new ArrayList<>(rankedIds.size());
+        for (Long id : rankedIds) {
+            Product p = byId.get(id);
+            if (p != null) {
+                result.add(p);
+            }
+        }
+        Comparator<Product> comparator = comparatorOf(pageable.getSort());
+        if (comparator != null) {
+            result.sort(comparator);
+        }
+        return slice(result, pageable);
+    }
+
+    // ===== LỌC / PHÂN TRANG =====
+    private List<Product> match(String categoryName, BigDecimal minPrice, BigDecimal maxPrice) {
+        String foldedCategory = categoryName != null && !categoryName.isBlank() ? VietnameseText.fold(categoryName) : null;
+
+        List<Product> result = new ArrayList<>();
+        for (int i = 0; i < byIdAsc.size(); i++) {
+            if (foldedCategory != null && !foldedCategory.equals(foldedCategories[i])) {
+                continue;
+            }
+            Product p = byIdAsc.get(i);
+            if (minPrice != null && (p.getPrice() == null || p.getPrice().compareTo(minPrice) < 0)) {
+                continue;
+            }
+            if (maxPrice != null && (p.getPrice() == null || p.getPrice().compareTo(maxPrice) > 0)) {
+                continue;
+            }
+            result.add(p);
+        }
+        return result;
+    }
+
+    private static Page<Product> slice(List<Product> products, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(products, pageable, products.size());
+        }
+        long offset = pageable.getOffset();
+        if (offset >= products.size()) {
+            return new PageImpl<>(List.of(), pageable, products.size());
+        }
+        int to = (int) Math.min(products.size(), offset + pageable.getPageSize());
+        return new PageImpl<>(products.subList((int) offset, to), pageable, products.size());
+    }
+
+    // Cột không hỗ trợ thì bỏ qua
+    private static Comparator<Product> comparatorOf(Sort sort) {
+        Comparator<Product> result = null;
+        for (Sort.Order order : sort) {
+            Comparator<Product> comparator = SORTABLE.get(order.getProperty());
+            if (comparator == null) {
+                continue;
+            }
+            comparator = order.isDescending() ? comparator.reversed() : comparator;
+            result = result == null ? comparator : result.thenComparing(comparator);
+        }
+        return result;
+    }
+
+    // NULL đứng đầu khi tăng dần, cuối khi giảm dần (giống MySQL)
+    private static <T extends Comparable<? super T>> Comparator<Product> by(Function<Product, T> key) {
+        return Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+
+    private static String sha256Prefix(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.repository.ProductRepository;
+import com.tranthanhsang.example304.repository.PromotionRepository;
+
+// Giữ ảnh chụp thực đơn hiện tại.
+// Mỗi lần ghi sản phẩm / danh mục / khuyến mãi → invalidate() tăng thế hệ (sau commit);
+// request đọc kế tiếp dựng lại ảnh chụp (vài câu SQL), các request sau đó không chạm DB.
+@Service
+public class MenuSnapshotService {
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private PromotionRepository promotionRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Phân biệt các lần khởi động, tránh ETag của lần chạy trước trùng với lần chạy này
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong generation = new AtomicLong();
+    private final Object rebuildLock = new Object();
+    private volatile MenuSnapshot snapshot;
+
+    public MenuSnapshot current() {
+        MenuSnapshot current = snapshot;
+        if (current != null && current.generation() == generation.get()) {
+            return current;
+        }
+        synchronized (rebuildLock) {
+            current = snapshot;
+            long gen = generation.get();
+            if (current != null && current.generation() == gen) {
+                return current;
+            }
+            // Nếu có invalidate() trong lúc dựng, thế hệ lệch → lần đọc sau dựng lại
+            current = build(gen);
+            snapshot = current;
+            return current;
+        }
+    }
+
+    // ✅ Đánh dấu ảnh chụp cũ (sau commit để lần dựng lại đọc được dữ liệu mới)
+    public void invalidate() {
+        TransactionHooks.afterCommit(generation::incrementAndGet);
+    }
+
+    private MenuSnapshot build(long gen) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        List<Product> products = tx.execute(status -> {
+            List<Product> result = productRepository.findAllForMenu();
+            // Khi serialize: Product → promotions → products, nên Promotion.products cũng phải nạp sẵn
+            promotionRepository.findAllWithProductsList();
+            return result;
+        });
+        System.out.println("📋 Dựng lại ảnh chụp thực đơn: " + products.size() + " sản phẩm (thế hệ " + gen + ")");
+        return new MenuSnapshot(gen, bootId + "." + gen, products);
+    }
+}
@@ -0,0 +1,160 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.tranthanhsang.example304.entity.Bill;
+import com.tranthanhsang.example304.entity.Order;
+import com.tranthanhsang.example304.entity.Promotion;
+import com.tranthanhsang.example304.entity.TableEntity;
+import com.tranthanhsang.example304.model.User;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.payload.response.OrderDTO;
+import com.tranthanhsang.example304.payload.response.OrderItemDTO;
+import com.tranthanhsang.example304.repository.OrderItemRepository;
+import com.tranthanhsang.example304.repository.PromotionRepository;
+import com.tranthanhsang.example304.repository.TableRepository;
+import com.tranthanhsang.example304.repository.UserRepository;
+
+// Dựng OrderDTO / BillDTO cho cả 1 trang đơn hàng.
+// Dữ liệu liên quan (món + sản phẩm, bàn, nhân viên, khuyến mãi) được nạp theo lô:
+// mỗi loại tối đa 1 câu SQL, không phụ thuộc số đơn hàng trong trang.
+@Service
+public class OrderDtoAssembler {
+    @Autowired
+    private OrderItemRepository orderItemRepo;
+    @Autowired
+    private TableRepository tableRepo;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PromotionRepository promoRepo;
+    @Autowired
+    private OrderDtoMapper orderDtoMapper;
+
+    public OrderDTO toOrderDto(Order order) {
+        return toOrderDtos(List.of(order)).get(0);
+    }
+
+    public List<OrderDTO> toOrderDtos(List<Order> orders) {
+        ReadModel model = load(orders);
+
+        List<OrderDTO> result = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            result.add(orderDtoMapper.toOrderDto(order, model));
+        }
+        return result;
+    }
+
+    public BillDTO toBillDto(Bill bill) {
+        return toBillDtos(List.of(bill)).get(0);
+    }
+
+    public List<BillDTO> toBillDtos(List<Bill> bills) {
+        List<Order> orders = new ArrayList<>(bills.size());
+        for (Bill bill : bills) {
+            if (bill.getOrder() != null) {
+                orders.add(bill.getOrder());
+            }
+        }
+        ReadModel model = load(orders);
+
+        List<BillDTO> result = new ArrayList<>(bills.size());
+        for (Bill bill : bills) {
+            result.add(orderDtoMapper.toBillDto(bill, model));
+        }
+        return result;
+    }
+
+    // ===== NẠP DỮ LIỆU THEO LÔ =====
+    private ReadModel load(List<Order> orders) {
+        ReadModel model = new ReadModel();
+
+        List<Long> lazyOrderIds = new ArrayList<>();
+        Set<Long> tableIds = new HashSet<>();
+        Set<Long> employeeIds = new HashSet<>();
+        Set<Long> promotionIds = new HashSet<>();
+
+        for (Order order : orders) {
+            // Món ăn chưa được nạp → gom lại nạp 1 lần cho cả trang
+            if (order.getItems() != null && !Hibernate.isInitialized(order.getItems()) && order.getId() != null) {
+                lazyOrderIds.add(order.getId());
+            }
+            // Tham chiếu chỉ có ID (VD: gửi lên từ client) → cần tra lại DB
+            TableEntity table = order.getTable();
+            if (table != null && table.getId() != null
+                    && (!Hibernate.isInitialized(table) || table.getNumber() == null)) {
+                tableIds.add(table.getId());
+            }
+            User employee = order.getEmployee();
+            if (employee != null && employee.getId() != null
+                    && (!Hibernate.isInitialized(employee) || employee.getFullName() == null)) {
+                employeeIds.add(employee.getId());
+            }
+            Promotion promotion = order.getPromotion();
+            if (promotion != null && promotion.getId() != null
+                    && (!Hibernate.isInitialized(promotion) || promotion.getName() == null)) {
+                promotionIds.add(promotion.getId());
+            }
+        }
+
+        if (!lazyOrderIds.isEmpty()) {
+            for (OrderItemDTO line : orderItemRepo.findLinesByOrderIds(lazyOrderIds)) {
+                model.linesByOrder.computeIfAbsent(line.getOrderId(), k -> new ArrayList<>()).add(line);
+            }
+        }
+        if (!tableIds.isEmpty()) {
+            tableRepo.findAllById(tableIds).forEach(t -> model.tableNumbers.put(t.getId(), t.getNumber()));
+        }
+        if (!employeeIds.isEmpty()) {
+            userRepository.findAllById(employeeIds).forEach(u -> model.employeeNames.put(u.getId(), u.getFullName()));
+        }
+        if (!promotionIds.isEmpty()) {
+            promoRepo.findAllById(promotionIds).forEach(p -> model.promotionNames.put(p.getId(), p.getName()));
+        }
+        return model;
+    }
+
+    // Dữ liệu đã nạp theo lô cho 1 lần chuyển đổi
+    private static class ReadModel implements OrderDtoMapper.OrderRefs {
+        private final Map<Long, List<OrderItemDTO>> linesByOrder = new HashMap<>();
+        private final Map<Long, Integer> tableNumbers = new HashMap<>();
+        private final Map<Long, String> employeeNames = new HashMap<>();
+        private final Map<Long, String> promotionNames = new HashMap<>();
+
+        @Override
+        public Integer tableNumber(TableEntity table) {
+            Integer number = tableNumbers.get(table.getId());
+            return number != null ? number : table.getNumber();
+        }
+
+        @Override
+        public String employeeName(User employee) {
+            return employeeNames.containsKey(employee.getId())
+                    ? employeeNames.get(employee.getId())
+                    : employee.getFullName();
+        }
+
+        @Override
+        public String promotionName(Promotion promotion) {
+            String name = promotionNames.get(promotion.getId());
+            return name != null ? name : promotion.getName();
+        }
+
+        @Override
+        public List<OrderItemDTO> preloadedLines(Order order) {
+            if (order.getItems() == null || Hibernate.isInitialized(order.getItems())) {
+                return null;
+            }
+            return linesByOrder.getOrDefault(order.getId(), List.of());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.tranthanhsang.example304.entity.Bill;
+import com.tranthanhsang.example304.entity.Order;
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.Promotion;
+import com.tranthanhsang.example304.entity.TableEntity;
+import com.tranthanhsang.example304.model.User;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.payload.response.OrderDTO;
+import com.tranthanhsang.example304.payload.response.OrderItemDTO;
+
+// Bộ chuyển đổi duy nhất Order/Bill → DTO.
+// Duyệt danh sách món đúng 1 lần: vừa dựng OrderItemDTO, vừa cộng số lượng và tiền gốc.
+// Không truy cập DB: dữ liệu tham chiếu (bàn, nhân viên, khuyến mãi, món đã nạp sẵn) lấy qua OrderRefs.
+@Component
+public class OrderDtoMapper {
+
+    // Nguồn dữ liệu tham chiếu khi dựng DTO
+    public interface OrderRefs {
+        // Đọc thẳng từ entity (không nạp thêm gì)
+        OrderRefs FROM_ENTITY = new OrderRefs() {
+        };
+
+        default Integer tableNumber(TableEntity table) {
+            return table.getNumber();
+        }
+
+        default String employeeName(User employee) {
+            return employee.getFullName();
+        }
+
+        default String promotionName(Promotion promotion) {
+            return promotion.getName();
+        }
+
+        // Món đã nạp sẵn theo lô, null nếu phải đọc từ order.getItems()
+        default List<OrderItemDTO> preloadedLines(Order order) {
+            return null;
+        }
+
+        // ✅ Bàn / nhân viên / khuyến mãi của đơn (đều có thể null), dùng chung cho OrderDTO và BillDTO
+        default Header header(Order order) {
+            TableEntity table = order.getTable();
+            User employee = order.getEmployee();
+            Promotion promotion = order.getPromotion();
+            return new Header(
+                    table != null ? table.getId() : null,
+                    table != null ? tableNumber(table) : null,
+                    employee != null ? employee.getId() : null,
+                    employee != null ? employeeName(employee) : null,
+                    promotion != null ? promotion.getId() : null,
+                    promotion != null ? promotionName(promotion) : null);
+        }
+    }
+
+    public record Header(Long tableId, Integer tableNumber, Long employeeId, String employeeName,
+            Long promotionId, String promotionCode) {
+    }
+
+    public OrderDTO toOrderDto(Order order) {
+        return toOrderDto(order, OrderRefs.FROM_ENTITY);
+    }
+
+    public OrderDTO toOrderDto(Order order, OrderRefs refs) {
+        OrderDTO dto = new OrderDTO();
+        dto.setId(order.getId());
+        dto.setStatus(order.getStatus().name());
+        dto.setTotalAmount(order.getTotalAmount());
+        dto.setNotes(order.getNotes());
+        dto.setCreatedAt(order.getCreatedAt());
+
+        // Bàn, nhân viên, khuyến mãi
+        Header header = refs.header(order);
+        dto.setTableId(header.tableId());
+        dto.setTableNumber(header.tableNumber());
+        dto.setEmployeeId(header.employeeId());
+        dto.setEmployeeName(header.employeeName());
+        dto.setPromotionId(header.promotionId());
+        dto.setPromotionCode(header.promotionCode());
+
+        // Món ăn + tổng hợp
+        ItemSummary summary = summarize(order, refs);
+        dto.setItems(summary.lines());
+        dto.setTotalQuantity(summary.totalQuantity());
+        dto.setOriginalAmount(summary.originalAmount());
+        dto.setDiscountAmount(discountOf(summary.originalAmount(), order.getTotalAmount()));
+
+        return dto;
+    }
+
+    public BillDTO toBillDto(Bill bill) {
+        return toBillDto(bill, OrderRefs.FROM_ENTITY);
+    }
+
+    public BillDTO toBillDto(Bill bill, OrderRefs refs) {
+        Order order = bill.getOrder();
+
+        BillDTO dto = new BillDTO();
+        dto.setId(bill.getId());
+        dto.setTotalAmount(bill.getTotalAmount());
+        dto.setPaymentMethod(bill.getPaymentMethod().name());
+        dto.setPaymentStatus(bill.getPaymentStatus().name());
+        dto.setIssuedAt(bill.getIssuedAt());
+
+        // Đơn hàng
+        dto.setOrderId(order.getId());
+        dto.setOrderStatus(order.getStatus().name());
+        dto.setOrderTotal(order.getTotalAmount());
+        dto.setOrderNotes(order.getNotes());
+
+        // Bàn, nhân viên, khuyến mãi
+        Header header = refs.header(order);
+        dto.setTableId(header.tableId());
+        dto.setTableNumber(header.tableNumber());
+        dto.setEmployeeId(header.employeeId());
+        dto.setEmployeeName(header.employeeName());
+        dto.setPromotionId(header.promotionId());
+        dto.setPromotionCode(header.promotionCode());
+
+        // Món ăn + tổng hợp
+        ItemSummary summary = summarize(order, refs);
+        dto.setItems(summary.lines());
+        dto.setTotalQuantity(summary.totalQuantity());
+        dto.setOriginalAmount(summary.originalAmount());
+        dto.setDiscountAmount(discountOf(summary.originalAmount(), order.getTotalAmount()));
+
+        return dto;
+    }
+
+    // ===== 1 LẦN DUYỆT MÓN =====
+    private ItemSummary summarize(Order order, OrderRefs refs) {
+        int totalQuantity = 0;
+        BigDecimal originalAmount = BigDecimal.ZERO;
+
+        List<OrderItemDTO> preloaded = refs.preloadedLines(order);
+        if (preloaded != null) {
+            for (OrderItemDTO line : preloaded) {
+                totalQuantity += line.getQuantity();
+                originalAmount = originalAmount.add(line.getSubtotal());
+            }
+            return new ItemSummary(preloaded, totalQuantity, originalAmount);
+        }
+
+        List<OrderItem> items = order.getItems();
+        if (items == null || items.isEmpty()) {
+            return new ItemSummary(List.of(), 0, BigDecimal.ZERO);
+        }
+
+        Long orderId = order.getId();
+        List<OrderItemDTO> lines = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            Product product = item.getProduct();
+            lines.add(new OrderItemDTO(
+                    item.getId(),
+                    orderId,
+                    product.getId(),
+                    product.getName(),
+                    product.getImageUrl(),
+                    item.getQuantity(),
+                    item.getPrice(),
+                    item.getSubtotal()));
+            totalQuantity += item.getQuantity();
+            originalAmount = originalAmount.add(item.getSubtotal());
+        }
+        return new ItemSummary(lines, totalQuantity, originalAmount);
+    }
+
+    // ✅ discountAmount = tiền gốc - tổng tiền (không âm)
+    private BigDecimal discountOf(BigDecimal originalAmount, BigDecimal totalAmount) {
+        BigDecimal discountAmount = originalAmount.subtract(totalAmount);
+        return discountAmount.signum() > 0 ? discountAmount : BigDecimal.ZERO;
+    }
+
+    private record ItemSummary(List<OrderItemDTO> lines, int totalQuantity, BigDecimal originalAmount) {
+    }
+}
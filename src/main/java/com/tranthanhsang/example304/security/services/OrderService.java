@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.tranthanhsang.example304.entity.Order;
 import com.tranthanhsang.example304.entity.OrderItem;
@@ -19,10 +20,12 @@ import com.tranthanhsang.example304.entity.Product;
 import com.tranthanhsang.example304.entity.Promotion;
 import com.tranthanhsang.example304.entity.enums.OrderStatus;
 import com.tranthanhsang.example304.model.User;
+import com.tranthanhsang.example304.payload.response.CursorPage;
 import com.tranthanhsang.example304.payload.response.EmployeeSalesDTO;
 import com.tranthanhsang.example304.payload.response.OrderDTO;
 import com.tranthanhsang.example304.payload.response.OrderItemDTO;
 import com.tranthanhsang.example304.payload.response.ProductSalesDTO;
+import com.tranthanhsang.example304.payload.response.PromotionQuoteDTO;
 import com.tranthanhsang.example304.payload.response.RevenueCountDTO;
 import com.tranthanhsang.example304.repository.OrderRepository;
 import com.tranthanhsang.example304.repository.PromotionRepository;
@@ -33,6 +36,7 @@ import com.tranthanhsang.example304.entity.TableEntity;
 
 import java.util.function.Function;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Sort;
 
 import com.tranthanhsang.example304.entity.enums.Status;
@@ -55,18 +59,35 @@ public class OrderService {
     private ProductRepository productRepo;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private OrderDtoAssembler orderDtoAssembler;
+    @Autowired
+    private PromotionEngine promotionEngine;
+    @Autowired
+    private SalesRollupService salesRollupService;
+    @Autowired
+    private TopSellingTracker topSellingTracker;
+    @Autowired
+    private RevenueSeriesService revenueSeriesService;
 
     // Lấy tất cả đơn hàng
     public Page<OrderDTO> getAll(int page) {
         // 1. Tạo Pageable, 10 đơn hàng mỗi trang, sắp xếp theo ID giảm dần
         Pageable pageable = PageRequest.of(page, 12, Sort.by("id").descending());
 
-        // 2. Lấy dữ liệu đã phân trang từ repository
-        Page<Order> orderPage = orderRepo.findAll(pageable);
+        // 2. Lấy dữ liệu đã phân trang từ repository (kèm bàn, nhân viên, khuyến mãi)
+        Page<Order> orderPage = orderRepo.findAllWithRefs(pageable);
+
+        // 3. Chuyển đổi cả trang sang OrderDTO (món ăn được nạp theo lô)
+        List<OrderDTO> dtos = orderDtoAssembler.toOrderDtos(orderPage.getContent());
+        return new PageImpl<>(dtos, orderPage.getPageable(), orderPage.getTotalElements());
+    }
 
-        // 3. Chuyển đổi Page<Order> thành Page<OrderDTO> (dùng hàm convertToDTO của
-        // bạn)
-        return orderPage.map(this::convertToDTO);
+    // ✅ Lấy đơn hàng theo con trỏ (?after=), không OFFSET / COUNT → trang sâu vẫn nhanh như trang đầu
+    public CursorPage<OrderDTO> getAfter(String after, int limit) {
+        int size = PageCursor.clamp(limit);
+        List<Order> rows = orderRepo.findPageBefore(PageCursor.decode(after), PageRequest.of(0, size + 1));
+        return PageCursor.page(rows, size, Order::getId, orderDtoAssembler::toOrderDtos);
     }
 
     // Trong file OrderService.java
@@ -74,19 +95,14 @@ public class OrderService {
     // ... các hàm và @Autowired khác ...
 
     // Tạo mới đơn hàng (đã sửa lại theo cấu trúc của hàm update)
+    @Transactional
     public OrderDTO create(Order order) {
 
         order.setCreatedAt(LocalDateTime.now());
         order.setUpdatedAt(LocalDateTime.now());
 
-        // ✅ Gán khuyến mãi nếu có
-        Promotion promo = null;
-        if (order.getPromotion() != null && order.getPromotion().getId() != null) {
-            promo = promoRepo.findByIdWithProducts(order.getPromotion().getId()).orElse(null);
-            order.setPromotion(promo);
-        } else {
-            order.setPromotion(null);
-        }
+        // ✅ Khuyến mãi client chọn (null → server tự chọn khi tính tổng tiền)
+        Long requestedPromotionId = order.getPromotion() != null ? order.getPromotion().getId() : null;
 
         // ✅ Xử lý danh sách món ăn (items) theo cấu trúc giống hàm update
         if (order.getItems() != null) {
@@ -126,58 +142,15 @@ public class OrderService {
             table.setStatus(Status.OCCUPIED);
             tableRepo.save(table);
         }
-        // ✅ Tính tổng tiền gốc
-        BigDecimal total = BigDecimal.ZERO;
-        if (order.getItems() != null) {
-            total = order.getItems().stream()
-                    .map(OrderItem::getSubtotal)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        }
-
-        // ✅ Áp dụng khuyến mãi nếu hợp lệ và có món phù hợp
-        // (Toàn bộ logic này được giữ lại từ code gốc của bạn)
-        final Promotion finalPromo = promo;
-        if (finalPromo != null && Boolean.TRUE.equals(finalPromo.getIsActive())) {
-            LocalDate today = LocalDate.now();
-            boolean isValidDate = (finalPromo.getStartDate() == null || !today.isBefore(finalPromo.getStartDate())) &&
-                    (finalPromo.getEndDate() == null || !today.isAfter(finalPromo.getEndDate()));
-
-            if (isValidDate) {
-                BigDecimal discountBase = order.getItems().stream()
-                        .filter(item -> item.getProduct() != null &&
-                                finalPromo.getProducts().stream()
-                                        .anyMatch(p -> p.getId().equals(item.getProduct().getId())))
-                        .map(OrderItem::getSubtotal)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                BigDecimal discountedTotal = total;
-
-                if (discountBase.compareTo(BigDecimal.ZERO) > 0) {
-                    if (finalPromo.getDiscountPercentage() != null &&
-                            finalPromo.getDiscountPercentage().compareTo(BigDecimal.ZERO) > 0) {
-                        BigDecimal discountValue = discountBase
-                                .multiply(finalPromo.getDiscountPercentage().divide(new BigDecimal("100")));
-                        discountedTotal = total.subtract(discountValue);
-                    } else if (finalPromo.getDiscountAmount() != null &&
-                            finalPromo.getDiscountAmount().compareTo(BigDecimal.ZERO) > 0) {
-                        discountedTotal = total.subtract(finalPromo.getDiscountAmount());
-                    }
-                }
-
-                if (discountedTotal.compareTo(BigDecimal.ZERO) < 0) {
-                    discountedTotal = BigDecimal.ZERO;
-                }
-                order.setTotalAmount(discountedTotal);
-
-            } else {
-                order.setTotalAmount(total); // Khuyến mãi hết hạn
-            }
-        } else {
-            order.setTotalAmount(total); // Không có khuyến mãi
-        }
+        // ✅ Tính tổng tiền (đã áp dụng khuyến mãi nếu hợp lệ)
+        applyPromotion(order, requestedPromotionId);
 
         // ✅ Lưu đơn hàng và trả về DTO
         Order savedOrder = orderRepo.save(order);
+        // ✅ Đơn tạo thẳng ở trạng thái PAID → cộng vào thống kê như khi thanh toán (khớp với dựng lại từ lịch sử)
+        if (savedOrder.getStatus() == OrderStatus.PAID) {
+            salesRollupService.recordPaid(savedOrder);
+        }
         OrderDTO dto = convertToDTO(savedOrder);
 
         // ✅ Sau khi lưu, gửi thông báo realtime cho khách hàng tại bàn đó
@@ -190,10 +163,17 @@ public class OrderService {
         return dto;
     }
 
+    // ✅ Lưu đơn + trừ / cộng thống kê trong cùng 1 transaction
+    @Transactional
     public OrderDTO update(Long id, Order order) {
         Order existing = orderRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
+        // ✅ Đơn đang PAID: chụp phần đã cộng vào thống kê trước khi sửa để trừ lại
+        SalesRollupService.Contribution paidBefore = existing.getStatus() == OrderStatus.PAID
+                ? salesRollupService.contributionOf(existing)
+                : null;
+
         existing.setTable(order.getTable());
 
         if (order.getEmployee() != null && order.getEmployee().getId() != null) {
@@ -208,13 +188,12 @@ public class OrderService {
         existing.setNotes(order.getNotes());
         existing.setUpdatedAt(LocalDateTime.now());
 
-        // ✅ Gán khuyến mãi nếu có
-        Promotion promo = null;
-        if (order.getPromotion() != null && order.getPromotion().getId() != null) {
-            promo = promoRepo.findById(order.getPromotion().getId()).orElse(null);
-            existing.setPromotion(promo);
-        } else {
-            existing.setPromotion(null);
+        // ✅ Khuyến mãi client chọn (null → server tự chọn khi tính tổng tiền).
+        // Client gửi lại đúng khuyến mãi server đã tự chọn lần trước → vẫn coi là tự chọn
+        Long requestedPromotionId = order.getPromotion() != null ? order.getPromotion().getId() : null;
+        if (requestedPromotionId != null && Boolean.TRUE.equals(existing.getPromotionAuto())
+                && existing.getPromotion() != null && requestedPromotionId.equals(existing.getPromotion().getId())) {
+            requestedPromotionId = null;
         }
 
         // ✅ Xử lý danh sách món ăn
@@ -267,56 +246,16 @@ public class OrderService {
             }
         }
 
-        // ✅ Tính tổng tiền gốc
-        BigDecimal total = existing.getItems().stream()
-                .map(OrderItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // ✅ Áp dụng khuyến mãi nếu hợp lệ và có món phù hợp
-        final Promotion finalPromo = promo;
-        if (finalPromo != null && Boolean.TRUE.equals(finalPromo.getIsActive())) {
-            LocalDate today = LocalDate.now();
-            boolean isValidDate = (finalPromo.getStartDate() == null || !today.isBefore(finalPromo.getStartDate())) &&
-                    (finalPromo.getEndDate() == null || !today.isAfter(finalPromo.getEndDate()));
-
-            if (isValidDate) {
-                BigDecimal discountBase = existing.getItems().stream()
-                        .filter(item -> item.getProduct() != null &&
-                                finalPromo.getProducts().stream()
-                                        .anyMatch(p -> p.getId().equals(item.getProduct().getId())))
-                        .map(OrderItem::getSubtotal)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                BigDecimal discountedTotal = total;
-
-                if (discountBase.compareTo(BigDecimal.ZERO) > 0) {
-                    if (finalPromo.getDiscountPercentage() != null &&
-                            finalPromo.getDiscountPercentage().compareTo(BigDecimal.ZERO) > 0) {
-                        BigDecimal discountValue = discountBase
-                                .multiply(finalPromo.getDiscountPercentage())
-                                .divide(new BigDecimal("100"));
-                        discountedTotal = total.subtract(discountValue);
-                    } else if (finalPromo.getDiscountAmount() != null &&
-                            finalPromo.getDiscountAmount().compareTo(BigDecimal.ZERO) > 0) {
-                        discountedTotal = total.subtract(finalPromo.getDiscountAmount());
-                    }
-
-                    if (discountedTotal.compareTo(BigDecimal.ZERO) < 0) {
-                        discountedTotal = BigDecimal.ZERO;
-                    }
-
-                    existing.setTotalAmount(discountedTotal);
-                } else {
-                    existing.setTotalAmount(total); // ❌ Không có món nào phù hợp → không giảm
-                }
-            } else {
-                existing.setTotalAmount(total); // ❌ Khuyến mãi hết hạn
-            }
-        } else {
-            existing.setTotalAmount(total); // ❌ Không có khuyến mãi
-        }
+        // ✅ Tính tổng tiền (đã áp dụng khuyến mãi nếu hợp lệ)
+        applyPromotion(existing, requestedPromotionId);
 
         Order savedOrder = orderRepo.save(existing);
+        if (paidBefore != null) {
+            salesRollupService.apply(paidBefore, -1);
+        }
+        if (savedOrder.getStatus() == OrderStatus.PAID) {
+            salesRollupService.recordPaid(savedOrder);
+        }
         OrderDTO dto = convertToDTO(savedOrder);
 
         // ✅ Sau khi cập nhật, cũng gửi realtime cho khách hàng tại bàn đó
@@ -329,150 +268,56 @@ public class OrderService {
         return dto;
     }
 
+    // ✅ Tổng tiền đơn hàng: tổng subtotal các món, trừ khuyến mãi nếu còn hiệu lực
+    // và có ít nhất 1 món thuộc khuyến mãi (dùng chung cho create/update).
+    // Client không chọn khuyến mãi → bộ máy khuyến mãi tự chọn khuyến mãi (hoặc tổ hợp cộng dồn) tốt nhất,
+    // đơn lưu khuyến mãi giảm nhiều nhất.
+    private void applyPromotion(Order target, Long requestedPromotionId) {
+        PromotionQuoteDTO quote = promotionEngine.select(target.getItems(), requestedPromotionId, LocalDate.now());
+        Promotion promo = quote.getPromotionId() != null
+                ? promoRepo.findById(quote.getPromotionId()).orElse(null)
+                : null;
+        target.setPromotion(promo);
+        target.setPromotionAuto(requestedPromotionId == null);
+        target.setTotalAmount(quote.getTotalAmount());
+    }
+
+    // Tính với entity Promotion có sẵn (biên dịch tại chỗ)
+    public BigDecimal calculateTotal(List<OrderItem> items, Promotion promo, LocalDate today) {
+        PromotionRule rule = promo != null ? PromotionRule.compile(promo) : null;
+        return PromotionEngine.evaluate(items, rule, today).getTotalAmount();
+    }
+
     // Xóa đơn hàng
+    @Transactional
     public void delete(Long id) {
         Order order = orderRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found: " + id));
 
+        // Đơn đã PAID → trừ khỏi bảng tổng hợp doanh số
+        if (order.getStatus() == OrderStatus.PAID) {
+            salesRollupService.apply(salesRollupService.contributionOf(order), -1);
+        }
+
         // Xóa đơn hàng, JPA sẽ tự động xóa luôn các OrderItem nhờ cascade
         orderRepo.delete(order);
     }
 
     // Chuyển đổi Order entity sang OrderDTO
     public OrderDTO convertToDTO(Order order) {
-        OrderDTO dto = new OrderDTO();
-        dto.setId(order.getId());
-        dto.setStatus(order.getStatus().name());
-        dto.setTotalAmount(order.getTotalAmount());
-        dto.setNotes(order.getNotes());
-        dto.setCreatedAt(order.getCreatedAt());
-
-        dto.setTotalQuantity(order.getItems().stream()
-                .mapToInt(OrderItem::getQuantity)
-                .sum());
-
-        // Bàn
-        if (order.getTable() != null) {
-            dto.setTableId(order.getTable().getId());
-
-            // ✅ Fetch lại từ DB để lấy số bàn đầy đủ
-            TableEntity fullTable = tableRepo.findById(order.getTable().getId()).orElse(null);
-            if (fullTable != null) {
-                dto.setTableNumber(fullTable.getNumber());
-            }
-        }
-
-        // Nhân viên
-        if (order.getEmployee() != null) {
-            dto.setEmployeeId(order.getEmployee().getId());
-            dto.setEmployeeName(order.getEmployee().getFullName());
-        }
-
-        // Khuyến mãi (có thể null)
-        if (order.getPromotion() != null) {
-            dto.setPromotionId(order.getPromotion().getId());
-            dto.setPromotionCode(order.getPromotion().getName());
-        } else {
-            dto.setPromotionId(null);
-            dto.setPromotionCode(null);
-        }
-
-        // Món ăn
-        List<OrderItemDTO> itemDTOs = order.getItems().stream().map(item -> {
-            OrderItemDTO itemDTO = new OrderItemDTO();
-
-            // ✅ Fetch lại từ DB để lấy tên sản phẩm đầy đủ
-            Product fullProduct = productRepo.findById(item.getProduct().getId()).orElse(null);
-            if (fullProduct != null) {
-                itemDTO.setProductName(fullProduct.getName());
-            }
-            itemDTO.setId(item.getId());
-            itemDTO.setProductId(item.getProduct().getId());
-            itemDTO.setImageUrl(fullProduct.getImageUrl()); // ✅ gán ảnh vào DTO
-            itemDTO.setQuantity(item.getQuantity());
-            itemDTO.setPrice(item.getPrice());
-            itemDTO.setSubtotal(item.getSubtotal());
-            itemDTO.setOrderId(order.getId());
-            return itemDTO;
-        }).toList();
-
-        dto.setItems(itemDTOs);
-
-        // ✅ Tính originalAmount
-        BigDecimal originalAmount = order.getItems().stream()
-                .map(OrderItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        dto.setOriginalAmount(originalAmount);
-
-        // ✅ Tính discountAmount
-        BigDecimal discountAmount = originalAmount.subtract(order.getTotalAmount());
-        dto.setDiscountAmount(discountAmount.compareTo(BigDecimal.ZERO) > 0 ? discountAmount : BigDecimal.ZERO);
-
-        return dto;
+        return orderDtoAssembler.toOrderDto(order);
     }
 
     // Lấy đơn hàng theo trạng thái
     public List<OrderDTO> getOrdersByStatus(OrderStatus status) {
         List<Order> orders = orderRepo.findByStatus(status);
-        return orders.stream().map(this::convertToDTO).toList();
+        return orderDtoAssembler.toOrderDtos(orders);
     }
 
     // Lấy đơn hàng theo ID bàn
     public List<OrderDTO> getOrdersByTable(Long tableId) {
         List<Order> orders = orderRepo.findByTableId(tableId);
-
-        return orders.stream().map(order -> {
-            OrderDTO dto = new OrderDTO();
-            dto.setId(order.getId());
-            dto.setStatus(order.getStatus().name());
-            dto.setTotalAmount(order.getTotalAmount());
-            dto.setNotes(order.getNotes());
-            dto.setTotalQuantity(order.getItems().stream()
-                    .mapToInt(OrderItem::getQuantity)
-                    .sum());
-
-            // Bàn
-            dto.setTableId(order.getTable().getId());
-            dto.setTableNumber(order.getTable().getNumber());
-
-            // Nhân viên
-            if (order.getEmployee() != null) {
-                dto.setEmployeeId(order.getEmployee().getId());
-                dto.setEmployeeName(order.getEmployee().getFullName());
-            }
-
-            // Khuyến mãi
-            if (order.getPromotion() != null) {
-                dto.setPromotionId(order.getPromotion().getId());
-                dto.setPromotionCode(order.getPromotion().getName());
-            }
-
-            // Món ăn
-            List<OrderItemDTO> itemDTOs = order.getItems().stream().map(item -> {
-                OrderItemDTO itemDTO = new OrderItemDTO();
-                itemDTO.setProductId(item.getProduct().getId());
-                itemDTO.setProductName(item.getProduct().getName());
-                itemDTO.setQuantity(item.getQuantity());
-                itemDTO.setPrice(item.getPrice());
-                itemDTO.setSubtotal(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-                itemDTO.setOrderId(order.getId());
-                return itemDTO;
-            }).toList();
-
-            dto.setItems(itemDTOs);
-
-            // ✅ Tính originalAmount
-            BigDecimal originalAmount = order.getItems().stream()
-                    .map(OrderItem::getSubtotal)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            dto.setOriginalAmount(originalAmount);
-
-            // ✅ Tính discountAmount
-            BigDecimal discountAmount = originalAmount.subtract(order.getTotalAmount());
-            dto.setDiscountAmount(discountAmount.compareTo(BigDecimal.ZERO) > 0 ? discountAmount : BigDecimal.ZERO);
-
-            return dto;
-        }).toList();
+        return orderDtoAssembler.toOrderDtos(orders);
     }
 
     // Lấy đơn hàng theo ID
@@ -480,58 +325,7 @@ public class OrderService {
         Order order = orderRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy đơn hàng với ID: " + id));
 
-        OrderDTO dto = new OrderDTO();
-        dto.setId(order.getId());
-        dto.setStatus(order.getStatus().name());
-        dto.setTotalAmount(order.getTotalAmount());
-        dto.setNotes(order.getNotes());
-        dto.setTotalQuantity(order.getItems().stream()
-                .mapToInt(OrderItem::getQuantity)
-                .sum());
-
-        // Bàn
-        if (order.getTable() != null) {
-            dto.setTableId(order.getTable().getId());
-            dto.setTableNumber(order.getTable().getNumber());
-        }
-
-        // Nhân viên
-        if (order.getEmployee() != null) {
-            dto.setEmployeeId(order.getEmployee().getId());
-            dto.setEmployeeName(order.getEmployee().getFullName());
-        }
-
-        // Khuyến mãi
-        if (order.getPromotion() != null) {
-            dto.setPromotionId(order.getPromotion().getId());
-            dto.setPromotionCode(order.getPromotion().getName());
-        }
-
-        // Món ăn
-        List<OrderItemDTO> itemDTOs = order.getItems().stream().map(item -> {
-            OrderItemDTO itemDTO = new OrderItemDTO();
-            itemDTO.setProductId(item.getProduct().getId());
-            itemDTO.setProductName(item.getProduct().getName());
-            itemDTO.setQuantity(item.getQuantity());
-            itemDTO.setPrice(item.getPrice());
-            itemDTO.setSubtotal(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-            itemDTO.setOrderId(order.getId());
-            return itemDTO;
-        }).toList();
-
-        dto.setItems(itemDTOs);
-
-        // ✅ Tính originalAmount
-        BigDecimal originalAmount = order.getItems().stream()
-                .map(OrderItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        dto.setOriginalAmount(originalAmount);
-
-        // ✅ Tính discountAmount
-        BigDecimal discountAmount = originalAmount.subtract(order.getTotalAmount());
-        dto.setDiscountAmount(discountAmount.compareTo(BigDecimal.ZERO) > 0 ? discountAmount : BigDecimal.ZERO);
-
-        return dto;
+        return orderDtoAssembler.toOrderDto(order);
     }
 
     public OrderDTO getActiveOrderForEdit(Long tableId) {
@@ -545,27 +339,26 @@ public class OrderService {
         return convertToDTO(order);
     }
 
+    // ✅ Thống kê dashboard đọc từ bảng tổng hợp theo ngày (SalesRollupService), không quét orders / order_items
     public List<ProductSalesDTO> getTopSellingProducts(int limit) {
-        // 1. Tạo Pageable với giới hạn (Limit)
-        // Pageable ở đây chỉ dùng để giới hạn số lượng trả về (Limit)
-        Pageable pageable = PageRequest.of(0, limit);
+        return salesRollupService.topSellingProducts(limit);
+    }
 
-        // 2. Gọi hàm Repository với truy vấn JPQL (đã có @Query)
-        return orderRepo.findTopSellingProducts(pageable);
+    // ✅ Có cửa sổ (hour | today | week) → đọc từ bộ đếm trong bộ nhớ; không có / "all" → toàn thời gian
+    public List<ProductSalesDTO> getTopSellingProducts(int limit, String window) {
+        TopSellingTracker.Window w = TopSellingTracker.Window.parse(window);
+        return w != null ? topSellingTracker.top(w, limit) : getTopSellingProducts(limit);
     }
 
     public List<RevenueCountDTO> getDailyRevenueAndOrderCount(int days) {
-        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        return orderRepo.findDailyPaidOrderStats(startDate);
+        return revenueSeriesService.dailyRevenue(days);
     }
 
     public List<ProductSalesDTO> getRevenueByCategoryStats() {
-        // Gọi hàm Repository mới với truy vấn JPQL
-        return orderRepo.findRevenueByCategoryStats();
+        return salesRollupService.revenueByCategory();
     }
 
     public List<EmployeeSalesDTO> getTopSellingEmployees(int days) {
-        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        return orderRepo.findTopSellingEmployees(startDate);
+        return salesRollupService.topSellingEmployees(days);
     }
 }
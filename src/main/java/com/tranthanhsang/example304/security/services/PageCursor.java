@@ -0,0 +1,57 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import com.tranthanhsang.example304.payload.response.CursorPage;
+
+// Phân trang theo con trỏ (keyset / seek) cho danh sách mới nhất trước:
+// WHERE id < :cursor ORDER BY id DESC LIMIT n → dùng index khóa chính, không OFFSET, không COUNT(*).
+// Con trỏ gửi cho client là chuỗi mờ có phiên bản (base64 của "v1:<id>", không mã hóa, ai cũng giải được):
+// client chỉ gửi lại nguyên văn, server đổi định dạng sau mà không vỡ API.
+public final class PageCursor {
+    public static final int DEFAULT_LIMIT = 12;
+    public static final int MAX_LIMIT = 100;
+
+    private static final String PREFIX = "v1:";
+
+    private PageCursor() {
+    }
+
+    public static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ✅ Con trỏ → id: null / rỗng = trang đầu (Long.MAX_VALUE)
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(raw);
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("❌ Con trỏ phân trang không hợp lệ: " + cursor);
+        }
+    }
+
+    // Giới hạn số dòng mỗi trang trong [1, MAX_LIMIT]
+    public static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    // ✅ rows lấy limit + 1 dòng: có dòng dư → còn trang sau, con trỏ = id dòng cuối của trang này
+    public static <E, T> CursorPage<T> page(List<E> rows, int limit, Function<E, Long> idOf,
+            Function<List<E>, List<T>> convert) {
+        boolean hasNext = rows.size() > limit;
+        List<E> content = hasNext ? rows.subList(0, limit) : rows;
+        String next = hasNext ? encode(idOf.apply(content.get(content.size() - 1))) : null;
+        return new CursorPage<>(convert.apply(content), next, limit);
+    }
+}
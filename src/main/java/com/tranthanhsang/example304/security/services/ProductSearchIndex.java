@@ -0,0 +1,362 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.repository.ProductRepository;
+
+// Chỉ mục tìm kiếm sản phẩm trong bộ nhớ (inverted index).
+// - Tên + mô tả được chuẩn hóa (bỏ dấu, chữ thường), tách từ, lưu mọi tiền tố của từ → "tra da" khớp "Trà đào".
+// - Mỗi từ / tiền tố / danh mục / mức giá ứng với 1 BitSet các slot sản phẩm; lọc = phép AND trên BitSet.
+// - Xếp hạng: khớp trọn từ trong tên > tiền tố trong tên > mô tả; cộng thêm nếu tên chứa nguyên cụm từ khóa.
+// - Nạp lần đầu từ ảnh chụp thực đơn, sau đó cập nhật từng sản phẩm khi ProductService / CategoryService ghi.
+@Service
+public class ProductSearchIndex {
+    private static final double NAME_TOKEN = 3.0;
+    private static final double NAME_PREFIX = 2.0;
+    private static final double DESCRIPTION_TOKEN = 1.0;
+    private static final double DESCRIPTION_PREFIX = 0.5;
+    private static final double PHRASE_BONUS = 2.0;
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean loaded;
+    // Sản phẩm thay đổi trước khi chỉ mục được nạp → nạp lại từ DB khi dựng
+    private final Set<Long> pendingIds = new HashSet<>();
+    // Tăng mỗi lần chỉ mục thay đổi (dùng trong ETag)
+    private volatile long version;
+
+    // slot ↔ sản phẩm
+    private final Map<Long, Integer> slotOf = new HashMap<>();
+    private final List<Doc> docs = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+
+    // Posting list: từ / tiền tố → slot
+    private final Map<String, BitSet> nameTokens = new HashMap<>();
+    private final Map<String, BitSet> namePrefixes = new HashMap<>();
+    private final Map<String, BitSet> descriptionTokens = new HashMap<>();
+    private final Map<String, BitSet> descriptionPrefixes = new HashMap<>();
+    private final Map<String, BitSet> categories = new HashMap<>();
+    private final NavigableMap<BigDecimal, BitSet> prices = new TreeMap<>();
+
+    private record Doc(Long productId, Long categoryId, String category, BigDecimal price, String phrase,
+            Set<String> nameTokens, Set<String> namePrefixes,
+            Set<String> descriptionTokens, Set<String> descriptionPrefixes) {
+    }
+
+    public long version() {
+        return version;
+    }
+
+    // ✅ Tìm kiếm: trả về id sản phẩm đã xếp hạng (có từ khóa) hoặc theo id tăng dần (chỉ lọc)
+    public List<Long> search(String keyword, String categoryName, BigDecimal minPrice, BigDecimal maxPrice) {
+        ensureLoaded();
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(VietnameseText.tokens(keyword)));
+
+        lock.readLock().lock();
+        try {
+            BitSet candidates = (BitSet) live.clone();
+
+            if (categoryName != null && !categoryName.isBlank()) {
+                and(candidates, categories.get(VietnameseText.fold(categoryName)));
+            }
+            if (minPrice != null || maxPrice != null) {
+                and(candidates, priceRange(minPrice, maxPrice));
+            }
+            // Mỗi từ khóa phải khớp (tiền tố) trong tên hoặc mô tả
+            for (String term : terms) {
+                BitSet matches = new BitSet();
+                or(matches, namePrefixes.get(term));
+                or(matches, descriptionPrefixes.get(term));
+                candidates.and(matches);
+                if (candidates.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(candidates.cardinality());
+            String phrase = String.join(" ", terms);
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                Doc doc = docs.get(slot);
+                hits.add(new Hit(doc.productId(), terms.isEmpty() ? 0 : score(doc, terms, phrase)));
+            }
+            hits.sort((a, b) -> a.score() != b.score()
+                    ? Double.compare(b.score(), a.score())
+                    : Long.compare(a.productId(), b.productId()));
+
+            List<Long> ids = new ArrayList<>(hits.size());
+            for (Hit hit : hits) {
+                ids.add(hit.productId());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ✅ Cập nhật sản phẩm sau khi ghi (sau commit): còn trong DB → đánh chỉ mục lại, đã xóa → bỏ khỏi chỉ mục
+    public void refresh(Long productId) {
+        refresh(List.of(productId));
+    }
+
+    public void refresh(Collection<Long> productIds) {
+        Set<Long> ids = new HashSet<>(productIds);
+        if (!ids.isEmpty()) {
+            TransactionHooks.afterCommit(() -> apply(ids));
+        }
+    }
+
+    // Đổi tên danh mục → đánh chỉ mục lại các sản phẩm thuộc danh mục đó
+    public void refreshCategory(Long categoryId) {
+        TransactionHooks.afterCommit(() -> {
+            Set<Long> ids = new HashSet<>();
+            lock.readLock().lock();
+            try {
+                for (Doc doc : docs) {
+                    if (doc != null && categoryId.equals(doc.categoryId())) {
+                        ids.add(doc.productId());
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            apply(ids);
+        });
+    }
+
+    // ===== NẠP / CẬP NHẬT =====
+    private void apply(Set<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                pendingIds.addAll(ids);
+                return;
+            }
+            reload(ids);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            for (Product product : menuSnapshotService.current().products()) {
+                index(product);
+            }
+            reload(pendingIds);
+            pendingIds.clear();
+            loaded = true;
+            System.out.println("🔎 Đã dựng chỉ mục tìm kiếm: " + slotOf.size() + " sản phẩm");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Gọi khi đang giữ write lock
+    private void reload(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        tx.setReadOnly(true);
+        List<Product> products = tx.execute(status -> productRepository.findAllById(ids));
+
+        Set<Long> missing = new HashSet<>(ids);
+        for (Product product : products) {
+            index(product);
+            missing.remove(product.getId());
+        }
+        for (Long id : missing) {
+            remove(id);
+        }
+    }
+
+    private void index(Product product) {
+        remove(product.getId());
+
+        List<String> nameTerms = VietnameseText.tokens(product.getName());
+        List<String> descriptionTerms = VietnameseText.tokens(product.getDescription());
+        Doc doc = new Doc(
+                product.getId(),
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                product.getCategory() != null ? VietnameseText.fold(product.getCategory().getName()) : null,
+                product.getPrice(),
+                String.join(" ", nameTerms),
+                new HashSet<>(nameTerms),
+                prefixesOf(nameTerms),
+                new HashSet<>(descriptionTerms),
+                prefixesOf(descriptionTerms));
+
+        int slot = freeSlots.isEmpty() ? docs.size() : freeSlots.pop();
+        if (slot == docs.size()) {
+            docs.add(doc);
+        } else {
+            docs.set(slot, doc);
+        }
+        slotOf.put(doc.productId(), slot);
+        live.set(slot);
+
+        post(nameTokens, doc.nameTokens(), slot);
+        post(namePrefixes, doc.namePrefixes(), slot);
+        post(descriptionTokens, doc.descriptionTokens(), slot);
+        post(descriptionPrefixes, doc.descriptionPrefixes(), slot);
+        if (doc.category() != null) {
+            categories.computeIfAbsent(doc.category(), k -> new BitSet()).set(slot);
+        }
+        if (doc.price() != null) {
+            prices.computeIfAbsent(doc.price(), k -> new BitSet()).set(slot);
+        }
+        version++;
+    }
+
+    private void remove(Long productId) {
+        Integer slot = slotOf.remove(productId);
+        if (slot == null) {
+            return;
+        }
+        Doc doc = docs.get(slot);
+        unpost(nameTokens, doc.nameTokens(), slot);
+        unpost(namePrefixes, doc.namePrefixes(), slot);
+        unpost(descriptionTokens, doc.descriptionTokens(), slot);
+        unpost(descriptionPrefixes, doc.descriptionPrefixes(), slot);
+        if (doc.category() != null) {
+            unpost(categories, Set.of(doc.category()), slot);
+        }
+        if (doc.price() != null) {
+            BitSet bits = prices.get(doc.price());
+            bits.clear(slot);
+            if (bits.isEmpty()) {
+                prices.remove(doc.price());
+            }
+        }
+        live.clear(slot);
+        docs.set(slot, null);
+        freeSlots.push(slot);
+        version++;
+    }
+
+    // ===== XẾP HẠNG =====
+    private double score(Doc doc, List<String> terms, String phrase) {
+        double score = 0;
+        for (String term : terms) {
+            if (doc.nameTokens().contains(term)) {
+                score += NAME_TOKEN;
+            } else if (doc.namePrefixes().contains(term)) {
+                score += NAME_PREFIX;
+            } else if (doc.descriptionTokens().contains(term)) {
+                score += DESCRIPTION_TOKEN;
+            } else {
+                score += DESCRIPTION_PREFIX;
+            }
+        }
+        if (doc.phrase().contains(phrase)) {
+            score += PHRASE_BONUS;
+            if (doc.phrase().startsWith(phrase)) {
+                score += PHRASE_BONUS / 2;
+            }
+        }
+        return score;
+    }
+
+    private record Hit(Long productId, double score) {
+    }
+
+    // ===== BITSET =====
+    private BitSet priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        NavigableMap<BigDecimal, BitSet> range = prices;
+        if (minPrice != null) {
+            range = range.tailMap(minPrice, true);
+        }
+        if (maxPrice != null) {
+            range = range.headMap(maxPrice, true);
+        }
+        BitSet result = new BitSet();
+        for (BitSet bits : range.values()) {
+            result.or(bits);
+        }
+        return result;
+    }
+
+    private static void and(BitSet target, BitSet other) {
+        if (other == null) {
+            target.clear();
+        } else {
+            target.and(other);
+        }
+    }
+
+    private static void or(BitSet target, BitSet other) {
+        if (other != null) {
+            target.or(other);
+        }
+    }
+
+    private static Set<String> prefixesOf(List<String> terms) {
+        Set<String> prefixes = new HashSet<>();
+        for (String term : terms) {
+            for (int len = 1; len <= term.length(); len++) {
+                prefixes.add(term.substring(0, len));
+            }
+        }
+        return prefixes;
+    }
+
+    private static void post(Map<String, BitSet> postings, Set<String> terms, int slot) {
+        for (String term : terms) {
+            postings.computeIfAbsent(term, k -> new BitSet()).set(slot);
+        }
+    }
+
+    private static void unpost(Map<String, BitSet> postings, Set<String> terms, int slot) {
+        for (String term : terms) {
+            BitSet bits = postings.get(term);
+            if (bits != null) {
+                bits.clear(slot);
+                if (bits.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
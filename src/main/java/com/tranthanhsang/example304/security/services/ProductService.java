@@ -4,17 +4,10 @@ import com.tranthanhsang.example304.entity.Product;
 import com.tranthanhsang.example304.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
-
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Page;
 
 @Service
 public class ProductService {
@@ -23,12 +16,12 @@ public class ProductService {
     private ProductRepository productRepository;
     @Autowired
     private FileUploadService fileUploadService;
-
-    // Lấy tất cả Product
-    public Page<Product> getAllPaged(int page) {
-        Pageable pageable = PageRequest.of(page, 12, Sort.by("id").descending()); // 👈 10 sản phẩm mỗi trang
-        return productRepository.findAll(pageable);
-    }
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    @Autowired
+    private ProductSuggestService productSuggestService;
 
     private void validateProductFields(Product product, boolean isCreation) {
         if (product.getName() == null || product.getName().trim().isEmpty()) {
@@ -62,7 +55,11 @@ public class ProductService {
 
         product.setCreatedAt(LocalDateTime.now());
         product.setUpdatedAt(LocalDateTime.now());
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        menuSnapshotService.invalidate();
+        productSearchIndex.refresh(saved.getId());
+        productSuggestService.refresh(saved.getId());
+        return saved;
     }
 
     // Cập nhật Product
@@ -95,7 +92,11 @@ public class ProductService {
         existing.setIsActive(product.getIsActive());
         existing.setUpdatedAt(LocalDateTime.now());
 
-        return productRepository.save(existing);
+        Product saved = productRepository.save(existing);
+        menuSnapshotService.invalidate();
+        productSearchIndex.refresh(saved.getId());
+        productSuggestService.refresh(saved.getId());
+        return saved;
     }
 
     // Xóa Product
@@ -109,6 +110,9 @@ public class ProductService {
             // 🟢 Thử xóa sản phẩm trong DB
             productRepository.deleteById(id);
             productRepository.flush(); // ép Hibernate thực thi SQL ngay
+            menuSnapshotService.invalidate();
+            productSearchIndex.refresh(id);
+            productSuggestService.refresh(id);
 
             // 🟢 Xóa thành công → giờ mới xóa ảnh
             if (imagePath != null) {
@@ -126,72 +130,4 @@ public class ProductService {
         return productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy sản phẩm với ID: " + id));
     }
-
-    // Lấy sản phẩm theo danh mục
-    public Page<Product> getByCategoryName(String name, Pageable pageable) {
-        return productRepository.findByCategory_NameIgnoreCase(name, pageable);
-    }
-
-    // Lọc sản phẩm theo nhiều tiêu chí
-    public List<Product> filterProducts(String categoryName, BigDecimal minPrice, BigDecimal maxPrice,
-            String sortBy, String order) {
-        Specification<Product> spec = Specification.where(null);
-
-        // Lọc theo tên danh mục (không phân biệt hoa thường)
-        if (categoryName != null && !categoryName.isBlank()) {
-            spec = spec.and((root, query, cb) -> cb.equal(cb.lower(root.get("category").get("name")),
-                    categoryName.toLowerCase()));
-        }
-
-        // Lọc theo giá tối thiểu
-        if (minPrice != null) {
-            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice));
-        }
-
-        // Lọc theo giá tối đa
-        if (maxPrice != null) {
-            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice));
-        }
-
-        // Xử lý sắp xếp
-        Sort sort;
-        try {
-            sort = order.equalsIgnoreCase("desc")
-                    ? Sort.by(sortBy).descending()
-                    : Sort.by(sortBy).ascending();
-        } catch (Exception e) {
-            sort = Sort.by("id").ascending(); // fallback nếu sortBy sai
-        }
-
-        return productRepository.findAll(spec, sort);
-    }
-
-    public Page<Product> searchWithFilter(String keyword, String categoryName,
-            BigDecimal minPrice, BigDecimal maxPrice,
-            Pageable pageable) {
-
-        Specification<Product> spec = Specification.where(null);
-
-        // Phần logic Specification để lọc dữ liệu của bạn giữ nguyên, nó đã rất tốt.
-        if (keyword != null && !keyword.isBlank()) {
-            String likeKeyword = "%" + keyword.toLowerCase() + "%";
-            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("name")), likeKeyword));
-        }
-
-        if (categoryName != null && !categoryName.isBlank()) {
-            spec = spec.and((root, query, cb) -> cb.equal(cb.lower(root.get("category").get("name")),
-                    categoryName.toLowerCase()));
-        }
-
-        if (minPrice != null) {
-            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice));
-        }
-
-        if (maxPrice != null) {
-            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice));
-        }
-
-        return productRepository.findAll(spec, pageable);
-    }
-
 }
@@ -0,0 +1,147 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.payload.response.ProductSalesDTO;
+import com.tranthanhsang.example304.payload.response.ProductSuggestionDTO;
+import com.tranthanhsang.example304.repository.DailyProductSalesRepository;
+import com.tranthanhsang.example304.repository.ProductRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Gợi ý tên sản phẩm khi gõ (typeahead) từ SuggestTrie trong bộ nhớ.
+// Request đọc chỉ lấy tham chiếu trie hiện tại (không khóa, không DB).
+// Ghi sản phẩm → cập nhật đúng sản phẩm đó rồi dựng lại trie từ dữ liệu trong bộ nhớ (không nạp lại cả thực đơn).
+// Lượt bán (trọng số) được nạp lại định kỳ ở luồng nền.
+@Service
+public class ProductSuggestService {
+    @Value("${app.products.suggest.top-k:10}")
+    private int topK;
+
+    @Value("${app.products.suggest.weights-ttl-minutes:10}")
+    private long weightsTtlMinutes;
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private DailyProductSalesRepository productSalesRepository;
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Dữ liệu nguồn của trie, chỉ sửa trong các hàm synchronized
+    private final Map<Long, SuggestTrie.Entry> entries = new HashMap<>();
+    private Map<Long, Long> weights = Map.of();
+
+    private volatile SuggestTrie trie;
+    private volatile long weightsLoadedAt;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    // Luồng riêng cho việc nạp lại (truy vấn DB + dựng trie), không chiếm ForkJoin common pool
+    private final ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "product-suggest-reload");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PreDestroy
+    void shutdown() {
+        reloadExecutor.shutdownNow();
+    }
+
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        SuggestTrie current = trie;
+        if (current == null) {
+            current = loadAll();
+        } else if (weightsExpired() && reloading.compareAndSet(false, true)) {
+            // Nạp lại lượt bán ở luồng nền, request hiện tại vẫn dùng trie cũ
+            reloadExecutor.execute(() -> {
+                try {
+                    loadAll();
+                } finally {
+                    reloading.set(false);
+                }
+            });
+        }
+        return current.suggest(prefix, Math.max(0, Math.min(limit, topK)));
+    }
+
+    // ✅ Cập nhật 1 sản phẩm sau khi ghi (sau commit)
+    public void refresh(Long productId) {
+        TransactionHooks.afterCommit(() -> apply(productId));
+    }
+
+    private synchronized void apply(Long productId) {
+        if (trie == null) {
+            return; // chưa dựng → lần dựng đầu sẽ đọc dữ liệu mới
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        tx.setReadOnly(true);
+        Optional<Product> product = tx.execute(status -> productRepository.findById(productId));
+
+        if (product.isPresent() && isSuggestable(product.get())) {
+            entries.put(productId, entryOf(product.get()));
+        } else {
+            entries.remove(productId);
+        }
+        trie = SuggestTrie.build(new ArrayList<>(entries.values()), topK);
+    }
+
+    private synchronized SuggestTrie loadAll() {
+        if (trie != null && !weightsExpired()) {
+            return trie;
+        }
+        long startedAt = System.nanoTime();
+
+        Map<Long, Long> sold = new HashMap<>();
+        for (ProductSalesDTO row : productSalesRepository.findTopSelling(Pageable.unpaged())) {
+            sold.put(row.getProductId(), row.getTotalQuantity());
+        }
+        weights = sold;
+        weightsLoadedAt = System.currentTimeMillis();
+
+        entries.clear();
+        for (Product product : menuSnapshotService.current().products()) {
+            if (isSuggestable(product)) {
+                entries.put(product.getId(), entryOf(product));
+            }
+        }
+        trie = SuggestTrie.build(new ArrayList<>(entries.values()), topK);
+
+        System.out.println("🔤 Dựng trie gợi ý: " + trie.size() + " sản phẩm trong "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) + " ms");
+        return trie;
+    }
+
+    private boolean weightsExpired() {
+        return System.currentTimeMillis() - weightsLoadedAt > TimeUnit.MINUTES.toMillis(weightsTtlMinutes);
+    }
+
+    // Sản phẩm đã ngừng bán thì không gợi ý trên màn hình order
+    private static boolean isSuggestable(Product product) {
+        return product.getName() != null && !Boolean.FALSE.equals(product.getIsActive());
+    }
+
+    private SuggestTrie.Entry entryOf(Product product) {
+        return new SuggestTrie.Entry(product.getId(), product.getName(), product.getImageUrl(), product.getPrice(),
+                weights.getOrDefault(product.getId(), 0L));
+    }
+}
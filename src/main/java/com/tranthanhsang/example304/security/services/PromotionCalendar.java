@@ -0,0 +1,77 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Chỉ mục khoảng thời gian cho khuyến mãi [startDate, endDate].
+// Các mốc (startDate, endDate + 1) chia trục ngày thành các đoạn; trong 1 đoạn tập khuyến mãi hiệu lực không đổi.
+// Tra 1 ngày = tìm nhị phân ra đoạn + đọc BitSet của đoạn (BitSet dựng lần đầu được hỏi rồi giữ lại).
+final class PromotionCalendar {
+    private final long[] boundaries; // epochDay các mốc, tăng dần
+    private final int[] firstSegment; // đoạn đầu tiên mỗi khuyến mãi có hiệu lực
+    private final int[] lastSegment; // đoạn cuối cùng (tính cả)
+    private final boolean[] active;
+    private final AtomicReferenceArray<BitSet> segments;
+
+    PromotionCalendar(List<PromotionRule> rules) {
+        TreeSet<Long> points = new TreeSet<>();
+        for (PromotionRule rule : rules) {
+            if (rule.getStartDate() != null) {
+                points.add(rule.getStartDate().toEpochDay());
+            }
+            if (rule.getEndDate() != null) {
+                points.add(rule.getEndDate().toEpochDay() + 1);
+            }
+        }
+        boundaries = points.stream().mapToLong(Long::longValue).toArray();
+
+        int count = rules.size();
+        firstSegment = new int[count];
+        lastSegment = new int[count];
+        active = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            PromotionRule rule = rules.get(i);
+            active[i] = rule.isActive();
+            firstSegment[i] = rule.getStartDate() == null ? 0 : segmentOf(rule.getStartDate().toEpochDay());
+            lastSegment[i] = rule.getEndDate() == null
+                    ? boundaries.length
+                    : segmentOf(rule.getEndDate().toEpochDay() + 1) - 1;
+        }
+        segments = new AtomicReferenceArray<>(boundaries.length + 1);
+    }
+
+    // ✅ Chỉ số các khuyến mãi đang bật + còn hiệu lực trong ngày (chỉ đọc, không sửa BitSet trả về)
+    BitSet activeOn(LocalDate day) {
+        int segment = segmentOf(day.toEpochDay());
+        BitSet bits = segments.get(segment);
+        if (bits == null) {
+            bits = new BitSet(active.length);
+            for (int i = 0; i < active.length; i++) {
+                if (active[i] && firstSegment[i] <= segment && segment <= lastSegment[i]) {
+                    bits.set(i);
+                }
+            }
+            // Hai luồng cùng dựng thì kết quả giống nhau, giữ bản đầu tiên
+            if (!segments.compareAndSet(segment, null, bits)) {
+                bits = segments.get(segment);
+            }
+        }
+        return bits;
+    }
+
+    // Ngày đầu tiên sau "day" mà tập khuyến mãi hiệu lực thay đổi (null nếu không còn mốc nào)
+    LocalDate nextChangeAfter(LocalDate day) {
+        int segment = segmentOf(day.toEpochDay());
+        return segment < boundaries.length ? LocalDate.ofEpochDay(boundaries[segment]) : null;
+    }
+
+    // Số mốc ≤ epochDay = chỉ số đoạn chứa ngày đó
+    private int segmentOf(long epochDay) {
+        int i = Arrays.binarySearch(boundaries, epochDay);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+}
@@ -0,0 +1,204 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.entity.Promotion;
+import com.tranthanhsang.example304.payload.response.PromotionQuoteDTO;
+import com.tranthanhsang.example304.repository.PromotionRepository;
+
+// Bộ máy tính khuyến mãi.
+// - Mỗi Promotion được biên dịch 1 lần thành PromotionRule (tập id sản phẩm dạng hash).
+// - Giữ PromotionIndex hiện tại: sản phẩm → khuyến mãi, ngày → khuyến mãi còn hiệu lực.
+// - Chỉ dựng lại khi PromotionService ghi (invalidate sau commit), lần đọc kế tiếp nạp lại từ DB.
+// - Danh sách khuyến mãi đang hoạt động dựng sẵn theo lịch mốc ngày, đổi lúc nửa đêm + đẩy /topic/promotions.
+// - Tính 1 đơn hàng = 1 lần duyệt món, trả về tổng tiền + giảm giá từng món.
+@Service
+public class PromotionEngine {
+    // Không chọn khuyến mãi → server tự chọn
+    @Value("${app.promotions.auto-apply:true}")
+    private boolean autoApply;
+
+    // Số khuyến mãi tối đa được cộng dồn trên 1 đơn (1 = không cộng dồn, chỉ lấy khuyến mãi tốt nhất)
+    @Value("${app.promotions.stacking.max-promotions:1}")
+    private int maxPromotions;
+
+    // Cho phép 2 khuyến mãi phần trăm cùng giảm trên 1 món (giảm nối tiếp trên tiền còn lại)
+    @Value("${app.promotions.stacking.percentage-on-percentage:false}")
+    private boolean percentageOnPercentage;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Không có khi chạy test JPA (không bật WebSocket)
+    @Autowired(required = false)
+    private SimpMessagingTemplate messagingTemplate;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Object rebuildLock = new Object();
+    private volatile Compiled compiled;
+    private volatile ActiveSet active;
+
+    // entities: Promotion đã nạp kèm sản phẩm, dùng trả về cho API danh sách đang hoạt động
+    private record Compiled(long generation, PromotionIndex index, Map<Long, Promotion> entities) {
+    }
+
+    // Khuyến mãi đang hiệu lực từ ngày "day" tới trước "validUntil" (mốc đổi kế tiếp, null = không đổi nữa)
+    private record ActiveSet(long generation, LocalDate day, LocalDate validUntil, List<Promotion> promotions) {
+        boolean covers(LocalDate today, long currentGeneration) {
+            return generation == currentGeneration
+                    && !today.isBefore(day)
+                    && (validUntil == null || today.isBefore(validUntil));
+        }
+    }
+
+    // Khuyến mãi theo id (null nếu không tồn tại)
+    public PromotionRule rule(Long promotionId) {
+        return current().rule(promotionId);
+    }
+
+    // Các khuyến mãi còn hiệu lực trong ngày có áp dụng cho sản phẩm
+    public List<PromotionRule> promotionsFor(Long productId, LocalDate day) {
+        return current().promotionsFor(productId, day);
+    }
+
+    // ✅ Điểm vào cho đơn hàng / báo giá:
+    // - Client chọn khuyến mãi → chỉ tính khuyến mãi đó
+    // - Không chọn + bật auto-apply → server tự chọn tổ hợp tốt nhất
+    public PromotionQuoteDTO select(List<OrderItem> items, Long requestedPromotionId, LocalDate today) {
+        if (requestedPromotionId != null) {
+            return evaluate(items, requestedPromotionId, today);
+        }
+        return autoApply ? best(items, today) : evaluate(items, (PromotionRule) null, today);
+    }
+
+    public PromotionQuoteDTO evaluate(List<OrderItem> items, Long promotionId, LocalDate today) {
+        return evaluate(items, rule(promotionId), today);
+    }
+
+    // Tính 1 khuyến mãi cho đơn (xem PromotionIndex.evaluate)
+    public static PromotionQuoteDTO evaluate(List<OrderItem> items, PromotionRule rule, LocalDate today) {
+        return PromotionIndex.evaluate(items, rule, today);
+    }
+
+    // ✅ Chọn khuyến mãi / tổ hợp cộng dồn tốt nhất theo cấu hình
+    public PromotionQuoteDTO best(List<OrderItem> items, LocalDate today) {
+        return current().best(items, today, maxPromotions, percentageOnPercentage);
+    }
+
+    // ✅ Khuyến mãi đang hoạt động hôm nay: đọc danh sách dựng sẵn, O(1).
+    // Danh sách chỉ dựng lại khi qua mốc bắt đầu / kết thúc của 1 khuyến mãi hoặc khi có ghi khuyến mãi.
+    public List<Promotion> activePromotions() {
+        ActiveSet current = active;
+        if (current != null && current.covers(LocalDate.now(), generation.get())) {
+            return current.promotions();
+        }
+        return refreshActive(LocalDate.now(), false).promotions();
+    }
+
+    // ✅ Nửa đêm: qua mốc thì đổi danh sách đang hoạt động + báo cho client qua WebSocket
+    @Scheduled(cron = "${app.promotions.activation-cron:0 0 0 * * *}")
+    public void flipActiveSet() {
+        activePromotions();
+    }
+
+    // ✅ Gọi sau mỗi lần ghi khuyến mãi (chạy sau commit)
+    public void invalidate() {
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            // Sửa nội dung (mức giảm, tên, sản phẩm) không đổi tập id nhưng client vẫn cần bản mới
+            refreshActive(LocalDate.now(), true);
+        });
+    }
+
+    // written = dựng lại do có ghi khuyến mãi → luôn đẩy danh sách mới cho client
+    private ActiveSet refreshActive(LocalDate today, boolean written) {
+        synchronized (rebuildLock) {
+            ActiveSet previous = active;
+            if (previous != null && previous.covers(today, generation.get())) {
+                return previous;
+            }
+            Compiled current = compiled();
+            List<Promotion> promotions = new ArrayList<>();
+            for (PromotionRule rule : current.index().activeOn(today)) {
+                promotions.add(current.entities().get(rule.getId()));
+            }
+            ActiveSet next = new ActiveSet(current.generation(), today, current.index().nextChangeAfter(today),
+                    List.copyOf(promotions));
+            active = next;
+
+            // Qua ngày: chỉ đẩy khi tập khuyến mãi thật sự đổi (không qua mốc nào thì thôi)
+            if (written || previous == null || !ids(previous.promotions()).equals(ids(next.promotions()))) {
+                System.out.println("🏷️ Khuyến mãi đang hoạt động ngày " + today + ": " + promotions.size()
+                        + " (đổi tiếp vào " + next.validUntil() + ")");
+                if (messagingTemplate != null) {
+                    messagingTemplate.convertAndSend("/topic/promotions", next.promotions());
+                }
+            }
+            return next;
+        }
+    }
+
+    private static List<Long> ids(List<Promotion> promotions) {
+        List<Long> ids = new ArrayList<>(promotions.size());
+        for (Promotion promotion : promotions) {
+            ids.add(promotion.getId());
+        }
+        return ids;
+    }
+
+    private PromotionIndex current() {
+        return compiled().index();
+    }
+
+    private Compiled compiled() {
+        Compiled current = compiled;
+        if (current != null && current.generation() == generation.get()) {
+            return current;
+        }
+        synchronized (rebuildLock) {
+            current = compiled;
+            long gen = generation.get();
+            if (current == null || current.generation() != gen) {
+                current = build(gen);
+                compiled = current;
+            }
+            return current;
+        }
+    }
+
+    private Compiled build(long gen) {
+        // REQUIRES_NEW: có thể chạy trong afterCommit của transaction ghi khuyến mãi
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        tx.setReadOnly(true);
+        List<Promotion> promotions = tx.execute(status -> promotionRepository.findAllWithProductsList());
+
+        List<PromotionRule> rules = new ArrayList<>(promotions.size());
+        Map<Long, Promotion> entities = new HashMap<>();
+        for (Promotion promotion : promotions) {
+            rules.add(PromotionRule.compile(promotion));
+            entities.put(promotion.getId(), promotion);
+        }
+        PromotionIndex index = new PromotionIndex(rules);
+        System.out.println("🏷️ Dựng lại bộ máy khuyến mãi: " + index.size() + " khuyến mãi, "
+                + index.productCount() + " sản phẩm có khuyến mãi");
+        return new Compiled(gen, index, Map.copyOf(entities));
+    }
+}
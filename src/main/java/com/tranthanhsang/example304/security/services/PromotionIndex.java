@@ -0,0 +1,285 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.payload.response.PromotionQuoteDTO;
+
+// Chỉ mục khuyến mãi bất biến (PromotionEngine giữ bản hiện tại, dựng lại khi khuyến mãi thay đổi).
+// - BitSet theo sản phẩm: sản phẩm → các khuyến mãi đang bật có chứa sản phẩm đó
+// - PromotionCalendar: ngày → các khuyến mãi còn hiệu lực
+// Khuyến mãi được đánh chỉ số theo id tăng dần, các BitSet dùng chung chỉ số đó.
+public final class PromotionIndex {
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    // Khi cộng dồn: giảm phần trăm trước, rồi mới trừ số tiền cố định (khách được lợi nhất)
+    private static final Comparator<PromotionRule> STACKING_ORDER = Comparator
+            .comparing((PromotionRule rule) -> rule.getKind() != PromotionRule.Kind.PERCENTAGE)
+            .thenComparing(PromotionRule::getValue, Comparator.reverseOrder())
+            .thenComparing(PromotionRule::getId);
+
+    private final List<PromotionRule> rules;
+    private final Map<Long, PromotionRule> byId;
+    private final Map<Long, BitSet> byProduct;
+    private final PromotionCalendar calendar;
+
+    public PromotionIndex(List<PromotionRule> compiled) {
+        List<PromotionRule> sorted = new ArrayList<>(compiled);
+        sorted.sort(Comparator.comparing(PromotionRule::getId));
+
+        Map<Long, PromotionRule> ids = new HashMap<>();
+        Map<Long, BitSet> products = new HashMap<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            PromotionRule rule = sorted.get(i);
+            ids.put(rule.getId(), rule);
+            if (!rule.isActive() || rule.getKind() == PromotionRule.Kind.NONE) {
+                continue;
+            }
+            for (Long productId : rule.getProductIds()) {
+                products.computeIfAbsent(productId, k -> new BitSet()).set(i);
+            }
+        }
+        this.rules = List.copyOf(sorted);
+        this.byId = Map.copyOf(ids);
+        this.byProduct = Map.copyOf(products);
+        this.calendar = new PromotionCalendar(sorted);
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    // Số sản phẩm đang có ít nhất 1 khuyến mãi bật
+    public int productCount() {
+        return byProduct.size();
+    }
+
+    // Khuyến mãi theo id (null nếu không tồn tại)
+    public PromotionRule rule(Long promotionId) {
+        return promotionId == null ? null : byId.get(promotionId);
+    }
+
+    // Các khuyến mãi đang bật + còn hiệu lực trong ngày, id tăng dần
+    public List<PromotionRule> activeOn(LocalDate day) {
+        BitSet bits = calendar.activeOn(day);
+        List<PromotionRule> result = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            result.add(rules.get(i));
+        }
+        return result;
+    }
+
+    // Ngày tiếp theo sau "day" mà tập khuyến mãi hiệu lực thay đổi (null = không đổi nữa)
+    public LocalDate nextChangeAfter(LocalDate day) {
+        return calendar.nextChangeAfter(day);
+    }
+
+    // Các khuyến mãi còn hiệu lực trong ngày có áp dụng cho sản phẩm
+    public List<PromotionRule> promotionsFor(Long productId, LocalDate day) {
+        BitSet bits = byProduct.get(productId);
+        if (bits == null) {
+            return List.of();
+        }
+        bits = (BitSet) bits.clone();
+        bits.and(calendar.activeOn(day));
+        List<PromotionRule> result = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            result.add(rules.get(i));
+        }
+        return result;
+    }
+
+    // Tính 1 khuyến mãi cho đơn. Quy tắc giữ nguyên như trước:
+    // - Khuyến mãi phải đang bật + còn hạn, và có ít nhất 1 món thuộc khuyến mãi
+    // - Phần trăm: giảm trên tiền các món thuộc khuyến mãi
+    // - Số tiền cố định: trừ vào tổng đơn
+    // - Tổng không âm
+    public static PromotionQuoteDTO evaluate(List<OrderItem> items, PromotionRule rule, LocalDate today) {
+        Basket basket = new Basket(items);
+        List<PromotionQuoteDTO.AppliedDTO> applied = new ArrayList<>(1);
+        if (rule != null && rule.isValidOn(today)) {
+            BigDecimal discount = basket.apply(rule, false, true);
+            if (discount.signum() > 0) {
+                applied.add(new PromotionQuoteDTO.AppliedDTO(rule.getId(), rule.getName(), discount));
+            }
+        }
+        return basket.toQuote(rule, applied);
+    }
+
+    // ✅ Chọn khuyến mãi tốt nhất cho đơn trong các khuyến mãi đang hiệu lực.
+    // Ứng viên = (OR BitSet khuyến mãi của từng sản phẩm trong đơn) AND (BitSet hiệu lực trong ngày),
+    // nên chỉ duyệt các khuyến mãi có liên quan dù tổng số khuyến mãi rất lớn.
+    // Cộng dồn (max-promotions > 1): chọn tham lam khuyến mãi giảm thêm nhiều nhất mỗi vòng,
+    // rồi tính lại theo thứ tự cố định: phần trăm trước, số tiền cố định sau.
+    public PromotionQuoteDTO best(List<OrderItem> items, LocalDate today, int maxPromotions,
+            boolean percentageOnPercentage) {
+        Basket basket = new Basket(items);
+
+        BitSet candidates = new BitSet();
+        for (Long productId : basket.productIds) {
+            BitSet bits = productId != null ? byProduct.get(productId) : null;
+            if (bits != null) {
+                candidates.or(bits);
+            }
+        }
+        candidates.and(calendar.activeOn(today));
+
+        List<PromotionRule> chosen = new ArrayList<>();
+        while (chosen.size() < maxPromotions && !candidates.isEmpty()) {
+            int bestIndex = -1;
+            BigDecimal bestGain = BigDecimal.ZERO;
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                BigDecimal gain = basket.apply(rules.get(i), percentageOnPercentage, false);
+                if (gain.compareTo(bestGain) > 0) { // bằng nhau → giữ khuyến mãi id nhỏ hơn
+                    bestGain = gain;
+                    bestIndex = i;
+                }
+            }
+            if (bestIndex < 0) {
+                break;
+            }
+            PromotionRule rule = rules.get(bestIndex);
+            candidates.clear(bestIndex);
+            chosen.add(rule);
+            basket.apply(rule, percentageOnPercentage, true);
+        }
+
+        if (!chosen.isEmpty()) {
+            chosen.sort(STACKING_ORDER);
+            basket = new Basket(items);
+        }
+
+        List<PromotionQuoteDTO.AppliedDTO> applied = new ArrayList<>(chosen.size());
+        PromotionRule primary = null;
+        BigDecimal primaryDiscount = BigDecimal.ZERO;
+        for (PromotionRule rule : chosen) {
+            BigDecimal discount = basket.apply(rule, percentageOnPercentage, true);
+            if (discount.signum() > 0) {
+                applied.add(new PromotionQuoteDTO.AppliedDTO(rule.getId(), rule.getName(), discount));
+                if (discount.compareTo(primaryDiscount) > 0) {
+                    primary = rule;
+                    primaryDiscount = discount;
+                }
+            }
+        }
+        return basket.toQuote(primary, applied);
+    }
+
+    // Giỏ hàng khi tính: tiền còn lại của từng món sau các khuyến mãi đã áp
+    private static final class Basket {
+        private final List<PromotionQuoteDTO.LineDTO> lines;
+        private final Long[] productIds;
+        private final BigDecimal[] remaining;
+        private final boolean[] percentageApplied;
+        private BigDecimal original = BigDecimal.ZERO;
+        private BigDecimal remainingTotal;
+
+        Basket(List<OrderItem> items) {
+            int n = items == null ? 0 : items.size();
+            lines = new ArrayList<>(n);
+            productIds = new Long[n];
+            remaining = new BigDecimal[n];
+            percentageApplied = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                OrderItem item = items.get(i);
+                productIds[i] = item.getProduct() != null ? item.getProduct().getId() : null;
+                remaining[i] = item.getSubtotal();
+                original = original.add(item.getSubtotal());
+                lines.add(new PromotionQuoteDTO.LineDTO(productIds[i], item.getQuantity(), item.getSubtotal(),
+                        BigDecimal.ZERO));
+            }
+            remainingTotal = original;
+        }
+
+        // Số tiền giảm thêm khi áp rule; commit = false → chỉ thử, không sửa giỏ
+        BigDecimal apply(PromotionRule rule, boolean percentageOnPercentage, boolean commit) {
+            if (rule.getKind() == PromotionRule.Kind.PERCENTAGE) {
+                BigDecimal sum = BigDecimal.ZERO;
+                for (int i = 0; i < remaining.length; i++) {
+                    if (!eligible(rule, i) || (percentageApplied[i] && !percentageOnPercentage)) {
+                        continue;
+                    }
+                    BigDecimal discount = remaining[i].multiply(rule.getValue()).divide(HUNDRED).min(remaining[i]);
+                    sum = sum.add(discount);
+                    if (commit) {
+                        take(i, discount);
+                        percentageApplied[i] = true;
+                    }
+                }
+                return sum;
+            }
+            if (rule.getKind() != PromotionRule.Kind.AMOUNT) {
+                return BigDecimal.ZERO;
+            }
+
+            BigDecimal base = BigDecimal.ZERO;
+            int lastEligible = -1;
+            for (int i = 0; i < remaining.length; i++) {
+                if (eligible(rule, i)) {
+                    base = base.add(remaining[i]);
+                    lastEligible = i;
+                }
+            }
+            if (lastEligible < 0) {
+                return BigDecimal.ZERO; // không có món nào thuộc khuyến mãi
+            }
+            BigDecimal discount = rule.getValue().min(remainingTotal);
+            if (!commit) {
+                return discount;
+            }
+
+            // Chia theo tỷ lệ tiền các món thuộc khuyến mãi, món cuối nhận phần dư.
+            // Khuyến mãi lớn hơn tiền các món đó → phần vượt trừ tiếp vào các món khác (tổng đơn vẫn ≥ 0).
+            BigDecimal left = discount;
+            BigDecimal share = discount.min(base);
+            for (int i = 0; i <= lastEligible; i++) {
+                if (eligible(rule, i)) {
+                    BigDecimal part = i == lastEligible
+                            ? left.min(remaining[i])
+                            : share.multiply(remaining[i]).divide(base, 2, RoundingMode.HALF_UP).min(remaining[i]);
+                    take(i, part);
+                    left = left.subtract(part);
+                }
+            }
+            for (int i = 0; i < remaining.length && left.signum() > 0; i++) {
+                BigDecimal part = left.min(remaining[i]);
+                take(i, part);
+                left = left.subtract(part);
+            }
+            return discount;
+        }
+
+        private boolean eligible(PromotionRule rule, int i) {
+            return remaining[i].signum() > 0 && rule.appliesTo(productIds[i]);
+        }
+
+        private void take(int i, BigDecimal amount) {
+            remaining[i] = remaining[i].subtract(amount);
+            remainingTotal = remainingTotal.subtract(amount);
+            PromotionQuoteDTO.LineDTO line = lines.get(i);
+            line.setDiscount(line.getDiscount().add(amount));
+        }
+
+        PromotionQuoteDTO toQuote(PromotionRule primary, List<PromotionQuoteDTO.AppliedDTO> applied) {
+            PromotionQuoteDTO quote = new PromotionQuoteDTO();
+            if (primary != null) {
+                quote.setPromotionId(primary.getId());
+                quote.setPromotionName(primary.getName());
+            }
+            quote.setOriginalAmount(original);
+            quote.setDiscountAmount(original.subtract(remainingTotal));
+            quote.setTotalAmount(remainingTotal);
+            quote.setLines(lines);
+            quote.setPromotions(applied);
+            return quote;
+        }
+    }
+}
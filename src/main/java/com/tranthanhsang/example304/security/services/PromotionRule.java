@@ -0,0 +1,106 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.Promotion;
+
+// Khuyến mãi đã "biên dịch": bất biến, tách khỏi entity / Hibernate.
+// Tập sản phẩm là HashSet id → kiểm tra 1 món thuộc khuyến mãi là O(1).
+public final class PromotionRule {
+    public enum Kind {
+        PERCENTAGE, AMOUNT, NONE
+    }
+
+    private final Long id;
+    private final String name;
+    private final Kind kind;
+    private final BigDecimal value;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final boolean active;
+    private final Set<Long> productIds;
+
+    private PromotionRule(Promotion promotion, Set<Long> productIds) {
+        this.id = promotion.getId();
+        this.name = promotion.getName();
+        this.startDate = promotion.getStartDate();
+        this.endDate = promotion.getEndDate();
+        this.active = Boolean.TRUE.equals(promotion.getIsActive());
+        this.productIds = productIds;
+
+        // Ưu tiên phần trăm, giống logic cũ trong OrderService
+        if (positive(promotion.getDiscountPercentage())) {
+            this.kind = Kind.PERCENTAGE;
+            this.value = promotion.getDiscountPercentage();
+        } else if (positive(promotion.getDiscountAmount())) {
+            this.kind = Kind.AMOUNT;
+            this.value = promotion.getDiscountAmount();
+        } else {
+            this.kind = Kind.NONE;
+            this.value = BigDecimal.ZERO;
+        }
+    }
+
+    public static PromotionRule compile(Promotion promotion) {
+        Set<Long> ids = new HashSet<>();
+        if (promotion.getProducts() != null) {
+            for (Product product : promotion.getProducts()) {
+                if (product != null && product.getId() != null) {
+                    ids.add(product.getId());
+                }
+            }
+        }
+        return new PromotionRule(promotion, Set.copyOf(ids));
+    }
+
+    // Đang bật và ngày nằm trong [startDate, endDate] (tính cả 2 đầu)
+    public boolean isValidOn(LocalDate day) {
+        return active
+                && (startDate == null || !day.isBefore(startDate))
+                && (endDate == null || !day.isAfter(endDate));
+    }
+
+    public boolean appliesTo(Long productId) {
+        return productId != null && productIds.contains(productId);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public BigDecimal getValue() {
+        return value;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public Set<Long> getProductIds() {
+        return productIds;
+    }
+
+    private static boolean positive(BigDecimal value) {
+        return value != null && value.compareTo(BigDecimal.ZERO) > 0;
+    }
+}
@@ -1,16 +1,22 @@
 package com.tranthanhsang.example304.security.services;
 
+import com.tranthanhsang.example304.entity.Order;
+import com.tranthanhsang.example304.entity.OrderItem;
 import com.tranthanhsang.example304.entity.Promotion;
 import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.payload.response.PromotionQuoteDTO;
 import com.tranthanhsang.example304.repository.PromotionRepository;
 import com.tranthanhsang.example304.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import java.util.List;
@@ -24,6 +30,16 @@ public class PromotionService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private MenuCacheEvictor menuCacheEvictor;
+
+    // Khuyến mãi nằm trong JSON sản phẩm → ghi khuyến mãi cũng làm cũ ảnh chụp thực đơn
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+
+    @Autowired
+    private PromotionEngine promotionEngine;
+
     // Lấy tất cả Promotion
     @Transactional(readOnly = true)
     public Page<Promotion> getAll(Pageable pageable) {
@@ -52,7 +68,11 @@ public class PromotionService {
         promotion.setCreatedAt(LocalDateTime.now());
         promotion.setUpdatedAt(LocalDateTime.now());
 
-        return promotionRepository.save(promotion);
+        Promotion saved = promotionRepository.save(promotion);
+        menuCacheEvictor.evictProductPromotions(productIds(attachedProducts));
+        menuSnapshotService.invalidate();
+        promotionEngine.invalidate();
+        return saved;
     }
 
     // Cập nhật Promotion
@@ -69,6 +89,9 @@ public class PromotionService {
         existing.setIsActive(promotion.getIsActive());
         existing.setUpdatedAt(LocalDateTime.now());
 
+        // Sản phẩm cũ + mới đều bị ảnh hưởng
+        Set<Long> affectedProductIds = new HashSet<>(productIds(existing.getProducts()));
+
         List<Product> updatedProducts = new ArrayList<>();
         if (promotion.getProducts() != null) {
             for (Product p : promotion.getProducts()) {
@@ -83,7 +106,13 @@ public class PromotionService {
         }
 
         existing.setProducts(updatedProducts);
-        return promotionRepository.save(existing);
+        Promotion saved = promotionRepository.save(existing);
+
+        affectedProductIds.addAll(productIds(updatedProducts));
+        menuCacheEvictor.evictProductPromotions(affectedProductIds);
+        menuSnapshotService.invalidate();
+        promotionEngine.invalidate();
+        return saved;
     }
 
     // Xóa Promotion
@@ -97,11 +126,54 @@ public class PromotionService {
         }
 
         promotionRepository.deleteById(id);
+        menuCacheEvictor.evictProductPromotions(productIds(promotion.getProducts()));
+        menuSnapshotService.invalidate();
+        promotionEngine.invalidate();
+    }
+
+    // ✅ Báo giá đơn hàng trước khi tạo: tổng tiền + giảm giá từng món.
+    // Không chọn khuyến mãi → trả về khuyến mãi server sẽ tự áp khi tạo đơn.
+    // Giá lấy từ món gửi lên, thiếu thì lấy giá hiện tại trong thực đơn (không truy vấn DB).
+    public PromotionQuoteDTO quote(Order order) {
+        MenuSnapshot menu = menuSnapshotService.current();
+        List<OrderItem> items = new ArrayList<>();
+        if (order.getItems() != null) {
+            for (OrderItem incoming : order.getItems()) {
+                if (incoming.getProduct() == null || incoming.getProduct().getId() == null) {
+                    throw new RuntimeException("❌ Thiếu product trong OrderItem");
+                }
+                Product product = menu.product(incoming.getProduct().getId());
+                if (product == null) {
+                    throw new RuntimeException("Không tìm thấy sản phẩm với ID: " + incoming.getProduct().getId());
+                }
+                int quantity = incoming.getQuantity() != null ? incoming.getQuantity() : 1;
+                BigDecimal price = incoming.getPrice() != null ? incoming.getPrice() : product.getPrice();
+
+                OrderItem item = new OrderItem();
+                item.setProduct(product);
+                item.setQuantity(quantity);
+                item.setPrice(price);
+                item.setSubtotal(price.multiply(BigDecimal.valueOf(quantity)));
+                items.add(item);
+            }
+        }
+        Long promotionId = order.getPromotion() != null ? order.getPromotion().getId() : null;
+        return promotionEngine.select(items, promotionId, LocalDate.now());
+    }
+
+    private List<Long> productIds(List<Product> products) {
+        List<Long> ids = new ArrayList<>();
+        if (products != null) {
+            for (Product p : products) {
+                ids.add(p.getId());
+            }
+        }
+        return ids;
     }
 
-    // Lấy khuyến mãi đang hoạt động
+    // Lấy khuyến mãi đang hoạt động (đang bật, hôm nay nằm trong [startDate, endDate] tính cả 2 đầu).
+    // Danh sách dựng sẵn trong PromotionEngine, đổi lúc nửa đêm → không truy vấn DB mỗi lần gọi.
     public List<Promotion> getActivePromotions() {
-        LocalDate today = LocalDate.now();
-        return promotionRepository.findByStartDateBeforeAndEndDateAfter(today, today);
+        return promotionEngine.activePromotions();
     }
 }
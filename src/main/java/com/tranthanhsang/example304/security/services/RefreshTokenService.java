@@ -0,0 +1,95 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tranthanhsang.example304.entity.RefreshToken;
+import com.tranthanhsang.example304.model.User;
+import com.tranthanhsang.example304.repository.RefreshTokenRepository;
+
+// Refresh token xoay vòng: mỗi lần làm mới sẽ xóa token cũ và cấp token mới.
+// DB chỉ lưu SHA-256 của token → kiểm tra = 1 lần băm + 1 câu tra theo index, không cần BCrypt.
+@Service
+public class RefreshTokenService {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepo;
+
+    @Value("${bezkoder.app.jwtRefreshExpirationMs}")
+    private long refreshExpirationMs;
+
+    // Kết quả làm mới: user (đã nạp quyền) + refresh token mới (dạng gốc)
+    public record Rotation(User user, String refreshToken) {
+    }
+
+    // Cấp refresh token mới cho user, trả về token gốc
+    @Transactional
+    public String create(User user) {
+        // Dọn token đã hết hạn của user (mỗi lần đăng nhập / làm mới)
+        refreshTokenRepo.deleteExpiredForUser(user.getId(), LocalDateTime.now());
+
+        String rawToken = newRawToken();
+        refreshTokenRepo.save(RefreshToken.builder()
+                .tokenHash(hash(rawToken))
+                .user(user)
+                .expiresAt(LocalDateTime.now().plus(Duration.ofMillis(refreshExpirationMs)))
+                .createdAt(LocalDateTime.now())
+                .build());
+        return rawToken;
+    }
+
+    // Đổi refresh token cũ lấy token mới (token cũ bị xóa, không dùng lại được)
+    @Transactional
+    public Rotation rotate(String rawToken) {
+        RefreshToken existing = refreshTokenRepo.findByTokenHashWithUser(hash(rawToken))
+                .orElseThrow(() -> new RuntimeException("Refresh token không hợp lệ hoặc đã được sử dụng"));
+
+        if (existing.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Refresh token đã hết hạn, vui lòng đăng nhập lại");
+        }
+        User user = existing.getUser();
+        // ✅ Tài khoản bị khóa → không cấp access token mới (giống /signin qua UserDetailsImpl.isEnabled)
+        if (Boolean.FALSE.equals(user.getIsActive())) {
+            throw new RuntimeException("Tài khoản đã bị vô hiệu hóa");
+        }
+        refreshTokenRepo.delete(existing);
+
+        return new Rotation(user, create(user));
+    }
+
+    // Thu hồi mọi refresh token của user (đăng xuất, xóa tài khoản).
+    // Đổi quyền không cần: access token cũ bị thu hồi, lần làm mới kế tiếp nạp lại quyền mới từ DB.
+    @Transactional
+    public void deleteAllForUser(Long userId) {
+        if (userId != null) {
+            refreshTokenRepo.deleteByUserId(userId);
+        }
+    }
+
+    public static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Lỗi tạo SHA-256", e);
+        }
+    }
+
+    public static String newRawToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
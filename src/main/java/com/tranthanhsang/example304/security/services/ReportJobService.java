@@ -0,0 +1,397 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.tranthanhsang.example304.payload.response.ReportJobDTO;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Job xuất báo cáo chạy nền: gửi yêu cầu → hỏi trạng thái → tải file.
+// - Pool riêng giới hạn số luồng + hàng đợi (đầy → ReportBusyException, controller trả 429),
+//   không giữ luồng Tomcat / kết nối DB của request trong lúc quét dữ liệu lớn.
+// - Dòng được đọc theo con trỏ chỉ-tiến (TYPE_FORWARD_ONLY + fetch size) và ghi thẳng ra file,
+//   bộ nhớ mỗi job chỉ là bộ đệm đọc + bộ đệm ghi; file vượt max-bytes → job FAILED.
+// - Kết quả lưu theo băm tham số: cùng loại + định dạng + khoảng ngày → dùng lại file (khoảng đã qua giữ lâu,
+//   khoảng có hôm nay chỉ giữ live-ttl vì dữ liệu còn thay đổi).
+// Metrics: reports.jobs.queue / .active / .rejected
+@Service
+public class ReportJobService implements MeterBinder {
+    // File kết quả / file đang ghi của job: <16 byte SHA-256 dạng hex>.csv|json[.part]
+    private static final Pattern JOB_FILE = Pattern.compile("[0-9a-f]{32}\\.(csv|json)(\\.part)?");
+
+    // Loại báo cáo: SQL 1 tham số khoảng [from, to) (ngày giờ) hoặc theo ngày với bảng tổng hợp
+    public enum ReportType {
+        ORDERS("SELECT o.id AS order_id, o.created_at, t.number AS table_number, u.full_name AS employee, " +
+                "o.status, p.name AS promotion, o.total_amount " +
+                "FROM orders o JOIN tables t ON t.id = o.table_id " +
+                "LEFT JOIN users u ON u.id = o.employee_id LEFT JOIN promotions p ON p.id = o.promotion_id " +
+                "WHERE o.created_at >= ? AND o.created_at < ? ORDER BY o.id", false),
+        ORDER_ITEMS("SELECT oi.order_id, o.created_at, oi.product_id, pr.name AS product, c.name AS category, " +
+                "oi.quantity, oi.price, oi.subtotal " +
+                "FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+                "JOIN products pr ON pr.id = oi.product_id LEFT JOIN categories c ON c.id = pr.category_id " +
+                "WHERE o.status = 'PAID' AND o.created_at >= ? AND o.created_at < ? ORDER BY oi.order_id, oi.id",
+                false),
+        DAILY_REVENUE("SELECT d.sales_date, d.order_count, d.revenue FROM daily_sales d " +
+                "WHERE d.sales_date >= ? AND d.sales_date < ? ORDER BY d.sales_date", true),
+        PRODUCT_SALES("SELECT r.sales_date, r.product_id, p.name AS product, r.quantity, r.revenue " +
+                "FROM daily_product_sales r LEFT JOIN products p ON p.id = r.product_id " +
+                "WHERE r.sales_date >= ? AND r.sales_date < ? ORDER BY r.sales_date, r.product_id", true);
+
+        private final String sql;
+        private final boolean byDate;
+
+        ReportType(String sql, boolean byDate) {
+            this.sql = sql;
+            this.byDate = byDate;
+        }
+
+        static ReportType parse(String value) {
+            try {
+                return ReportType.valueOf(value.trim().toUpperCase().replace('-', '_'));
+            } catch (RuntimeException e) {
+                throw new RuntimeException(
+                        "❌ Loại báo cáo không hợp lệ (orders | order-items | daily-revenue | product-sales): " + value);
+            }
+        }
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    @Value("${app.reports.dir:${java.io.tmpdir}/example304-reports}")
+    private String reportDir;
+    @Value("${app.reports.threads:2}")
+    private int threads;
+    @Value("${app.reports.queue-capacity:8}")
+    private int queueCapacity;
+    // MySQL: Integer.MIN_VALUE = đọc từng dòng (streaming result set); DB khác dùng số dương
+    @Value("${app.reports.fetch-size:1000}")
+    private int fetchSize;
+    @Value("${app.reports.query-timeout-seconds:300}")
+    private int queryTimeoutSeconds;
+    @Value("${app.reports.max-bytes:104857600}")
+    private long maxBytes;
+    @Value("${app.reports.history-ttl-minutes:1440}")
+    private long historyTtlMinutes;
+    @Value("${app.reports.live-ttl-seconds:60}")
+    private long liveTtlSeconds;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+    private ThreadPoolExecutor executor;
+    private Path dir;
+
+    @PostConstruct
+    void init() throws IOException {
+        dir = Paths.get(reportDir);
+        Files.createDirectories(dir);
+        // File của lần chạy trước không còn job tương ứng → xóa (chỉ file do service tạo, thư mục có thể dùng chung)
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(f -> JOB_FILE.matcher(f.getFileName().toString()).matches())
+                    .forEach(f -> f.toFile().delete());
+        }
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "report-job-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("reports.jobs.queue", executor, e -> e.getQueue().size())
+                .description("Số job báo cáo đang chờ")
+                .register(registry);
+        Gauge.builder("reports.jobs.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Số job báo cáo đang chạy")
+                .register(registry);
+        FunctionCounter.builder("reports.jobs.rejected", rejected, AtomicLong::get)
+                .description("Số job bị từ chối do hàng đợi đầy")
+                .register(registry);
+    }
+
+    // ✅ Gửi yêu cầu: trùng tham số với job đang chạy / file còn hạn → trả lại job đó (cached = true)
+    public ReportJobDTO submit(String type, String format, String from, String to) {
+        ReportType reportType = ReportType.parse(type);
+        String fmt = format == null || format.isBlank() ? "csv" : format.trim().toLowerCase();
+        if (!fmt.equals("csv") && !fmt.equals("json")) {
+            throw new RuntimeException("❌ Định dạng không hợp lệ (csv | json): " + format);
+        }
+        LocalDate fromDate = parseDate(from, LocalDate.now().minusDays(30));
+        LocalDate toDate = parseDate(to, LocalDate.now());
+        if (toDate.isBefore(fromDate)) {
+            throw new RuntimeException("❌ Ngày kết thúc phải sau ngày bắt đầu");
+        }
+
+        String id = hash(reportType + "|" + fmt + "|" + fromDate + "|" + toDate);
+        boolean[] reused = { true };
+        Job job = jobs.compute(id, (key, existing) -> {
+            if (existing != null && existing.reusable()) {
+                return existing;
+            }
+            if (existing != null) {
+                existing.deleteFile();
+            }
+            reused[0] = false;
+            return new Job(key, reportType, fmt, fromDate, toDate);
+        });
+
+        if (!reused[0]) {
+            try {
+                executor.execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(id, job);
+                rejected.incrementAndGet();
+                throw new ReportBusyException("Đang có quá nhiều báo cáo được xuất, vui lòng thử lại sau");
+            }
+        }
+        return job.toDto(reused[0]);
+    }
+
+    public ReportJobDTO status(String id) {
+        return find(id).toDto(false);
+    }
+
+    // File kết quả của job đã xong (RuntimeException nếu chưa xong / không tồn tại)
+    public Path file(String id) {
+        Job job = find(id);
+        if (job.status != Status.DONE) {
+            throw new ReportNotReadyException("Báo cáo chưa sẵn sàng: " + job.status);
+        }
+        return job.file;
+    }
+
+    public String fileName(String id) {
+        Job job = find(id);
+        return "BaoCao_" + job.type.name().toLowerCase() + "_" + job.from + "_" + job.to + "." + job.format;
+    }
+
+    // Dọn job / file hết hạn
+    @Scheduled(fixedDelayString = "${app.reports.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        jobs.values().removeIf(job -> {
+            if (job.expired()) {
+                job.deleteFile();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private Job find(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new RuntimeException("❌ Không tìm thấy job báo cáo: " + id);
+        }
+        return job;
+    }
+
+    private void run(Job job) {
+        job.status = Status.RUNNING;
+        long startedAt = System.currentTimeMillis();
+        Path tmp = dir.resolve(job.id + "." + job.format + ".part");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp);
+                    ReportWriter writer = ReportWriter.of(job.format, os, maxBytes)) {
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(job.type.sql, ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(fetchSize);
+                    ps.setQueryTimeout(queryTimeoutSeconds);
+                    if (job.type.byDate) {
+                        ps.setObject(1, job.from);
+                        ps.setObject(2, job.to.plusDays(1));
+                    } else {
+                        ps.setTimestamp(1, Timestamp.valueOf(job.from.atStartOfDay()));
+                        ps.setTimestamp(2, Timestamp.valueOf(job.to.plusDays(1).atStartOfDay()));
+                    }
+                    return ps;
+                }, (ResultSet rs) -> {
+                    try {
+                        writer.begin(rs.getMetaData());
+                        while (rs.next()) {
+                            writer.row(rs);
+                            job.rows++;
+                        }
+                        writer.end();
+                    } catch (IOException e) {
+                        throw new ReportFailedException(e.getMessage(), e);
+                    }
+                    return null;
+                });
+                job.bytes = writer.bytes();
+            }
+            Files.move(tmp, job.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.finish(Status.DONE, null);
+            System.out.println("📑 Xuất báo cáo " + job.type + " " + job.from + " → " + job.to + ": " + job.rows
+                    + " dòng, " + job.bytes + " byte trong " + (System.currentTimeMillis() - startedAt) + " ms");
+        } catch (Exception e) {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // file tạm sẽ bị xóa khi khởi động lại
+            }
+            job.finish(Status.FAILED, e.getMessage());
+            System.err.println("⚠️ Xuất báo cáo " + job.id + " thất bại: " + e.getMessage());
+        }
+    }
+
+    private static LocalDate parseDate(String value, LocalDate fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (RuntimeException e) {
+            throw new RuntimeException("❌ Ngày không hợp lệ (yyyy-MM-dd): " + value);
+        }
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final class Job {
+        private final String id;
+        private final ReportType type;
+        private final String format;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final Path file;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile Status status = Status.QUEUED;
+        private volatile long rows;
+        private volatile long bytes;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        Job(String id, ReportType type, String format, LocalDate from, LocalDate to) {
+            this.id = id;
+            this.type = type;
+            this.format = format;
+            this.from = from;
+            this.to = to;
+            this.file = dir.resolve(id + "." + format);
+        }
+
+        void finish(Status result, String message) {
+            error = message;
+            finishedAt = LocalDateTime.now();
+            status = result;
+        }
+
+        // Đang chạy / đã xong và còn hạn → dùng lại; lỗi → chạy lại
+        boolean reusable() {
+            return status == Status.QUEUED || status == Status.RUNNING
+                    || (status == Status.DONE && !expired() && Files.exists(file));
+        }
+
+        // Khoảng ngày đã qua hẳn thì dữ liệu gần như cố định → giữ lâu; có hôm nay → giữ ngắn
+        boolean expired() {
+            if (finishedAt == null) {
+                return false;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            return to.isBefore(finishedAt.toLocalDate())
+                    ? finishedAt.plusMinutes(historyTtlMinutes).isBefore(now)
+                    : finishedAt.plusSeconds(liveTtlSeconds).isBefore(now);
+        }
+
+        void deleteFile() {
+            file.toFile().delete();
+        }
+
+        ReportJobDTO toDto(boolean cached) {
+            ReportJobDTO dto = new ReportJobDTO();
+            dto.setId(id);
+            dto.setType(type.name().toLowerCase().replace('_', '-'));
+            dto.setFormat(format);
+            dto.setFrom(from.toString());
+            dto.setTo(to.toString());
+            dto.setStatus(status.name());
+            dto.setRows(rows);
+            dto.setBytes(bytes);
+            dto.setCached(cached);
+            dto.setError(error);
+            dto.setCreatedAt(createdAt.toString());
+            dto.setFinishedAt(finishedAt != null ? finishedAt.toString() : null);
+            dto.setDownloadUrl(status == Status.DONE ? "/api/reports/" + id + "/download" : null);
+            return dto;
+        }
+    }
+
+    // Hàng đợi job đầy
+    public static class ReportBusyException extends RuntimeException {
+        public ReportBusyException(String message) {
+            super(message);
+        }
+    }
+
+    // Job chưa xong / bị lỗi
+    public static class ReportNotReadyException extends RuntimeException {
+        public ReportNotReadyException(String message) {
+            super(message);
+        }
+    }
+
+    private static class ReportFailedException extends RuntimeException {
+        ReportFailedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+// Ghi từng dòng ResultSet ra file ngay khi đọc (không gom cả báo cáo trong bộ nhớ).
+// Vượt quá maxBytes → ném ReportTooLargeException, job bị đánh dấu FAILED.
+abstract class ReportWriter implements Closeable {
+    protected final CountingOutputStream out;
+    protected String[] columns;
+
+    protected ReportWriter(OutputStream target, long maxBytes) {
+        this.out = new CountingOutputStream(target, maxBytes);
+    }
+
+    static ReportWriter of(String format, OutputStream target, long maxBytes) throws IOException {
+        return "json".equals(format) ? new Json(target, maxBytes) : new Csv(target, maxBytes);
+    }
+
+    // Gọi 1 lần trước dòng đầu tiên (kể cả khi không có dòng nào)
+    abstract void begin(ResultSetMetaData meta) throws SQLException, IOException;
+
+    abstract void row(ResultSet rs) throws SQLException, IOException;
+
+    abstract void end() throws IOException;
+
+    long bytes() {
+        return out.count;
+    }
+
+    protected static String[] labels(ResultSetMetaData meta) throws SQLException {
+        String[] labels = new String[meta.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = meta.getColumnLabel(i + 1).toLowerCase();
+        }
+        return labels;
+    }
+
+    // Mỗi dòng ResultSet → 1 dòng CSV
+    private static final class Csv extends ReportWriter {
+        private final CsvWriter csv;
+
+        Csv(OutputStream target, long maxBytes) {
+            super(target, maxBytes);
+            this.csv = new CsvWriter(out);
+        }
+
+        @Override
+        void begin(ResultSetMetaData meta) throws SQLException, IOException {
+            columns = labels(meta);
+            csv.header(columns);
+        }
+
+        @Override
+        void row(ResultSet rs) throws SQLException, IOException {
+            Object[] values = new Object[columns.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = rs.getObject(i + 1);
+            }
+            csv.row(values);
+        }
+
+        @Override
+        void end() throws IOException {
+            csv.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            csv.close();
+        }
+    }
+
+    // Mảng JSON các object {cột: giá trị}, ghi bằng JsonGenerator (không dựng cây trong bộ nhớ)
+    private static final class Json extends ReportWriter {
+        private final JsonGenerator generator;
+
+        Json(OutputStream target, long maxBytes) throws IOException {
+            super(target, maxBytes);
+            this.generator = new JsonFactory().createGenerator(out);
+        }
+
+        @Override
+        void begin(ResultSetMetaData meta) throws SQLException, IOException {
+            columns = labels(meta);
+            generator.writeStartArray();
+        }
+
+        @Override
+        void row(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                Object value = rs.getObject(i + 1);
+                generator.writeFieldName(columns[i]);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumber(decimal);
+                } else if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+                    generator.writeNumber(((Number) value).longValue());
+                } else {
+                    generator.writeString(text(value));
+                }
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        void end() throws IOException {
+            generator.writeEndArray();
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    // Ngày giờ dạng ISO (2025-06-15T08:30:00), số thập phân không dùng dạng mũ
+    static String text(Object value) {
+        if (value instanceof Timestamp ts) {
+            return ts.toLocalDateTime().toString();
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return value.toString();
+    }
+
+    static final class ReportTooLargeException extends IOException {
+        ReportTooLargeException(long maxBytes) {
+            super("Báo cáo vượt quá giới hạn " + maxBytes + " byte, hãy chọn khoảng ngày ngắn hơn");
+        }
+    }
+
+    // Đếm số byte đã ghi, chặn khi vượt giới hạn
+    static final class CountingOutputStream extends FilterOutputStream {
+        private final long maxBytes;
+        private long count;
+
+        CountingOutputStream(OutputStream target, long maxBytes) {
+            super(target);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            check(1);
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            check(len);
+            out.write(b, off, len);
+            count += len;
+        }
+
+        private void check(int len) throws IOException {
+            if (count + len > maxBytes) {
+                throw new ReportTooLargeException(maxBytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+
+// Chuỗi doanh thu theo thời gian trong bộ nhớ: mỗi độ chi tiết (phút / giờ / ngày / tuần / tháng) là 1 vòng
+// mảng nguyên thủy (khung → số đơn, doanh thu tính bằng xu). Ghi = cộng vào 5 khung, O(1).
+// Khoảng bất kỳ = ghép các khung lớn nhất nằm gọn trong khoảng (tháng → tuần → ngày → giờ → phút).
+// Không thread-safe (RevenueSeriesService khóa bên ngoài).
+final class RevenueSeries {
+
+    enum Granularity {
+        MINUTE(2 * 24 * 60), // 2 ngày
+        HOUR(400 * 24), // ~13 tháng
+        DAY(20 * 366), // 20 năm
+        WEEK(20 * 53),
+        MONTH(20 * 12);
+
+        final int retention; // số khung giữ lại
+
+        Granularity(int retention) {
+            this.retention = retention;
+        }
+
+        // Số thứ tự khung chứa thời điểm (tuần bắt đầu thứ Hai)
+        long index(LocalDateTime at) {
+            return switch (this) {
+                case MINUTE -> Math.floorDiv(at.toEpochSecond(ZoneOffset.UTC), 60L);
+                case HOUR -> Math.floorDiv(at.toEpochSecond(ZoneOffset.UTC), 3600L);
+                case DAY -> at.toLocalDate().toEpochDay();
+                case WEEK -> Math.floorDiv(at.toLocalDate().toEpochDay() + 3, 7L);
+                case MONTH -> at.getYear() * 12L + at.getMonthValue() - 1;
+            };
+        }
+
+        LocalDateTime start(long index) {
+            return switch (this) {
+                case MINUTE -> LocalDateTime.ofEpochSecond(index * 60, 0, ZoneOffset.UTC);
+                case HOUR -> LocalDateTime.ofEpochSecond(index * 3600, 0, ZoneOffset.UTC);
+                case DAY -> LocalDate.ofEpochDay(index).atStartOfDay();
+                case WEEK -> LocalDate.ofEpochDay(index * 7 - 3).atStartOfDay();
+                case MONTH -> LocalDate.of((int) Math.floorDiv(index, 12L), (int) Math.floorMod(index, 12L) + 1, 1)
+                        .atStartOfDay();
+            };
+        }
+
+        LocalDateTime floor(LocalDateTime at) {
+            return switch (this) {
+                case MINUTE -> at.truncatedTo(ChronoUnit.MINUTES);
+                case HOUR -> at.truncatedTo(ChronoUnit.HOURS);
+                case DAY -> at.truncatedTo(ChronoUnit.DAYS);
+                case WEEK -> at.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+                case MONTH -> at.toLocalDate().withDayOfMonth(1).atStartOfDay();
+            };
+        }
+
+        LocalDateTime next(LocalDateTime start) {
+            return switch (this) {
+                case MINUTE -> start.plusMinutes(1);
+                case HOUR -> start.plusHours(1);
+                case DAY -> start.plusDays(1);
+                case WEEK -> start.plusWeeks(1);
+                case MONTH -> start.plusMonths(1);
+            };
+        }
+
+        // Nhãn khung: 2025-06-15T08:30 / 2025-06-15T08:00 / 2025-06-15 / 2025-06-09 (thứ Hai) / 2025-06
+        String label(long index) {
+            LocalDateTime start = start(index);
+            return switch (this) {
+                case MINUTE, HOUR -> start.toString();
+                case DAY, WEEK -> start.toLocalDate().toString();
+                case MONTH -> start.toLocalDate().toString().substring(0, 7);
+            };
+        }
+    }
+
+    private static final Granularity[] COARSE_TO_FINE = { Granularity.MONTH, Granularity.WEEK, Granularity.DAY,
+            Granularity.HOUR, Granularity.MINUTE };
+
+    private final Ring[] rings = new Ring[Granularity.values().length];
+
+    RevenueSeries() {
+        for (Granularity g : Granularity.values()) {
+            rings[g.ordinal()] = new Ring(g.retention);
+        }
+    }
+
+    // ✅ Cộng 1 đơn (orders = 1, hoặc -1 khi hoàn lại) vào cả 5 độ chi tiết
+    void add(LocalDateTime at, long orders, long cents) {
+        addIntraday(at, orders, cents);
+        addDaily(at.toLocalDate(), orders, cents);
+    }
+
+    // Chỉ phút + giờ (nạp lại từ danh sách đơn)
+    void addIntraday(LocalDateTime at, long orders, long cents) {
+        ring(Granularity.MINUTE).add(Granularity.MINUTE.index(at), orders, cents);
+        ring(Granularity.HOUR).add(Granularity.HOUR.index(at), orders, cents);
+    }
+
+    // Chỉ ngày + tuần + tháng (nạp lại từ bảng tổng hợp theo ngày)
+    void addDaily(LocalDate day, long orders, long cents) {
+        LocalDateTime at = day.atStartOfDay();
+        for (Granularity g : new Granularity[] { Granularity.DAY, Granularity.WEEK, Granularity.MONTH }) {
+            ring(g).add(g.index(at), orders, cents);
+        }
+    }
+
+    // Giá trị của 1 khung: {số đơn, xu}; khung ngoài thời hạn lưu → {0, 0}
+    long[] bucket(Granularity g, long index) {
+        return ring(g).get(index);
+    }
+
+    // ✅ Tổng {số đơn, xu} trong [from, to): đi từ from, mỗi bước lấy khung lớn nhất bắt đầu đúng tại con trỏ,
+    // kết thúc không quá "to" và còn trong thời hạn lưu. Phần quá cũ so với khung nhỏ (phút > 2 ngày, giờ > 13 tháng)
+    // được làm tròn xuống khung nhỏ nhất còn lưu.
+    long[] total(LocalDateTime from, LocalDateTime to) {
+        long[] sum = new long[2];
+        LocalDateTime cursor = from.truncatedTo(ChronoUnit.MINUTES);
+        while (cursor.isBefore(to)) {
+            Granularity used = null;
+            for (Granularity g : COARSE_TO_FINE) {
+                if (g.floor(cursor).equals(cursor) && !g.next(cursor).isAfter(to) && ring(g).retains(g.index(cursor))) {
+                    used = g;
+                    break;
+                }
+            }
+            if (used == null) {
+                used = finestRetained(cursor);
+                if (used == null) {
+                    cursor = Granularity.MONTH.next(Granularity.MONTH.floor(cursor));
+                    continue;
+                }
+            }
+            long[] value = ring(used).get(used.index(cursor));
+            sum[0] += value[0];
+            sum[1] += value[1];
+            cursor = used.next(used.floor(cursor));
+        }
+        return sum;
+    }
+
+    boolean retains(Granularity g, long index) {
+        return ring(g).retains(index);
+    }
+
+    private Granularity finestRetained(LocalDateTime at) {
+        for (int i = COARSE_TO_FINE.length - 1; i >= 0; i--) {
+            Granularity g = COARSE_TO_FINE[i];
+            if (ring(g).retains(g.index(at))) {
+                return g;
+            }
+        }
+        return null;
+    }
+
+    private Ring ring(Granularity g) {
+        return rings[g.ordinal()];
+    }
+
+    // Vòng khung: khung "index" ở ô index % size; giữ "size" khung gần khung mới nhất
+    private static final class Ring {
+        private final long[] indexes;
+        private final long[] orders;
+        private final long[] cents;
+        private long latest = Long.MIN_VALUE;
+
+        Ring(int size) {
+            indexes = new long[size];
+            orders = new long[size];
+            cents = new long[size];
+            Arrays.fill(indexes, Long.MIN_VALUE);
+        }
+
+        void add(long index, long orderDelta, long centDelta) {
+            if (latest != Long.MIN_VALUE && index <= latest - indexes.length) {
+                return; // cũ hơn thời hạn lưu
+            }
+            int slot = (int) Math.floorMod(index, (long) indexes.length);
+            if (indexes[slot] != index) {
+                indexes[slot] = index;
+                orders[slot] = 0;
+                cents[slot] = 0;
+            }
+            orders[slot] += orderDelta;
+            cents[slot] += centDelta;
+            latest = Math.max(latest, index);
+        }
+
+        long[] get(long index) {
+            int slot = (int) Math.floorMod(index, (long) indexes.length);
+            return indexes[slot] == index ? new long[] { orders[slot], cents[slot] } : new long[2];
+        }
+
+        // Khung chưa bị vòng ghi đè (chưa có dữ liệu nào → coi như giữ được mọi khung, đều bằng 0)
+        boolean retains(long index) {
+            return latest == Long.MIN_VALUE || index > latest - indexes.length;
+        }
+    }
+}
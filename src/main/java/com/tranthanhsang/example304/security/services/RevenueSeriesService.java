@@ -0,0 +1,181 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.tranthanhsang.example304.entity.DailySales;
+import com.tranthanhsang.example304.payload.response.RevenueCountDTO;
+import com.tranthanhsang.example304.payload.response.RevenueHeatmapDTO;
+import com.tranthanhsang.example304.repository.DailySalesRepository;
+import com.tranthanhsang.example304.repository.OrderRepository;
+import com.tranthanhsang.example304.security.services.RevenueSeries.Granularity;
+
+// Doanh thu theo thời gian (phút / giờ / ngày / tuần / tháng) + bản đồ nhiệt thứ × giờ, trả lời từ bộ nhớ.
+// Đơn PAID (sau commit) → cộng vào RevenueSeries; khởi động / dựng lại rollup → nạp lại:
+// ngày / tuần / tháng từ bảng daily_sales, phút / giờ từ các đơn PAID trong thời hạn lưu khung giờ.
+// Mốc thời gian là ngày giờ tạo đơn (giống bảng tổng hợp).
+@Service
+public class RevenueSeriesService {
+    @Autowired
+    private DailySalesRepository dailySalesRepo;
+    @Autowired
+    private OrderRepository orderRepo;
+
+    private RevenueSeries series = new RevenueSeries();
+
+    // ✅ Ghi nhận 1 đơn (sign = 1) hoặc hoàn lại (sign = -1)
+    public synchronized void record(LocalDateTime createdAt, int sign, BigDecimal total) {
+        series.add(createdAt, sign, sign * toCents(total));
+    }
+
+    // Dựng chuỗi mới rồi mới thay (đơn thanh toán trong lúc nạp có thể bị thiếu đến lần nạp sau)
+    public void reload() {
+        long startedAt = System.currentTimeMillis();
+        RevenueSeries fresh = new RevenueSeries();
+        List<DailySales> days = dailySalesRepo.findAll();
+        for (DailySales day : days) {
+            fresh.addDaily(day.getSalesDate(), day.getOrderCount(), toCents(day.getRevenue()));
+        }
+        LocalDateTime since = LocalDateTime.now().minusHours(Granularity.HOUR.retention);
+        List<Object[]> orders = orderRepo.findPaidTotalsSince(since);
+        for (Object[] row : orders) {
+            fresh.addIntraday((LocalDateTime) row[0], 1, toCents((BigDecimal) row[1]));
+        }
+        synchronized (this) {
+            series = fresh;
+        }
+        System.out.println("📈 Nạp lại chuỗi doanh thu: " + days.size() + " ngày, " + orders.size() + " đơn trong "
+                + (System.currentTimeMillis() - startedAt) + " ms");
+    }
+
+    // ✅ Chuỗi doanh thu theo khung trong [from, to) (kể cả khung không có đơn)
+    public List<RevenueCountDTO> series(String granularity, String from, String to) {
+        Granularity g = parseGranularity(granularity);
+        LocalDateTime end = parseTo(to);
+        LocalDateTime start = parseFrom(from, g == Granularity.MINUTE ? end.minusHours(1) : end.minusDays(7));
+        long first = g.index(start);
+        long last = g.index(end.minusNanos(1));
+        if (last - first + 1 > g.retention) {
+            throw new RuntimeException("❌ Khoảng thời gian quá dài cho độ chi tiết " + g.name().toLowerCase()
+                    + " (tối đa " + g.retention + " khung)");
+        }
+
+        List<RevenueCountDTO> result = new ArrayList<>();
+        synchronized (this) {
+            for (long i = first; i <= last; i++) {
+                long[] value = series.bucket(g, i);
+                result.add(new RevenueCountDTO(g.label(i), value[0], toAmount(value[1])));
+            }
+        }
+        return result;
+    }
+
+    // ✅ Tổng 1 khoảng bất kỳ, ghép từ các khung có sẵn (không quét đơn hàng)
+    public RevenueCountDTO summary(String from, String to) {
+        LocalDateTime end = parseTo(to);
+        LocalDateTime start = parseFrom(from, end.toLocalDate().atStartOfDay());
+        long[] total;
+        synchronized (this) {
+            total = series.total(start, end);
+        }
+        return new RevenueCountDTO(start + "/" + end, total[0], toAmount(total[1]));
+    }
+
+    // ✅ Bản đồ nhiệt thứ × giờ: cộng các khung giờ trong khoảng (tối đa thời hạn lưu khung giờ)
+    public RevenueHeatmapDTO heatmap(String from, String to) {
+        LocalDateTime end = parseTo(to);
+        LocalDateTime start = parseFrom(from, end.minusDays(28));
+        long last = Granularity.HOUR.index(end.minusNanos(1));
+        long first = Math.max(Granularity.HOUR.index(start), last - Granularity.HOUR.retention + 1);
+
+        long[][] orders = new long[7][24];
+        long[][] cents = new long[7][24];
+        synchronized (this) {
+            for (long i = first; i <= last; i++) {
+                long[] value = series.bucket(Granularity.HOUR, i);
+                if (value[0] == 0 && value[1] == 0) {
+                    continue;
+                }
+                LocalDateTime hour = Granularity.HOUR.start(i);
+                int weekday = hour.getDayOfWeek().getValue() - 1;
+                orders[weekday][hour.getHour()] += value[0];
+                cents[weekday][hour.getHour()] += value[1];
+            }
+        }
+
+        BigDecimal[][] revenue = new BigDecimal[7][24];
+        for (int d = 0; d < 7; d++) {
+            for (int h = 0; h < 24; h++) {
+                revenue[d][h] = toAmount(cents[d][h]);
+            }
+        }
+        return new RevenueHeatmapDTO(Granularity.HOUR.start(first).toString(), end.toString(), orders, revenue);
+    }
+
+    // Doanh thu "days" ngày gần nhất, chỉ các ngày có đơn (như API /stats/daily-revenue cũ)
+    public List<RevenueCountDTO> dailyRevenue(int days) {
+        LocalDate today = LocalDate.now();
+        List<RevenueCountDTO> result = new ArrayList<>();
+        synchronized (this) {
+            for (LocalDate day = today.minusDays(days); !day.isAfter(today); day = day.plusDays(1)) {
+                long[] value = series.bucket(Granularity.DAY, day.toEpochDay());
+                if (value[0] > 0) {
+                    result.add(new RevenueCountDTO(day.toString(), value[0], toAmount(value[1])));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Granularity parseGranularity(String value) {
+        if (value == null || value.isBlank()) {
+            return Granularity.DAY;
+        }
+        try {
+            return Granularity.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("❌ granularity không hợp lệ (minute | hour | day | week | month): " + value);
+        }
+    }
+
+    // from: "2025-06-01" (đầu ngày) hoặc "2025-06-01T08:00"; bỏ trống → mặc định
+    private static LocalDateTime parseFrom(String value, LocalDateTime fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        return parseTime(value).withNano(0);
+    }
+
+    // to (không tính): ngày → hết ngày đó; bỏ trống → bây giờ
+    private static LocalDateTime parseTo(String value) {
+        if (value == null || value.isBlank()) {
+            return LocalDateTime.now();
+        }
+        LocalDateTime at = parseTime(value);
+        return value.trim().length() == 10 ? at.plusDays(1) : at;
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        try {
+            String v = value.trim();
+            return v.length() == 10 ? LocalDate.parse(v).atStartOfDay() : LocalDateTime.parse(v);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("❌ Thời gian không hợp lệ (yyyy-MM-dd hoặc yyyy-MM-ddTHH:mm): " + value);
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
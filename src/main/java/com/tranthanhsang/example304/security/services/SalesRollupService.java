@@ -0,0 +1,202 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tranthanhsang.example304.entity.DailySales;
+import com.tranthanhsang.example304.entity.Order;
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.payload.response.EmployeeSalesDTO;
+import com.tranthanhsang.example304.payload.response.ProductSalesDTO;
+import com.tranthanhsang.example304.payload.response.RevenueCountDTO;
+import com.tranthanhsang.example304.repository.DailyCategorySalesRepository;
+import com.tranthanhsang.example304.repository.DailyEmployeeSalesRepository;
+import com.tranthanhsang.example304.repository.DailyProductSalesRepository;
+import com.tranthanhsang.example304.repository.DailySalesRepository;
+
+// Bảng tổng hợp doanh số theo ngày (ngày / ngày × sản phẩm / ngày × danh mục / ngày × nhân viên).
+// Đơn chuyển sang PAID → cộng phần đóng góp của đơn vào các bảng (cùng transaction với việc đổi trạng thái);
+// đơn rời PAID → trừ lại. Thống kê dashboard chỉ đọc các bảng này, không quét orders / order_items.
+@Service
+public class SalesRollupService {
+    @Autowired
+    private DailySalesRepository dailySalesRepo;
+    @Autowired
+    private DailyProductSalesRepository productSalesRepo;
+    @Autowired
+    private DailyCategorySalesRepository categorySalesRepo;
+    @Autowired
+    private DailyEmployeeSalesRepository employeeSalesRepo;
+    @Autowired
+    private TopSellingTracker topSellingTracker;
+    @Autowired
+    private RevenueSeriesService revenueSeriesService;
+
+    @Value("${app.stats.rollup.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    // ✅ Đơn vừa được thanh toán (chuyển từ trạng thái khác sang PAID)
+    @Transactional
+    public void recordPaid(Order order) {
+        apply(contributionOf(order), 1);
+    }
+
+    // ✅ Cộng (sign = 1) hoặc trừ (sign = -1) phần đóng góp đã chụp của 1 đơn
+    @Transactional
+    void apply(Contribution contribution, int sign) {
+        if (contribution == null) {
+            return;
+        }
+        BigDecimal factor = BigDecimal.valueOf(sign);
+        LocalDate day = contribution.day;
+
+        dailySalesRepo.upsert(day, sign, contribution.total.multiply(factor));
+        if (contribution.employeeId != null) {
+            employeeSalesRepo.upsert(day, contribution.employeeId, sign, contribution.total.multiply(factor));
+        }
+        for (Map.Entry<Long, Line> e : contribution.products.entrySet()) {
+            productSalesRepo.upsert(day, e.getKey(), (long) sign * e.getValue().quantity,
+                    e.getValue().revenue.multiply(factor));
+        }
+        for (Map.Entry<Long, Line> e : contribution.categories.entrySet()) {
+            categorySalesRepo.upsert(day, e.getKey(), (long) sign * e.getValue().quantity,
+                    e.getValue().revenue.multiply(factor));
+        }
+
+        // Top bán chạy + chuỗi doanh thu trong bộ nhớ: chỉ cộng khi transaction thanh toán đã commit
+        Map<Long, Long> quantities = new LinkedHashMap<>();
+        contribution.products.forEach((productId, line) -> quantities.put(productId, (long) sign * line.quantity));
+        TransactionHooks.afterCommit(() -> {
+            topSellingTracker.record(quantities, contribution.at);
+            revenueSeriesService.record(contribution.at, sign, contribution.total);
+        });
+    }
+
+    // Chụp phần đóng góp của đơn vào thống kê (gộp các dòng cùng sản phẩm / danh mục).
+    // Gọi TRƯỚC khi sửa đơn nếu cần trừ lại đúng giá trị cũ. Đơn chưa có ngày tạo → không tính (như truy vấn dựng lại).
+    Contribution contributionOf(Order order) {
+        if (order == null || order.getCreatedAt() == null) {
+            return null;
+        }
+        Contribution c = new Contribution();
+        c.at = order.getCreatedAt();
+        c.day = c.at.toLocalDate();
+        c.total = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+        c.employeeId = order.getEmployee() != null ? order.getEmployee().getId() : null;
+
+        if (order.getItems() != null) {
+            for (OrderItem item : order.getItems()) {
+                Product product = item.getProduct();
+                if (product == null || product.getId() == null) {
+                    continue;
+                }
+                long quantity = item.getQuantity() != null ? item.getQuantity() : 0;
+                BigDecimal subtotal = item.getSubtotal() != null ? item.getSubtotal() : BigDecimal.ZERO;
+                c.products.computeIfAbsent(product.getId(), k -> new Line()).add(quantity, subtotal);
+                if (product.getCategory() != null && product.getCategory().getId() != null) {
+                    c.categories.computeIfAbsent(product.getCategory().getId(), k -> new Line()).add(quantity,
+                            subtotal);
+                }
+            }
+        }
+        return c;
+    }
+
+    // ✅ Dựng lại toàn bộ bảng tổng hợp từ lịch sử đơn PAID (chạy lúc vắng khách: đơn thanh toán trong lúc dựng
+    // có thể bị tính thiếu / thừa)
+    @Transactional
+    public Map<String, Integer> rebuild() {
+        long startedAt = System.currentTimeMillis();
+        dailySalesRepo.deleteAllRows();
+        productSalesRepo.deleteAllRows();
+        categorySalesRepo.deleteAllRows();
+        employeeSalesRepo.deleteAllRows();
+
+        Map<String, Integer> rows = new LinkedHashMap<>();
+        rows.put("days", dailySalesRepo.rebuildFromOrders());
+        rows.put("products", productSalesRepo.rebuildFromOrders());
+        rows.put("categories", categorySalesRepo.rebuildFromOrders());
+        rows.put("employees", employeeSalesRepo.rebuildFromOrders());
+        System.out.println("📊 Dựng lại bảng tổng hợp doanh số: " + rows + " trong "
+                + (System.currentTimeMillis() - startedAt) + " ms");
+        TransactionHooks.afterCommit(this::reloadInMemoryStats);
+        return rows;
+    }
+
+    // Lần đầu chạy bản có bảng tổng hợp: bảng còn trống → dựng từ lịch sử; sau đó nạp số liệu trong bộ nhớ
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void onStartup() {
+        if (backfillOnStartup && dailySalesRepo.count() == 0) {
+            rebuild();
+        } else {
+            TransactionHooks.afterCommit(this::reloadInMemoryStats);
+        }
+    }
+
+    // Nạp lại top bán chạy + chuỗi doanh thu trong bộ nhớ từ bảng tổng hợp
+    private void reloadInMemoryStats() {
+        topSellingTracker.reload();
+        revenueSeriesService.reload();
+    }
+
+    public List<ProductSalesDTO> topSellingProducts(Pageable pageable) {
+        return productSalesRepo.findTopSelling(pageable);
+    }
+
+    public List<ProductSalesDTO> topSellingProducts(int limit) {
+        return topSellingProducts(PageRequest.of(0, limit));
+    }
+
+    public List<RevenueCountDTO> dailyRevenue(int days) {
+        List<RevenueCountDTO> result = new ArrayList<>();
+        for (DailySales row : dailySalesRepo.findSince(LocalDate.now().minusDays(days))) {
+            // period dạng 'yyyy-MM-dd' như truy vấn DATE_FORMAT cũ
+            result.add(new RevenueCountDTO(row.getSalesDate().toString(), row.getOrderCount(), row.getRevenue()));
+        }
+        return result;
+    }
+
+    public List<ProductSalesDTO> revenueByCategory() {
+        return categorySalesRepo.findRevenueByCategory();
+    }
+
+    public List<EmployeeSalesDTO> topSellingEmployees(int days) {
+        return employeeSalesRepo.findTopSelling(LocalDate.now().minusDays(days));
+    }
+
+    // Phần đóng góp của 1 đơn vào các bảng tổng hợp
+    static final class Contribution {
+        private LocalDateTime at;
+        private LocalDate day;
+        private BigDecimal total;
+        private Long employeeId;
+        private final Map<Long, Line> products = new LinkedHashMap<>();
+        private final Map<Long, Line> categories = new LinkedHashMap<>();
+    }
+
+    private static final class Line {
+        private long quantity;
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        void add(long qty, BigDecimal subtotal) {
+            quantity += qty;
+            revenue = revenue.add(subtotal);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Thuật toán Space-Saving (Metwally và cộng sự): đếm gần đúng các phần tử xuất hiện nhiều nhất
+// với tối đa "capacity" bộ đếm. Bảng đầy + phần tử mới → thay phần tử có đếm nhỏ nhất (min),
+// phần tử mới nhận đếm = min + weight và sai số = min.
+// Đảm bảo: đếm thật nằm trong [count - error, count], và error ≤ tổng / capacity.
+// Không thread-safe (TopSellingTracker khóa bên ngoài).
+final class SpaceSaving {
+    private final int capacity;
+    private final Map<Long, long[]> counters; // key → {count, error}
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    void add(long key, long weight) {
+        long[] counter = counters.get(key);
+        if (weight <= 0) {
+            // Hoàn lại (đơn rời PAID): chỉ trừ được khi còn đang theo dõi phần tử đó
+            if (counter != null) {
+                counter[0] = Math.max(counter[1], counter[0] + weight);
+            }
+            return;
+        }
+        if (counter != null) {
+            counter[0] += weight;
+        } else if (counters.size() < capacity) {
+            counters.put(key, new long[] { weight, 0 });
+        } else {
+            Long minKey = null;
+            long min = Long.MAX_VALUE;
+            for (Map.Entry<Long, long[]> e : counters.entrySet()) {
+                if (e.getValue()[0] < min) {
+                    min = e.getValue()[0];
+                    minKey = e.getKey();
+                }
+            }
+            counters.remove(minKey);
+            counters.put(key, new long[] { min + weight, min });
+        }
+    }
+
+    // Đếm tối đa của 1 phần tử KHÔNG có trong bảng (0 khi bảng chưa đầy)
+    long floor() {
+        if (counters.size() < capacity) {
+            return 0;
+        }
+        long min = Long.MAX_VALUE;
+        for (long[] counter : counters.values()) {
+            min = Math.min(min, counter[0]);
+        }
+        return min;
+    }
+
+    void clear() {
+        counters.clear();
+    }
+
+    // ✅ Gộp nhiều bảng (các khung thời gian của 1 cửa sổ): phần tử thiếu ở bảng nào thì cộng floor của bảng đó
+    // vào cả đếm lẫn sai số → vẫn giữ đảm bảo [count - error, count]
+    static Map<Long, long[]> merge(List<SpaceSaving> summaries) {
+        Map<Long, long[]> merged = new HashMap<>();
+        long floorSum = 0;
+        for (SpaceSaving summary : summaries) {
+            long floor = summary.floor();
+            floorSum += floor;
+            for (Map.Entry<Long, long[]> e : summary.counters.entrySet()) {
+                long[] acc = merged.computeIfAbsent(e.getKey(), k -> new long[2]);
+                acc[0] += e.getValue()[0] - floor;
+                acc[1] += e.getValue()[1] - floor;
+            }
+        }
+        for (long[] acc : merged.values()) {
+            acc[0] += floorSum;
+            acc[1] += floorSum;
+        }
+        return merged;
+    }
+}
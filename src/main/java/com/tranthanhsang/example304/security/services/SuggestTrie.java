@@ -0,0 +1,180 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.tranthanhsang.example304.payload.response.ProductSuggestionDTO;
+
+// Cây tiền tố (trie) bất biến cho gợi ý tên sản phẩm.
+// - Khóa: tên đã bỏ dấu, chèn từ đầu mỗi từ → "dao" gợi ý được "Trà đào cam sả".
+// - Mỗi nút lưu sẵn top-K sản phẩm (theo lượt bán) → tra cứu = đi theo tiền tố + đọc mảng, không sắp xếp.
+// - Dạng mảng gọn: con của nút là char[] đã sắp xếp + tìm nhị phân.
+public final class SuggestTrie {
+    public static final SuggestTrie EMPTY = build(List.of(), 1);
+
+    // 1 sản phẩm đưa vào trie
+    public record Entry(Long productId, String name, String imageUrl, BigDecimal price, long weight) {
+    }
+
+    private final char[][] childKeys;
+    private final int[][] childNodes;
+    private final int[][] top;
+    private final ProductSuggestionDTO[] suggestions;
+
+    private SuggestTrie(char[][] childKeys, int[][] childNodes, int[][] top, ProductSuggestionDTO[] suggestions) {
+        this.childKeys = childKeys;
+        this.childNodes = childNodes;
+        this.top = top;
+        this.suggestions = suggestions;
+    }
+
+    public static SuggestTrie build(List<Entry> entries, int topK) {
+        // Chuẩn hóa tên 1 lần cho mỗi sản phẩm
+        int count = entries.size();
+        String[] keys = new String[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = String.join(" ", VietnameseText.tokens(entries.get(i).name()));
+            order[i] = i;
+        }
+        // Bán chạy trước → mỗi nút chỉ cần giữ K sản phẩm đầu tiên đi qua nó
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> entries.get(i).weight()).reversed()
+                .thenComparing(i -> keys[i])
+                .thenComparing(i -> entries.get(i).productId()));
+
+        BuildNodes nodes = new BuildNodes(topK);
+        int root = nodes.add();
+        ProductSuggestionDTO[] suggestions = new ProductSuggestionDTO[count];
+
+        for (int rank = 0; rank < count; rank++) {
+            Entry entry = entries.get(order[rank]);
+            String key = keys[order[rank]];
+            suggestions[rank] = new ProductSuggestionDTO(entry.productId(), entry.name(), entry.imageUrl(),
+                    entry.price());
+            nodes.offer(root, rank);
+
+            for (int start = 0; start < key.length(); start++) {
+                if (start > 0 && key.charAt(start - 1) != ' ') {
+                    continue; // chỉ chèn từ đầu mỗi từ
+                }
+                int node = root;
+                for (int j = start; j < key.length(); j++) {
+                    node = nodes.child(node, key.charAt(j));
+                    nodes.offer(node, rank);
+                }
+            }
+        }
+        return nodes.compact(suggestions);
+    }
+
+    // ✅ Gợi ý theo tiền tố (người dùng gõ có dấu / không dấu đều được)
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        String key = String.join(" ", VietnameseText.tokens(prefix));
+        int node = 0;
+        for (int i = 0; i < key.length() && node >= 0; i++) {
+            int c = Arrays.binarySearch(childKeys[node], key.charAt(i));
+            node = c >= 0 ? childNodes[node][c] : -1;
+        }
+        if (node < 0) {
+            return List.of();
+        }
+        int[] hits = top[node];
+        int n = Math.min(limit, hits.length);
+        List<ProductSuggestionDTO> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(suggestions[hits[i]]);
+        }
+        return result;
+    }
+
+    public int size() {
+        return suggestions.length;
+    }
+
+    // Các nút khi dựng: mảng song song, con lưu theo thứ tự chèn rồi sắp xếp khi compact()
+    private static final class BuildNodes {
+        private final int topK;
+        private int size;
+        private char[][] keys = new char[1024][];
+        private int[][] children = new int[1024][];
+        private int[] childCount = new int[1024];
+        private int[][] top = new int[1024][];
+        private int[] topCount = new int[1024];
+
+        BuildNodes(int topK) {
+            this.topK = topK;
+        }
+
+        int add() {
+            if (size == keys.length) {
+                int capacity = size * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+                childCount = Arrays.copyOf(childCount, capacity);
+                top = Arrays.copyOf(top, capacity);
+                topCount = Arrays.copyOf(topCount, capacity);
+            }
+            keys[size] = new char[2];
+            children[size] = new int[2];
+            top[size] = new int[Math.min(topK, 2)];
+            return size++;
+        }
+
+        int child(int node, char c) {
+            char[] k = keys[node];
+            for (int i = 0; i < childCount[node]; i++) {
+                if (k[i] == c) {
+                    return children[node][i];
+                }
+            }
+            int created = add();
+            int n = childCount[node];
+            if (n == keys[node].length) {
+                keys[node] = Arrays.copyOf(keys[node], n * 2);
+                children[node] = Arrays.copyOf(children[node], n * 2);
+            }
+            keys[node][n] = c;
+            children[node][n] = created;
+            childCount[node] = n + 1;
+            return created;
+        }
+
+        // Cùng 1 sản phẩm có thể đi qua nút nhiều lần (tên lặp từ) → chỉ giữ 1 lần
+        void offer(int node, int rank) {
+            int n = topCount[node];
+            if (n < topK && (n == 0 || top[node][n - 1] != rank)) {
+                if (n == top[node].length) {
+                    top[node] = Arrays.copyOf(top[node], Math.min(topK, n * 2));
+                }
+                top[node][n] = rank;
+                topCount[node] = n + 1;
+            }
+        }
+
+        SuggestTrie compact(ProductSuggestionDTO[] suggestions) {
+            char[][] childKeys = new char[size][];
+            int[][] childNodes = new int[size][];
+            int[][] topOf = new int[size][];
+            for (int node = 0; node < size; node++) {
+                int n = childCount[node];
+                // Sắp con theo ký tự để tra cứu bằng tìm nhị phân
+                long[] packed = new long[n];
+                for (int i = 0; i < n; i++) {
+                    packed[i] = ((long) keys[node][i] << 32) | children[node][i];
+                }
+                Arrays.sort(packed);
+                childKeys[node] = new char[n];
+                childNodes[node] = new int[n];
+                for (int i = 0; i < n; i++) {
+                    childKeys[node][i] = (char) (packed[i] >>> 32);
+                    childNodes[node][i] = (int) packed[i];
+                }
+                topOf[node] = Arrays.copyOf(top[node], topCount[node]);
+            }
+            return new SuggestTrie(childKeys, childNodes, topOf, suggestions);
+        }
+    }
+}
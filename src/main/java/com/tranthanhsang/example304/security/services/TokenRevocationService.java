@@ -0,0 +1,76 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.tranthanhsang.example304.entity.TokenRevocation;
+import com.tranthanhsang.example304.repository.TokenRevocationRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Thu hồi JWT trước hạn (đăng xuất, đổi quyền, xóa tài khoản).
+// Lưu 1 mốc "token phát hành trước thời điểm này" cho mỗi user:
+// - trong bộ nhớ: Map userId → epoch mili giây, AuthTokenFilter tra O(1), không gọi DB
+// - trong bảng token_revocations: nạp lại khi khởi động
+// So theo mili giây (claim iat_ms) để token đăng nhập lại ngay sau khi đăng xuất / đổi quyền không bị từ chối.
+@Service
+public class TokenRevocationService {
+    @Autowired
+    private TokenRevocationRepository revocationRepo;
+
+    @Value("${bezkoder.app.jwtExpirationMs}")
+    private long jwtExpirationMs;
+
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        long cutoff = oldestLiveIssuedAt();
+        int pruned = revocationRepo.deleteOlderThan(cutoff);
+        for (TokenRevocation revocation : revocationRepo.findAll()) {
+            revokedBefore.put(revocation.getUserId(), revocation.getRevokedBefore());
+        }
+        System.out.println("🔒 Đã nạp " + revokedBefore.size() + " mốc thu hồi token (xóa " + pruned + " mốc cũ)");
+    }
+
+    // Thu hồi mọi token đã cấp cho user tính đến thời điểm hiện tại
+    public void revokeAllForUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        revokedBefore.merge(userId, now, Math::max);
+        revocationRepo.save(TokenRevocation.builder()
+                .userId(userId)
+                .revokedBefore(revokedBefore.get(userId))
+                .updatedAt(LocalDateTime.now())
+                .build());
+
+        // Mốc cũ hơn thời hạn token không còn tác dụng → bỏ khỏi bộ nhớ
+        long cutoff = oldestLiveIssuedAt();
+        revokedBefore.values().removeIf(watermark -> watermark < cutoff);
+    }
+
+    // ✅ O(1), không truy cập DB. issuedAtMillis lấy từ JwtUtils.issuedAtMillis (null = token không có iat)
+    public boolean isRevoked(Long userId, Long issuedAtMillis) {
+        if (userId == null) {
+            return false;
+        }
+        Long watermark = revokedBefore.get(userId);
+        if (watermark == null) {
+            return false;
+        }
+        // Token không có iat → không xác định được thời điểm cấp, coi như đã bị thu hồi
+        return issuedAtMillis == null || issuedAtMillis < watermark;
+    }
+
+    // Thời điểm cấp (mili giây) nhỏ nhất của token còn hạn
+    private long oldestLiveIssuedAt() {
+        return System.currentTimeMillis() - jwtExpirationMs;
+    }
+}
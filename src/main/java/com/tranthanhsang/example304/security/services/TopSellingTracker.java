@@ -0,0 +1,215 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.tranthanhsang.example304.entity.DailyProductSales;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.payload.response.ProductSalesDTO;
+import com.tranthanhsang.example304.repository.DailyProductSalesRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Món bán chạy theo thời gian thực, hoàn toàn trong bộ nhớ (không GROUP BY trên DB).
+// Mỗi khung thời gian giữ 1 bảng Space-Saving (tối đa "capacity" món):
+// - 1 giờ qua: 12 khung 5 phút
+// - hôm nay / 7 ngày qua: 7 khung theo ngày
+// Khung cũ bị xóa khi vòng lại; truy vấn 1 cửa sổ = gộp các khung còn hiệu lực.
+// Sai số mỗi món ≤ tổng số lượng bán trong cửa sổ / capacity (thực đơn ít hơn capacity → đếm chính xác).
+@Service
+public class TopSellingTracker {
+    private static final int MINUTES_PER_SLOT = 5;
+    private static final int HOUR_SLOTS = 60 / MINUTES_PER_SLOT;
+    private static final int WEEK_DAYS = 7;
+
+    // Cửa sổ thời gian hỗ trợ (?window=hour|today|week)
+    public enum Window {
+        HOUR, TODAY, WEEK;
+
+        // null / "all" → không phải cửa sổ trong bộ nhớ (đọc bảng tổng hợp toàn thời gian)
+        public static Window parse(String value) {
+            if (value == null || value.isBlank() || value.equalsIgnoreCase("all")) {
+                return null;
+            }
+            try {
+                return Window.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("❌ window không hợp lệ (hour | today | week | all): " + value);
+            }
+        }
+    }
+
+    @Value("${app.stats.top-selling.capacity:64}")
+    private int capacity;
+
+    @Value("${app.stats.top-selling.push-limit:10}")
+    private int pushLimit;
+
+    @Autowired
+    private DailyProductSalesRepository productSalesRepo;
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+    @Autowired(required = false)
+    private SimpMessagingTemplate messagingTemplate;
+
+    private Ring minuteSlots;
+    private Ring daySlots;
+    private volatile boolean changed;
+
+    @PostConstruct
+    void init() {
+        minuteSlots = new Ring(HOUR_SLOTS, capacity);
+        daySlots = new Ring(WEEK_DAYS, capacity);
+    }
+
+    // ✅ Ghi nhận số lượng bán (productId → số lượng; số âm = hoàn lại) của 1 đơn PAID, vào khung theo thời điểm
+    // tạo đơn (cùng mốc với bảng tổng hợp và reload()) → sửa đơn cũ thì trừ / cộng đúng khung của đơn đó
+    public void record(Map<Long, Long> quantities, LocalDateTime at) {
+        record(quantities, at, LocalDateTime.now());
+    }
+
+    synchronized void record(Map<Long, Long> quantities, LocalDateTime at, LocalDateTime now) {
+        // Khung đã trôi khỏi vòng (hoặc ở tương lai) → bỏ qua, không được ghi đè khung đang dùng
+        long minuteEpoch = minuteSlot(at);
+        long dayEpoch = at.toLocalDate().toEpochDay();
+        SpaceSaving minute = inWindow(minuteEpoch, minuteSlot(now), HOUR_SLOTS) ? minuteSlots.slot(minuteEpoch) : null;
+        SpaceSaving day = inWindow(dayEpoch, now.toLocalDate().toEpochDay(), WEEK_DAYS) ? daySlots.slot(dayEpoch) : null;
+        if (minute == null && day == null) {
+            return;
+        }
+        for (Map.Entry<Long, Long> e : quantities.entrySet()) {
+            if (minute != null) {
+                minute.add(e.getKey(), e.getValue());
+            }
+            if (day != null) {
+                day.add(e.getKey(), e.getValue());
+            }
+        }
+        changed = true;
+    }
+
+    private static boolean inWindow(long epoch, long current, int span) {
+        return epoch <= current && epoch > current - span;
+    }
+
+    public List<ProductSalesDTO> top(Window window, int limit) {
+        return top(window, limit, LocalDateTime.now());
+    }
+
+    // ✅ Top món của cửa sổ: gộp các khung, sắp theo số lượng ước lượng giảm dần, gắn tên từ ảnh chụp thực đơn
+    List<ProductSalesDTO> top(Window window, int limit, LocalDateTime now) {
+        Map<Long, long[]> merged;
+        synchronized (this) {
+            merged = switch (window) {
+                case HOUR -> SpaceSaving.merge(minuteSlots.recent(minuteSlot(now), HOUR_SLOTS));
+                case TODAY -> SpaceSaving.merge(daySlots.recent(now.toLocalDate().toEpochDay(), 1));
+                case WEEK -> SpaceSaving.merge(daySlots.recent(now.toLocalDate().toEpochDay(), WEEK_DAYS));
+            };
+        }
+
+        List<Map.Entry<Long, long[]>> entries = new ArrayList<>(merged.entrySet());
+        entries.sort(Comparator.<Map.Entry<Long, long[]>>comparingLong(e -> -e.getValue()[0])
+                .thenComparing(Map.Entry::getKey));
+
+        MenuSnapshot menu = menuSnapshotService.current();
+        List<ProductSalesDTO> result = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Map.Entry<Long, long[]> e : entries) {
+            if (result.size() >= limit) {
+                break;
+            }
+            Product product = menu.product(e.getKey());
+            if (product == null || e.getValue()[0] <= 0) {
+                continue; // món đã xóa khỏi thực đơn / đã hoàn hết
+            }
+            result.add(new ProductSalesDTO(product.getId(), product.getName(), e.getValue()[0]));
+        }
+        return result;
+    }
+
+    // ✅ Dựng lại cửa sổ theo ngày từ bảng tổng hợp (khởi động / sau khi dựng lại rollup).
+    // Cửa sổ 1 giờ không suy ra được từ số liệu theo ngày → bắt đầu trống, đầy dần theo đơn mới.
+    public void reload() {
+        LocalDate today = LocalDate.now();
+        List<DailyProductSales> rows = productSalesRepo.findBySalesDateGreaterThanEqual(today.minusDays(WEEK_DAYS - 1));
+        synchronized (this) {
+            daySlots.clear();
+            for (DailyProductSales row : rows) {
+                daySlots.slot(row.getSalesDate().toEpochDay()).add(row.getProductId(), row.getQuantity());
+            }
+            changed = true;
+        }
+        System.out.println("🔥 Nạp lại top bán chạy 7 ngày từ bảng tổng hợp: " + rows.size() + " dòng");
+    }
+
+    // Đẩy top bán chạy các cửa sổ lên /topic/stats/top-selling khi có đơn mới (gom lại, tối đa 1 lần / chu kỳ)
+    @Scheduled(fixedDelayString = "${app.stats.top-selling.push-interval-ms:2000}")
+    public void pushIfChanged() {
+        if (!changed || messagingTemplate == null) {
+            return;
+        }
+        changed = false;
+        Map<String, List<ProductSalesDTO>> payload = new LinkedHashMap<>();
+        for (Window window : Window.values()) {
+            payload.put(window.name().toLowerCase(), top(window, pushLimit));
+        }
+        messagingTemplate.convertAndSend("/topic/stats/top-selling", payload);
+    }
+
+    private static long minuteSlot(LocalDateTime at) {
+        return at.toEpochSecond(ZoneOffset.UTC) / 60 / MINUTES_PER_SLOT;
+    }
+
+    // Vòng khung thời gian: khung "epoch" nằm ở ô epoch % size, ô chứa khung cũ thì xóa trước khi dùng lại
+    private static final class Ring {
+        private final long[] epochs;
+        private final SpaceSaving[] slots;
+
+        Ring(int size, int capacity) {
+            epochs = new long[size];
+            slots = new SpaceSaving[size];
+            for (int i = 0; i < size; i++) {
+                epochs[i] = Long.MIN_VALUE;
+                slots[i] = new SpaceSaving(capacity);
+            }
+        }
+
+        SpaceSaving slot(long epoch) {
+            int i = (int) Math.floorMod(epoch, (long) slots.length);
+            if (epochs[i] != epoch) {
+                epochs[i] = epoch;
+                slots[i].clear();
+            }
+            return slots[i];
+        }
+
+        // Các khung trong (current - span, current]
+        List<SpaceSaving> recent(long current, int span) {
+            List<SpaceSaving> result = new ArrayList<>(span);
+            for (int i = 0; i < slots.length; i++) {
+                if (epochs[i] <= current && epochs[i] > current - span) {
+                    result.add(slots[i]);
+                }
+            }
+            return result;
+        }
+
+        void clear() {
+            for (int i = 0; i < slots.length; i++) {
+                epochs[i] = Long.MIN_VALUE;
+                slots[i].clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.tranthanhsang.example304.security.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Tiện ích chạy việc phụ (xóa cache, cập nhật chỉ mục...) sau khi transaction commit
+final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    // Đang trong transaction → chạy sau commit (rollback thì bỏ); ngoài transaction → chạy ngay
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -66,6 +66,13 @@ public class UserDetailsImpl implements UserDetails {
                 authorities);
     }
 
+    // Principal dựng từ JWT: chỉ có id, username và quyền (không đọc DB)
+    public static UserDetailsImpl fromToken(Long id, String username,
+            Collection<? extends GrantedAuthority> authorities) {
+        return new UserDetailsImpl(id, username, null, null, null, null, null,
+                true, null, null, authorities);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
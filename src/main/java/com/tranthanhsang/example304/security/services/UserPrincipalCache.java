@@ -0,0 +1,47 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+
+// Cache ngắn hạn, giới hạn kích thước cho UserDetails đọc từ DB.
+// Dùng cho token cũ (chưa có claim id/quyền) và các đường dẫn cần dữ liệu mới.
+// UserService xóa entry khi đổi quyền / sửa / xóa tài khoản.
+@Component
+public class UserPrincipalCache {
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Value("${app.auth.principal-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${app.auth.principal-cache.max-size:1000}")
+    private long maxSize;
+
+    private Cache<String, UserDetailsImpl> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public UserDetailsImpl get(String username) {
+        return cache.get(username, key -> (UserDetailsImpl) userDetailsService.loadUserByUsername(key));
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+}
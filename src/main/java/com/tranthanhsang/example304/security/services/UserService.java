@@ -33,6 +33,12 @@ public class UserService {
     private RoleRepository roleRepository;
     @Autowired
     private FileUploadService fileUploadService;
+    @Autowired
+    private UserPrincipalCache principalCache;
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    @Autowired
+    private RefreshTokenService refreshTokenService;
 
     // Lấy tất cả Employees
     public Page<User> getEmployees(Pageable pageable) {
@@ -66,6 +72,9 @@ public class UserService {
             fileUploadService.deleteImage(oldImageUrl);
         }
 
+        // ✅ Thông tin tài khoản thay đổi → bỏ principal đã cache (theo username cũ)
+        principalCache.invalidate(user.getUsername());
+
         if (userUpdate.getUsername() != null && !userUpdate.getUsername().equals(user.getUsername())) {
             validateNameField(userUpdate.getUsername(), "Username");
             if (userRepository.existsByUsername(userUpdate.getUsername().trim())) {
@@ -127,7 +136,12 @@ public class UserService {
 
         user.setRoles(roles);
         user.setUpdatedAt(LocalDateTime.now());
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+
+        // ✅ Quyền thay đổi → bỏ principal đã cache, thu hồi token mang quyền cũ
+        principalCache.invalidate(saved.getUsername());
+        tokenRevocationService.revokeAllForUser(saved.getId());
+        return saved;
     }
 
     public void deleteUser(Long id) {
@@ -136,7 +150,11 @@ public class UserService {
         if (user.getImageUrl() != null && !user.getImageUrl().isBlank()) {
             fileUploadService.deleteImage(user.getImageUrl());
         }
+        // Xóa refresh token trước (khóa ngoại tới users)
+        refreshTokenService.deleteAllForUser(user.getId());
         userRepository.delete(user);
+        principalCache.invalidate(user.getUsername());
+        tokenRevocationService.revokeAllForUser(user.getId());
     }
 
     public User registerNewUser(SignupRequest signUpRequest) {
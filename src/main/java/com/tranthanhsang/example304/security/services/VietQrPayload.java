@@ -0,0 +1,63 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.nio.charset.StandardCharsets;
+
+// Chuỗi QR chuyển khoản VietQR (chuẩn EMVCo của NAPAS), dựng tại chỗ thay cho ảnh từ img.vietqr.io.
+// Mỗi trường = ID (2 số) + độ dài (2 số) + giá trị; cuối chuỗi là CRC16-CCITT (0x1021, khởi tạo 0xFFFF).
+final class VietQrPayload {
+    private static final String NAPAS_GUID = "A000000727";
+    // Chuyển khoản nhanh 24/7 tới số tài khoản
+    private static final String SERVICE_ACCOUNT_TRANSFER = "QRIBFTTA";
+    private static final String CURRENCY_VND = "704";
+
+    private VietQrPayload() {
+    }
+
+    static String build(String bankBin, String accountNo, long amount, String info) {
+        StringBuilder sb = new StringBuilder(128);
+        field(sb, "00", "01");
+        // 12 = QR động (có số tiền, dùng 1 lần)
+        field(sb, "01", "12");
+        field(sb, "38", field("00", NAPAS_GUID)
+                + field("01", field("00", bankBin) + field("01", accountNo))
+                + field("02", SERVICE_ACCOUNT_TRANSFER));
+        field(sb, "53", CURRENCY_VND);
+        if (amount > 0) {
+            field(sb, "54", Long.toString(amount));
+        }
+        field(sb, "58", "VN");
+        if (info != null && !info.isEmpty()) {
+            field(sb, "62", field("08", info));
+        }
+        sb.append("6304");
+        return sb.append(String.format("%04X", crc16(sb))).toString();
+    }
+
+    static int crc16(CharSequence data) {
+        int crc = 0xFFFF;
+        for (byte b : data.toString().getBytes(StandardCharsets.UTF_8)) {
+            crc ^= (b & 0xFF) << 8;
+            for (int i = 0; i < 8; i++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+        }
+        return crc & 0xFFFF;
+    }
+
+    private static void field(StringBuilder sb, String id, String value) {
+        if (value.length() > 99) {
+            throw new IllegalArgumentException("Trường " + id + " của VietQR dài quá 99 ký tự");
+        }
+        sb.append(id);
+        if (value.length() < 10) {
+            sb.append('0');
+        }
+        sb.append(value.length()).append(value);
+    }
+
+    private static String field(String id, String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 4);
+        field(sb, id, value);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.pdf.BarcodeQRCode;
+import com.itextpdf.text.pdf.qrcode.EncodeHintType;
+import com.itextpdf.text.pdf.qrcode.ErrorCorrectionLevel;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+
+import jakarta.annotation.PostConstruct;
+
+// Ảnh QR thanh toán VietQR cho hóa đơn, sinh ngay trong tiến trình (không gọi mạng).
+// Ảnh đã mã hóa được cache theo (số tiền, mã đơn); mỗi lần lấy trả bản sao vì PDF sẽ co giãn / căn lề ảnh.
+@Service
+public class VietQrService {
+    @Value("${app.payment.vietqr.bank-bin:970422}")
+    private String bankBin;
+    @Value("${app.payment.vietqr.account-no:0398617329}")
+    private String accountNo;
+    @Value("${app.payment.vietqr.cache-size:500}")
+    private long cacheSize;
+
+    private Cache<QrKey, Image> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    // ✅ Ảnh QR cho đơn hàng: nội dung chuyển khoản "DonHang{orderId}" như trước
+    public Image image(long amount, Long orderId) throws BadElementException {
+        Image qr = cache.get(new QrKey(amount, orderId), key -> encode(payload(key.amount(), key.orderId())));
+        return Image.getInstance(qr);
+    }
+
+    // Ảnh QR của hóa đơn: tổng tiền + mã đơn (dùng chung cho PDF xem lẻ và xuất hàng loạt)
+    public Image image(BillDTO bill) throws BadElementException {
+        return image(bill.getTotalAmount().longValue(), bill.getOrderId());
+    }
+
+    public String payload(long amount, Long orderId) {
+        return VietQrPayload.build(bankBin, accountNo, amount, orderId != null ? "DonHang" + orderId : null);
+    }
+
+    private static Image encode(String payload) {
+        try {
+            return new BarcodeQRCode(payload, 1, 1,
+                    Map.<EncodeHintType, Object>of(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M)).getImage();
+        } catch (BadElementException e) {
+            throw new IllegalStateException("Không tạo được mã QR: " + e.getMessage(), e);
+        }
+    }
+
+    private record QrKey(long amount, Long orderId) {
+    }
+}
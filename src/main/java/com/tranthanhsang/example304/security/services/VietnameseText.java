@@ -0,0 +1,54 @@
+package com.tranthanhsang.example304.security.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Chuẩn hóa chuỗi tiếng Việt để so khớp không phân biệt hoa thường / dấu:
+// "Trà Đào Cam Sả" → "tra dao cam sa"
+public final class VietnameseText {
+
+    private VietnameseText() {
+    }
+
+    // Chữ thường, bỏ dấu, đ → d
+    public static String fold(String text) {
+        if (text == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(text.trim(), Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (c == 'đ' || c == 'Đ') {
+                c = 'd';
+            }
+            sb.append(c);
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // Tách từ sau khi chuẩn hóa (chỉ giữ chữ + số)
+    public static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        String folded = fold(text);
+        if (folded == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
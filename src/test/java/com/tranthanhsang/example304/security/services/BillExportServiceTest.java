@@ -0,0 +1,140 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import com.tranthanhsang.example304.entity.Bill;
+import com.tranthanhsang.example304.entity.Order;
+import com.tranthanhsang.example304.entity.TableEntity;
+import com.tranthanhsang.example304.entity.enums.OrderStatus;
+import com.tranthanhsang.example304.entity.enums.PaymentMethod;
+import com.tranthanhsang.example304.entity.enums.PaymentStatus;
+import com.tranthanhsang.example304.repository.BillRepository;
+import com.tranthanhsang.example304.security.services.BillExportService.Format;
+import com.tranthanhsang.example304.security.services.BillExportService.Range;
+
+// Xuất hàng loạt: đọc theo lô keyset (kể cả nhiều hóa đơn trùng giờ), đúng khoảng ngày, đúng thứ tự;
+// phiên bản PDF (khóa cache / ETag) đổi theo cả lần sửa đơn hàng
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "logging.level.org.hibernate=WARN",
+        "app.bills.export.batch-size=4"
+})
+@Import({ BillExportService.class, OrderDtoAssembler.class, OrderDtoMapper.class, BillPdfRenderer.class,
+        VietQrService.class })
+class BillExportServiceTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 15);
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private BillExportService exporter;
+    @Autowired
+    private BillRepository billRepo;
+
+    private final List<Long> billsOnDay = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        TableEntity table = em.persist(TableEntity.builder().number(3).capacity(4).build());
+        // 3 hóa đơn / giờ, cùng giờ → keyset phải phân biệt bằng id; từ 20:00 ngày 14 đến 03:00 ngày 16
+        for (int hour = 0; hour < 32; hour++) {
+            for (int k = 0; k < 3; k++) {
+                Order order = em.persist(Order.builder()
+                        .table(table)
+                        .status(OrderStatus.PAID)
+                        .totalAmount(new BigDecimal("45000"))
+                        .items(new ArrayList<>())
+                        .build());
+                Bill bill = em.persist(Bill.builder()
+                        .order(order)
+                        .totalAmount(order.getTotalAmount())
+                        .paymentMethod(PaymentMethod.CASH)
+                        .paymentStatus(PaymentStatus.COMPLETED)
+                        .issuedAt(DAY.minusDays(1).atTime(20, 0).plusHours(hour))
+                        .build());
+                if (bill.getIssuedAt().toLocalDate().equals(DAY)) {
+                    billsOnDay.add(bill.getId());
+                }
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void csvContainsEveryBillOfTheDayInOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = exporter.export(exporter.range(DAY.toString(), DAY.toString()), Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(count).isEqualTo(72);
+        assertThat(lines).hasSize(73);
+        assertThat(lines[0]).startsWith("\uFEFFbill_id,issued_at,order_id,table_number");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i < lines.length; i++) {
+            ids.add(Long.valueOf(lines[i].substring(0, lines[i].indexOf(','))));
+        }
+        assertThat(ids).containsExactlyElementsOf(billsOnDay);
+        assertThat(lines[1]).endsWith(",CASH,COMPLETED,,0,0,0,45000.00");
+    }
+
+    @Test
+    void pdfVersionFollowsOrderEdits() {
+        Long billId = billsOnDay.get(0);
+        Bill bill = em.find(Bill.class, billId);
+        LocalDateTime issued = bill.getIssuedAt();
+        assertThat(billRepo.findPdfVersion(billId)).contains(issued);
+
+        // Sửa đơn hàng của hóa đơn (món / tổng tiền) → PDF và phiếu in có phiên bản mới
+        Order order = bill.getOrder();
+        order.setUpdatedAt(issued.plusMinutes(5));
+        em.flush();
+        assertThat(billRepo.findPdfVersion(billId)).contains(issued.plusMinutes(5));
+
+        // Hóa đơn sửa sau đó → lấy mốc của hóa đơn
+        bill.setUpdatedAt(issued.plusMinutes(9));
+        em.flush();
+        assertThat(billRepo.findPdfVersion(billId)).contains(issued.plusMinutes(9));
+    }
+
+    @Test
+    void zipHasOnePdfPerBill() throws Exception {
+        Range range = exporter.range(DAY.plusDays(1).toString(), DAY.plusDays(1).toString());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = exporter.export(range, Format.ZIP, out);
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                PdfReader reader = new PdfReader(zip.readAllBytes());
+                assertThat(PdfTextExtractor.getTextFromPage(reader, 1)).contains("HÓA ĐƠN THANH TOÁN #");
+                reader.close();
+            }
+        }
+        // 00:00 → 03:00 ngày 16: 4 giờ × 3 hóa đơn
+        assertThat(count).isEqualTo(12);
+        assertThat(names).hasSize(12).allMatch(name -> name.matches("HoaDon_\\d+\\.pdf"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.tranthanhsang.example304.security.services.BillPdfCache.CachedPdf;
+import com.tranthanhsang.example304.security.services.BillPdfCache.Key;
+
+// Cache PDF hóa đơn: cùng phiên bản chỉ dựng 1 lần, sửa hóa đơn → phiên bản mới, invalidate xóa file trên đĩa
+class BillPdfCacheTest {
+    private static final LocalDateTime V1 = LocalDateTime.of(2025, 6, 15, 9, 30);
+
+    @TempDir
+    Path dir;
+
+    private BillPdfCache cache;
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new BillPdfCache();
+        ReflectionTestUtils.setField(cache, "dir", dir.toString());
+        ReflectionTestUtils.setField(cache, "maxBytes", 1_000_000L);
+        cache.init();
+    }
+
+    @Test
+    void rendersOncePerVersionAndDropsFilesOnInvalidate() throws Exception {
+        CachedPdf first = cache.get(new Key(7L, V1), () -> render("v1"));
+        CachedPdf again = cache.get(new Key(7L, V1), () -> render("v1"));
+
+        assertThat(renders).hasValue(1);
+        assertThat(again.file()).isEqualTo(first.file());
+        assertThat(Files.readString(first.file())).isEqualTo("v1");
+        assertThat(first.size()).isEqualTo(2);
+
+        // Hóa đơn được sửa → updatedAt mới → khóa mới, ETag khác
+        Key v2 = new Key(7L, V1.plusMinutes(5));
+        assertThat(v2.etag()).isNotEqualTo(new Key(7L, V1).etag());
+        CachedPdf second = cache.get(v2, () -> render("v2"));
+        assertThat(renders).hasValue(2);
+        assertThat(Files.readString(second.file())).isEqualTo("v2");
+
+        cache.invalidate(7L);
+        awaitDeleted(first.file());
+        awaitDeleted(second.file());
+
+        cache.get(v2, () -> render("v2"));
+        assertThat(renders).hasValue(3);
+    }
+
+    @Test
+    void fileRemovedBehindTheCacheIsRebuilt() throws Exception {
+        CachedPdf first = cache.get(new Key(8L, V1), () -> render("pdf"));
+        Files.delete(first.file());
+
+        CachedPdf rebuilt = cache.get(new Key(8L, V1), () -> render("pdf"));
+
+        assertThat(renders).hasValue(2);
+        assertThat(Files.readString(rebuilt.file())).isEqualTo("pdf");
+    }
+
+    private byte[] render(String content) {
+        renders.incrementAndGet();
+        return content.getBytes();
+    }
+
+    // Caffeine gọi removal listener bất đồng bộ
+    private static void awaitDeleted(Path file) throws InterruptedException {
+        for (int i = 0; i < 100 && Files.exists(file); i++) {
+            Thread.sleep(20);
+        }
+        assertThat(file).doesNotExist();
+    }
+}
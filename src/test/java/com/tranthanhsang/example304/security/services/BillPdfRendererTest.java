@@ -0,0 +1,121 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.payload.response.OrderItemDTO;
+import com.tranthanhsang.example304.security.services.BillPdfRenderer.BillPdfBusyException;
+
+// PDF hóa đơn dùng font đóng gói sẵn: chữ tiếng Việt đọc lại được, nhiều luồng dùng chung font vẫn đúng,
+// pool đầy thì từ chối ngay
+class BillPdfRendererTest {
+    private BillPdfRenderer renderer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        renderer = new BillPdfRenderer();
+        ReflectionTestUtils.setField(renderer, "fontPath", "");
+        ReflectionTestUtils.setField(renderer, "threads", 2);
+        ReflectionTestUtils.setField(renderer, "queueCapacity", 16);
+        ReflectionTestUtils.setField(renderer, "timeoutMs", 10_000L);
+        renderer.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        renderer.shutdown();
+    }
+
+    @Test
+    void rendersVietnameseTextWithBundledFont() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<byte[]>> pdfs = new ArrayList<>();
+            for (long id = 1; id <= 8; id++) {
+                BillDTO dto = bill(id);
+                pdfs.add(callers.submit(() -> renderer.render(dto, () -> null)));
+            }
+            for (int i = 0; i < pdfs.size(); i++) {
+                PdfReader reader = new PdfReader(pdfs.get(i).get());
+                String text = PdfTextExtractor.getTextFromPage(reader, 1);
+                reader.close();
+
+                assertThat(text).contains("COFFEE THANH XANN");
+                assertThat(text).contains("HÓA ĐƠN THANH TOÁN #" + (i + 1));
+                assertThat(text).contains("Trà đào cam sả");
+                assertThat(text).contains("(Không thể tải mã QR)");
+            }
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        renderer.shutdown();
+        ReflectionTestUtils.setField(renderer, "threads", 1);
+        ReflectionTestUtils.setField(renderer, "queueCapacity", 1);
+        renderer.init();
+
+        // Luồng duy nhất bị giữ ở bước tải QR, 1 yêu cầu nằm trong hàng đợi → yêu cầu thứ 3 bị từ chối
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            callers.submit(() -> renderer.render(bill(1L), () -> {
+                release.await();
+                return null;
+            }));
+            callers.submit(() -> renderer.render(bill(2L), () -> null));
+            while (((ThreadPoolExecutor) ReflectionTestUtils.getField(renderer, "executor"))
+                    .getQueue().size() < 1) {
+                Thread.sleep(10);
+            }
+
+            assertThatThrownBy(() -> renderer.render(bill(3L), () -> null))
+                    .isInstanceOf(BillPdfBusyException.class);
+        } finally {
+            release.countDown();
+            callers.shutdown();
+        }
+    }
+
+    private static BillDTO bill(long id) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductName("Trà đào cam sả");
+        item.setQuantity(2);
+        item.setPrice(new BigDecimal("35000"));
+        item.setSubtotal(new BigDecimal("70000"));
+
+        BillDTO dto = new BillDTO();
+        dto.setId(id);
+        dto.setOrderId(id);
+        dto.setIssuedAt(LocalDateTime.of(2025, 6, 15, 9, 30));
+        dto.setTableNumber(5);
+        dto.setEmployeeName("Nguyễn Văn Đức");
+        dto.setPaymentMethod("CASH");
+        dto.setPaymentStatus("PAID");
+        dto.setOriginalAmount(new BigDecimal("70000"));
+        dto.setDiscountAmount(BigDecimal.ZERO);
+        dto.setTotalAmount(new BigDecimal("70000"));
+        dto.setItems(List.of(item));
+        return dto;
+    }
+}
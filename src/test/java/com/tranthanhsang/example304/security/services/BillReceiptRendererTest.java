@@ -0,0 +1,138 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.payload.response.OrderItemDTO;
+
+// Phiếu in ESC/POS: tiếng Việt đúng bảng mã 1258 (chữ gốc + dấu thanh), cột 48 ký tự, QR bằng lệnh máy in,
+// cache theo phiên bản giống PDF
+class BillReceiptRendererTest {
+    private static final Charset CP1258 = Charset.forName("windows-1258");
+
+    private BillReceiptRenderer renderer;
+    private VietQrService vietQrService;
+
+    @BeforeEach
+    void setUp() {
+        vietQrService = new VietQrService();
+        ReflectionTestUtils.setField(vietQrService, "bankBin", "970422");
+        ReflectionTestUtils.setField(vietQrService, "accountNo", "0398617329");
+        ReflectionTestUtils.setField(vietQrService, "cacheSize", 10L);
+        vietQrService.init();
+
+        renderer = new BillReceiptRenderer();
+        ReflectionTestUtils.setField(renderer, "vietQrService", vietQrService);
+        ReflectionTestUtils.setField(renderer, "codePage", 52);
+        ReflectionTestUtils.setField(renderer, "ascii", false);
+        ReflectionTestUtils.setField(renderer, "qrModuleSize", 6);
+        ReflectionTestUtils.setField(renderer, "cacheMaxBytes", 1_000_000L);
+        renderer.init();
+    }
+
+    @Test
+    void encodesVietnameseAndEmbedsQr() {
+        byte[] receipt = renderer.render(bill(12L));
+        String text = new String(receipt, CP1258);
+
+        assertThat(receipt.length).isLessThan(4096);
+        // ESC @ rồi ESC t 52
+        assertThat(receipt).startsWith(0x1B, '@', 0x1B, 't', 52);
+        // Đ, ư, ơ có sẵn trong bảng mã; "ễ" = ê (0xEA) + dấu ngã tổ hợp (0xDE)
+        assertThat(Normalizer.normalize(text, Normalizer.Form.NFC))
+                .contains("Nguyễn Văn Đức", "Cà phê sữa đá", "TỔNG CỘNG", String.format("%,.0f₫", 70000.0));
+        assertThat(indexOf(receipt, new byte[] { 'N', 'g', 'u', 'y', (byte) 0xEA, (byte) 0xDE, 'n' })).isPositive();
+
+        // Khối QR: GS ( k pL pH '1' 'P' '0' + payload VietQR
+        String payload = vietQrService.payload(70000, 12L);
+        int length = payload.length() + 3;
+        byte[] store = concat(new byte[] { 0x1D, '(', 'k', (byte) (length & 0xFF), (byte) (length >> 8), '1', 'P', '0' },
+                payload.getBytes(StandardCharsets.US_ASCII));
+        assertThat(indexOf(receipt, store)).isPositive();
+        // Kết thúc bằng lệnh cắt giấy
+        assertThat(receipt).endsWith(0x1D, 'V', 66, 3);
+    }
+
+    @Test
+    void alignsColumnsAndCachesPerVersion() {
+        EscPosReceipt receipt = new EscPosReceipt(52, true);
+        receipt.columns("Tạm tính", "70.000₫");
+        String line = new String(receipt.toByteArray(), StandardCharsets.US_ASCII).substring(2);
+        assertThat(line).isEqualTo("Tam tinh" + " ".repeat(EscPosReceipt.WIDTH - 15) + "70.000d\n");
+
+        AtomicInteger renders = new AtomicInteger();
+        BillPdfCache.Key v1 = new BillPdfCache.Key(12L, LocalDateTime.of(2025, 6, 15, 9, 30));
+        byte[] first = renderer.get(v1, () -> {
+            renders.incrementAndGet();
+            return bill(12L);
+        });
+        byte[] again = renderer.get(v1, () -> {
+            renders.incrementAndGet();
+            return bill(12L);
+        });
+        assertThat(again).isSameAs(first);
+        assertThat(renders).hasValue(1);
+
+        renderer.invalidate(12L);
+        renderer.get(v1, () -> {
+            renders.incrementAndGet();
+            return bill(12L);
+        });
+        assertThat(renders).hasValue(2);
+        assertThat(v1.etag("receipt")).isNotEqualTo(v1.etag());
+    }
+
+    private static BillDTO bill(long id) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductName("Cà phê sữa đá");
+        item.setQuantity(2);
+        item.setPrice(new BigDecimal("35000"));
+        item.setSubtotal(new BigDecimal("70000"));
+
+        BillDTO dto = new BillDTO();
+        dto.setId(id);
+        dto.setOrderId(id);
+        dto.setIssuedAt(LocalDateTime.of(2025, 6, 15, 9, 30));
+        dto.setTableNumber(5);
+        dto.setEmployeeName("Nguyễn Văn Đức");
+        dto.setPaymentMethod("CASH");
+        dto.setPaymentStatus("PAID");
+        dto.setOriginalAmount(new BigDecimal("70000"));
+        dto.setDiscountAmount(BigDecimal.ZERO);
+        dto.setTotalAmount(new BigDecimal("70000"));
+        dto.setItems(List.of(item));
+        return dto;
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer: for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(a, 0, a.length);
+        out.write(b, 0, b.length);
+        return out.toByteArray();
+    }
+}
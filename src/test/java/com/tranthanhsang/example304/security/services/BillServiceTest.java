@@ -0,0 +1,181 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tranthanhsang.example304.entity.Bill;
+import com.tranthanhsang.example304.entity.Order;
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.TableEntity;
+import com.tranthanhsang.example304.entity.enums.OrderStatus;
+import com.tranthanhsang.example304.entity.enums.PaymentMethod;
+import com.tranthanhsang.example304.entity.enums.PaymentStatus;
+import com.tranthanhsang.example304.entity.enums.Status;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.payload.response.OrderDTO;
+import com.tranthanhsang.example304.payload.response.ProductSalesDTO;
+import com.tranthanhsang.example304.payload.response.RevenueCountDTO;
+import com.tranthanhsang.example304.repository.BillRepository;
+import com.tranthanhsang.example304.repository.OrderRepository;
+import com.tranthanhsang.example304.repository.ProductRepository;
+import com.tranthanhsang.example304.repository.TableRepository;
+
+// Thanh toán tiền mặt / chuyển khoản qua BillService (PENDING → COMPLETED): đơn PAID, bàn FREE và bảng tổng hợp
+// doanh số đổi cùng 1 transaction; ghi bảng tổng hợp lỗi → hóa đơn và đơn hàng giữ nguyên trạng thái
+@DataJpaTest(properties = {
+        "spring.test.database.replace=none",
+        "spring.datasource.url=jdbc:h2:mem:bills;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "logging.level.org.hibernate=WARN"
+})
+@Import({ BillService.class, OrderService.class, TableService.class, VnPayService.class, OrderDtoAssembler.class,
+        OrderDtoMapper.class, PromotionEngine.class, MenuSnapshotService.class, TopSellingTracker.class,
+        RevenueSeriesService.class, BillPdfRenderer.class, VietQrService.class, BillPdfCache.class,
+        BillReceiptRenderer.class, BillServiceTest.Beans.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BillServiceTest {
+    private static final AtomicBoolean FAIL_ROLLUP = new AtomicBoolean();
+
+    @TestConfiguration
+    static class Beans {
+        @Bean
+        SimpMessagingTemplate messagingTemplate() {
+            return new SimpMessagingTemplate((message, timeout) -> true);
+        }
+
+        // Bảng tổng hợp có thể bật lỗi khi cộng đơn PAID
+        @Bean
+        SalesRollupService salesRollupService() {
+            return new SalesRollupService() {
+                @Override
+                public void recordPaid(Order order) {
+                    if (FAIL_ROLLUP.get()) {
+                        throw new RuntimeException("❌ Ghi bảng tổng hợp thất bại");
+                    }
+                    super.recordPaid(order);
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private BillService billService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private SalesRollupService rollups;
+    @Autowired
+    private BillRepository billRepo;
+    @Autowired
+    private OrderRepository orderRepo;
+    @Autowired
+    private ProductRepository productRepo;
+    @Autowired
+    private TableRepository tableRepo;
+
+    private TableEntity table;
+    private Product tea;
+
+    @BeforeEach
+    void seed() {
+        table = tableRepo.save(TableEntity.builder().number(9).capacity(4).status(Status.OCCUPIED).build());
+        tea = productRepo.save(Product.builder()
+                .name("Trà đào")
+                .price(new BigDecimal("40000"))
+                .isActive(true)
+                .stockQuantity(10)
+                .promotions(new ArrayList<>())
+                .build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        FAIL_ROLLUP.set(false);
+        billRepo.deleteAll();
+        orderRepo.deleteAll();
+        productRepo.deleteAll();
+        tableRepo.deleteAll();
+        rollups.rebuild();
+    }
+
+    @Test
+    void completingAPendingBillPaysTheOrderAndUpdatesRollups() {
+        BillDTO bill = pendingBill(2);
+
+        billService.updatePaymentStatus(bill.getId(), PaymentStatus.COMPLETED);
+
+        assertThat(billRepo.findById(bill.getId()).orElseThrow().getPaymentStatus())
+                .isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(orderRepo.findById(bill.getOrderId()).orElseThrow().getStatus()).isEqualTo(OrderStatus.PAID);
+        assertThat(tableRepo.findById(table.getId()).orElseThrow().getStatus()).isEqualTo(Status.FREE);
+
+        List<RevenueCountDTO> live = rollups.dailyRevenue(1);
+        assertThat(live).extracting(RevenueCountDTO::getOrderCount).containsExactly(1L);
+        assertThat(live.get(0).getTotalRevenue()).isEqualByComparingTo("80000");
+        assertThat(rollups.topSellingProducts(10))
+                .extracting(ProductSalesDTO::getProductId, ProductSalesDTO::getTotalQuantity)
+                .containsExactly(tuple(tea.getId(), 2L));
+
+        // Hoàn tất lần nữa → không cộng thêm
+        billService.updatePaymentStatus(bill.getId(), PaymentStatus.COMPLETED);
+        assertThat(rollups.dailyRevenue(1)).extracting(RevenueCountDTO::getOrderCount).containsExactly(1L);
+    }
+
+    @Test
+    void failedRollupLeavesBillAndOrderPending() {
+        BillDTO bill = pendingBill(1);
+        FAIL_ROLLUP.set(true);
+
+        assertThatThrownBy(() -> billService.updatePaymentStatus(bill.getId(), PaymentStatus.COMPLETED))
+                .hasMessageContaining("bảng tổng hợp");
+
+        assertThat(billRepo.findById(bill.getId()).orElseThrow().getPaymentStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(orderRepo.findById(bill.getOrderId()).orElseThrow().getStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(tableRepo.findById(table.getId()).orElseThrow().getStatus()).isEqualTo(Status.OCCUPIED);
+        assertThat(rollups.dailyRevenue(1)).isEmpty();
+
+        // Thử lại sau khi hết lỗi → cộng đúng 1 lần
+        FAIL_ROLLUP.set(false);
+        billService.updatePaymentStatus(bill.getId(), PaymentStatus.COMPLETED);
+        assertThat(rollups.dailyRevenue(1)).extracting(RevenueCountDTO::getOrderCount).containsExactly(1L);
+    }
+
+    // Đơn PENDING kèm hóa đơn tiền mặt chờ thanh toán
+    private BillDTO pendingBill(int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProduct(Product.builder().id(tea.getId()).build());
+        item.setPrice(tea.getPrice());
+        item.setQuantity(quantity);
+        OrderDTO order = orderService.create(Order.builder()
+                .table(TableEntity.builder().id(table.getId()).build())
+                .status(OrderStatus.PENDING)
+                .items(new ArrayList<>(List.of(item)))
+                .build());
+
+        return billService.create(Bill.builder()
+                .order(Order.builder().id(order.getId()).build())
+                .totalAmount(order.getTotalAmount())
+                .paymentMethod(PaymentMethod.CASH)
+                .paymentStatus(PaymentStatus.PENDING)
+                .build());
+    }
+}
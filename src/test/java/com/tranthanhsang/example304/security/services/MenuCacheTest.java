@@ -0,0 +1,150 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tranthanhsang.example304.entity.Category;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.Promotion;
+import com.tranthanhsang.example304.repository.CategoryRepository;
+import com.tranthanhsang.example304.repository.ProductRepository;
+import com.tranthanhsang.example304.repository.PromotionRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Kiểm tra second-level cache / query cache của menu và việc xóa cache khi ghi.
+// Không bọc test trong transaction: mỗi lần gọi repository là 1 transaction riêng (commit thật).
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate=WARN"
+})
+@Import({ PromotionService.class, PromotionEngine.class, MenuCacheEvictor.class, MenuSnapshotService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MenuCacheTest {
+
+    @Autowired
+    private EntityManagerFactory emf;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CategoryRepository categoryRepo;
+    @Autowired
+    private ProductRepository productRepo;
+    @Autowired
+    private PromotionRepository promoRepo;
+    @Autowired
+    private PromotionService promotionService;
+
+    private Category parent;
+    private Product tra;
+    private Product caPhe;
+
+    @BeforeEach
+    void seed() {
+        parent = categoryRepo.save(Category.builder().name("Đồ uống").build());
+        Category category = categoryRepo.save(Category.builder().name("Trà").parentCategory(parent).build());
+        tra = productRepo.save(product("Trà đào", category));
+        caPhe = productRepo.save(product("Cà phê sữa", category));
+        emf.getCache().evictAll();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        promoRepo.deleteAll();
+        productRepo.deleteAll();
+        categoryRepo.findAll().stream()
+                .filter(c -> c.getParentCategory() != null)
+                .forEach(categoryRepo::delete);
+        categoryRepo.deleteAll();
+    }
+
+    @Test
+    void productIsServedFromSecondLevelCache() {
+        productRepo.findById(tra.getId()).orElseThrow();
+
+        Statistics stats = statistics();
+        Product cached = productRepo.findById(tra.getId()).orElseThrow();
+
+        assertThat(cached.getName()).isEqualTo("Trà đào");
+        assertThat(stats.getPrepareStatementCount()).isZero();
+        assertThat(stats.getSecondLevelCacheHitCount()).isGreaterThan(0);
+    }
+
+    @Test
+    void childCategoryQueryIsCachedAndInvalidatedOnWrite() {
+        categoryRepo.findByParentCategory_Id(parent.getId());
+
+        Statistics stats = statistics();
+        List<Category> children = categoryRepo.findByParentCategory_Id(parent.getId());
+        assertThat(children).hasSize(1);
+        assertThat(stats.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(stats.getPrepareStatementCount()).isZero();
+
+        // Ghi vào bảng categories → kết quả cache cũ không còn được dùng
+        categoryRepo.save(Category.builder().name("Cà phê").parentCategory(parent).build());
+        assertThat(categoryRepo.findByParentCategory_Id(parent.getId())).hasSize(2);
+    }
+
+    @Test
+    void promotionWritesEvictInverseProductPromotions() {
+        Promotion promotion = promotionService.create(Promotion.builder()
+                .name("Giảm 10%")
+                .discountPercentage(new BigDecimal("10"))
+                .isActive(true)
+                .products(new ArrayList<>(List.of(Product.builder().id(tra.getId()).build())))
+                .build());
+        // Nạp Product.promotions vào cache
+        assertThat(promotionNamesOf(tra.getId())).containsExactly("Giảm 10%");
+
+        // Chuyển khuyến mãi từ Trà đào sang Cà phê sữa
+        promotion.setProducts(new ArrayList<>(List.of(Product.builder().id(caPhe.getId()).build())));
+        promotionService.update(promotion.getId(), promotion);
+
+        assertThat(promotionNamesOf(tra.getId())).isEmpty();
+        assertThat(promotionNamesOf(caPhe.getId())).containsExactly("Giảm 10%");
+
+        promotionService.delete(promotion.getId());
+        assertThat(promotionNamesOf(caPhe.getId())).isEmpty();
+    }
+
+    private List<String> promotionNamesOf(Long productId) {
+        return new TransactionTemplate(transactionManager).execute(status -> productRepo.findById(productId)
+                .orElseThrow()
+                .getPromotions().stream()
+                .map(Promotion::getName)
+                .toList());
+    }
+
+    private Statistics statistics() {
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        return stats;
+    }
+
+    private static Product product(String name, Category category) {
+        return Product.builder()
+                .name(name)
+                .price(new BigDecimal("30000"))
+                .category(category)
+                .isActive(true)
+                .promotions(new ArrayList<>())
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tranthanhsang.example304.entity.Category;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.Promotion;
+import com.tranthanhsang.example304.repository.CategoryRepository;
+import com.tranthanhsang.example304.repository.ProductRepository;
+import com.tranthanhsang.example304.repository.PromotionRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Kiểm tra ảnh chụp thực đơn: đọc lại không chạm DB, ghi qua service thì đổi phiên bản / ETag.
+// Không bọc test trong transaction để invalidate() chạy sau commit thật.
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate=WARN"
+})
+@Import({ MenuSnapshotService.class, ProductSearchIndex.class, ProductSuggestService.class, ProductService.class,
+        CategoryService.class, PromotionService.class, PromotionEngine.class, MenuCacheEvictor.class,
+        FileUploadService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MenuSnapshotTest {
+
+    @Autowired
+    private EntityManagerFactory emf;
+    @Autowired
+    private CategoryRepository categoryRepo;
+    @Autowired
+    private ProductRepository productRepo;
+    @Autowired
+    private PromotionRepository promoRepo;
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private PromotionService promotionService;
+
+    private Category tea;
+    private Product peachTea;
+
+    @BeforeEach
+    void seed() {
+        Category drinks = categoryRepo.save(Category.builder().name("Đồ uống").build());
+        tea = categoryRepo.save(Category.builder().name("Trà").parentCategory(drinks).build());
+        Category coffee = categoryRepo.save(Category.builder().name("Cà phê").parentCategory(drinks).build());
+        peachTea = productRepo.save(product("Trà đào", "35000", tea));
+        productRepo.save(product("Trà vải", "30000", tea));
+        productRepo.save(product("Cà phê sữa đá", "25000", coffee));
+        promotionService.create(Promotion.builder()
+                .name("Giảm 10%")
+                .discountPercentage(new BigDecimal("10"))
+                .isActive(true)
+                .products(new ArrayList<>(List.of(Product.builder().id(peachTea.getId()).build())))
+                .build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        promoRepo.deleteAll();
+        productRepo.deleteAll();
+        categoryRepo.findAll().stream()
+                .filter(c -> c.getParentCategory() != null)
+                .forEach(categoryRepo::delete);
+        categoryRepo.deleteAll();
+    }
+
+    @Test
+    void repeatedReadsAreServedWithoutDatabase() throws Exception {
+        MenuSnapshot first = menuSnapshotService.current();
+
+        Statistics stats = statistics();
+        MenuSnapshot second = menuSnapshotService.current();
+        Page<Product> page = second.all(0);
+        List<Product> filtered = second.filter("trà", null, null, "price", "desc");
+        // Serialize ngoài transaction: promotions / products phải được nạp sẵn
+        String json = new ObjectMapper().registerModule(new JavaTimeModule()).writeValueAsString(page);
+
+        assertThat(second).isSameAs(first);
+        assertThat(stats.getPrepareStatementCount()).isZero();
+        assertThat(page.getContent()).extracting(Product::getName)
+                .containsExactly("Cà phê sữa đá", "Trà vải", "Trà đào");
+        assertThat(filtered).extracting(Product::getName).containsExactly("Trà đào", "Trà vải");
+        assertThat(json).contains("\"promotions\":[{").contains("Giảm 10%");
+    }
+
+    @Test
+    void categoryMatchFoldsAccentsAndSearchPageHonoursSort() {
+        MenuSnapshot menu = menuSnapshotService.current();
+        List<Long> ids = menu.products().stream().map(Product::getId).toList();
+
+        Page<Product> result = menu.search(ids, PageRequest.of(0, 2, Sort.by("price")));
+        assertThat(result.getContent()).extracting(Product::getName).containsExactly("Cà phê sữa đá", "Trà vải");
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(menu.byCategory("ca phe", PageRequest.of(0, 12)).getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void serviceWritesChangeVersionAndEtag() {
+        MenuSnapshot before = menuSnapshotService.current();
+        String etag = before.etag("all", 0);
+        assertThat(before.etag("all", 0)).isEqualTo(etag);
+        assertThat(before.etag("all", 1)).isNotEqualTo(etag);
+
+        Product update = product("Trà đào cam sả", "39000", tea);
+        update.setDescription("Mô tả");
+        productService.update(peachTea.getId(), update);
+
+        MenuSnapshot afterProduct = menuSnapshotService.current();
+        assertThat(afterProduct.etag("all", 0)).isNotEqualTo(etag);
+        assertThat(afterProduct.all(0).getContent()).extracting(Product::getName).contains("Trà đào cam sả");
+
+        tea.setName("Trà trái cây");
+        categoryService.update(tea.getId(), tea);
+        MenuSnapshot afterCategory = menuSnapshotService.current();
+        assertThat(afterCategory.getVersion()).isNotEqualTo(afterProduct.getVersion());
+        assertThat(afterCategory.byCategory("tra trai cay", PageRequest.of(0, 12)).getTotalElements()).isEqualTo(2);
+    }
+
+    private Statistics statistics() {
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        return stats;
+    }
+
+    private static Product product(String name, String price, Category category) {
+        return Product.builder()
+                .name(name)
+                .description(name)
+                .price(new BigDecimal(price))
+                .category(category)
+                .isActive(true)
+                .stockQuantity(10)
+                .promotions(new ArrayList<>())
+                .build();
+    }
+}
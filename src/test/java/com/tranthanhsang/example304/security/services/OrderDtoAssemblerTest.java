@@ -0,0 +1,181 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.tranthanhsang.example304.entity.Bill;
+import com.tranthanhsang.example304.entity.Category;
+import com.tranthanhsang.example304.entity.Order;
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.Promotion;
+import com.tranthanhsang.example304.entity.TableEntity;
+import com.tranthanhsang.example304.entity.enums.OrderStatus;
+import com.tranthanhsang.example304.entity.enums.PaymentMethod;
+import com.tranthanhsang.example304.entity.enums.PaymentStatus;
+import com.tranthanhsang.example304.model.User;
+import com.tranthanhsang.example304.payload.response.BillDTO;
+import com.tranthanhsang.example304.payload.response.CursorPage;
+import com.tranthanhsang.example304.payload.response.OrderDTO;
+import com.tranthanhsang.example304.repository.BillRepository;
+import com.tranthanhsang.example304.repository.OrderRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Kiểm tra số câu SQL khi dựng DTO cho 1 trang: phải cố định, không tăng theo số đơn hàng
+// (trang theo con trỏ: không có câu COUNT)
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate=WARN"
+})
+@Import({ OrderDtoAssembler.class, OrderDtoMapper.class })
+class OrderDtoAssemblerTest {
+    private static final int ORDER_COUNT = 30;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private EntityManagerFactory emf;
+    @Autowired
+    private OrderRepository orderRepo;
+    @Autowired
+    private BillRepository billRepo;
+    @Autowired
+    private OrderDtoAssembler assembler;
+
+    @BeforeEach
+    void seed() {
+        Category parent = em.persist(Category.builder().name("Đồ uống").build());
+        Category category = em.persist(Category.builder().name("Trà").parentCategory(parent).build());
+
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            TableEntity table = em.persist(TableEntity.builder().number(i + 1).capacity(4).build());
+
+            User employee = new User("nv" + i, "nv" + i + "@coffee.vn", "secret");
+            employee.setFullName("Nhân viên " + i);
+            em.persist(employee);
+
+            Promotion promotion = em.persist(Promotion.builder().name("KM " + i).isActive(true).build());
+
+            Order order = Order.builder()
+                    .table(table)
+                    .employee(employee)
+                    .promotion(promotion)
+                    .status(OrderStatus.PAID)
+                    .totalAmount(new BigDecimal("90000"))
+                    .createdAt(LocalDateTime.now())
+                    .items(new ArrayList<>())
+                    .build();
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                Product product = em.persist(Product.builder()
+                        .name("Trà đào " + i + "-" + j)
+                        .price(new BigDecimal("30000"))
+                        .category(category)
+                        .imageUrl("/images/" + i + "-" + j + ".jpg")
+                        .build());
+                order.getItems().add(OrderItem.builder()
+                        .order(order)
+                        .product(product)
+                        .quantity(1)
+                        .price(new BigDecimal("30000"))
+                        .subtotal(new BigDecimal("30000"))
+                        .build());
+            }
+            em.persist(order);
+
+            em.persist(Bill.builder()
+                    .order(order)
+                    .totalAmount(order.getTotalAmount())
+                    .paymentMethod(PaymentMethod.CASH)
+                    .paymentStatus(PaymentStatus.COMPLETED)
+                    .issuedAt(LocalDateTime.now())
+                    .build());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 3, 12, 25 })
+    void orderPageUsesFixedNumberOfStatements(int pageSize) {
+        Statistics stats = statistics();
+
+        Page<Order> page = orderRepo.findAllWithRefs(PageRequest.of(0, pageSize, Sort.by("id").descending()));
+        List<OrderDTO> dtos = assembler.toOrderDtos(page.getContent());
+
+        // 1 câu lấy trang + 1 câu COUNT + 1 câu nạp món/sản phẩm
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(dtos).hasSize(pageSize);
+        OrderDTO first = dtos.get(0);
+        assertThat(first.getTableNumber()).isEqualTo(ORDER_COUNT);
+        assertThat(first.getEmployeeName()).isEqualTo("Nhân viên " + (ORDER_COUNT - 1));
+        assertThat(first.getPromotionCode()).isEqualTo("KM " + (ORDER_COUNT - 1));
+        assertThat(first.getItems()).hasSize(ITEMS_PER_ORDER);
+        assertThat(first.getItems().get(0).getProductName()).startsWith("Trà đào ");
+        assertThat(first.getTotalQuantity()).isEqualTo(ITEMS_PER_ORDER);
+        assertThat(first.getOriginalAmount()).isEqualByComparingTo("90000");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 3, 12, 25 })
+    void billPageUsesFixedNumberOfStatements(int pageSize) {
+        Statistics stats = statistics();
+
+        Page<Bill> page = billRepo.findAllWithOrders(PageRequest.of(0, pageSize, Sort.by("id").descending()));
+        List<BillDTO> dtos = assembler.toBillDtos(page.getContent());
+
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(dtos).hasSize(pageSize);
+        assertThat(dtos.get(0).getTableNumber()).isEqualTo(ORDER_COUNT);
+        assertThat(dtos.get(0).getItems()).hasSize(ITEMS_PER_ORDER);
+    }
+
+    @Test
+    void cursorPagesWalkEveryOrderWithoutCountQuery() {
+        List<Long> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            Statistics stats = statistics();
+            List<Order> rows = orderRepo.findPageBefore(PageCursor.decode(cursor), PageRequest.of(0, 12 + 1));
+            CursorPage<OrderDTO> page = PageCursor.page(rows, 12, Order::getId, assembler::toOrderDtos);
+
+            // 1 câu lấy trang + 1 câu nạp món/sản phẩm, không COUNT(*)
+            assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+            page.getContent().forEach(dto -> seen.add(dto.getId()));
+            pageSizes.add(page.getContent().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(pageSizes).containsExactly(12, 12, 6);
+        assertThat(seen).hasSize(ORDER_COUNT).doesNotHaveDuplicates()
+                .isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    private Statistics statistics() {
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        return stats;
+    }
+}
@@ -0,0 +1,231 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tranthanhsang.example304.entity.Order;
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.Promotion;
+import com.tranthanhsang.example304.entity.TableEntity;
+import com.tranthanhsang.example304.entity.enums.OrderStatus;
+import com.tranthanhsang.example304.payload.response.OrderDTO;
+import com.tranthanhsang.example304.payload.response.OrderItemDTO;
+import com.tranthanhsang.example304.payload.response.ProductSalesDTO;
+import com.tranthanhsang.example304.payload.response.RevenueCountDTO;
+import com.tranthanhsang.example304.repository.OrderRepository;
+import com.tranthanhsang.example304.repository.ProductRepository;
+import com.tranthanhsang.example304.repository.PromotionRepository;
+import com.tranthanhsang.example304.repository.TableRepository;
+
+// Tạo / sửa / xóa đơn qua OrderService: khuyến mãi cộng dồn do server tự chọn được giữ khi client gửi lại id đã lưu;
+// đơn PAID (kể cả tạo thẳng ở PAID) cộng / trừ bảng tổng hợp khớp với dựng lại từ lịch sử
+// (H2 chế độ MySQL cho bảng tổng hợp doanh số; mỗi lời gọi service chạy trong 1 transaction như 1 request)
+@DataJpaTest(properties = {
+        "spring.test.database.replace=none",
+        "spring.datasource.url=jdbc:h2:mem:orders;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "logging.level.org.hibernate=WARN"
+})
+@Import({ OrderService.class, OrderDtoAssembler.class, OrderDtoMapper.class, PromotionEngine.class,
+        PromotionService.class, MenuCacheEvictor.class, MenuSnapshotService.class, SalesRollupService.class,
+        TopSellingTracker.class, RevenueSeriesService.class, OrderServiceTest.Messaging.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceTest {
+
+    @TestConfiguration
+    static class Messaging {
+        @Bean
+        SimpMessagingTemplate messagingTemplate() {
+            return new SimpMessagingTemplate((message, timeout) -> true);
+        }
+    }
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private PromotionService promotionService;
+    @Autowired
+    private PromotionEngine engine;
+    @Autowired
+    private OrderRepository orderRepo;
+    @Autowired
+    private PromotionRepository promoRepo;
+    @Autowired
+    private ProductRepository productRepo;
+    @Autowired
+    private TableRepository tableRepo;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private SalesRollupService rollups;
+
+    private TableEntity table;
+    private Product tea;
+    private Product coffee;
+    private Promotion teaTenPercent;
+
+    @BeforeEach
+    void seed() {
+        ReflectionTestUtils.setField(engine, "maxPromotions", 3);
+        table = tableRepo.save(TableEntity.builder().number(7).capacity(4).build());
+        tea = productRepo.save(product("Trà đào", "40000"));
+        coffee = productRepo.save(product("Cà phê sữa", "30000"));
+        teaTenPercent = promotionService.create(promotion("Trà giảm 10%", "10", null, tea));
+        promotionService.create(promotion("Cà phê giảm 20%", "20", null, coffee));
+        promotionService.create(promotion("Giảm 15.000đ", null, "15000", tea, coffee));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ReflectionTestUtils.setField(engine, "maxPromotions", 1);
+        orderRepo.deleteAll();
+        promoRepo.findAll().forEach(p -> promotionService.delete(p.getId()));
+        productRepo.deleteAll();
+        tableRepo.deleteAll();
+        rollups.rebuild();
+    }
+
+    @Test
+    void echoingAutoSelectedPromotionKeepsStackedDiscounts() {
+        // 110.000 - 6.000 (cà phê 20%) - 8.000 (trà 10%) - 15.000
+        OrderDTO created = inTx(() -> orderService.create(order(null, line(null, tea, 2), line(null, coffee, 1))));
+        assertThat(created.getTotalAmount()).isEqualByComparingTo("81000");
+        assertThat(created.getPromotionCode()).isEqualTo("Giảm 15.000đ");
+
+        // Client gửi lại id khuyến mãi đã lưu, không đổi món → tổng không tăng
+        OrderDTO echoed = inTx(() -> orderService.update(created.getId(),
+                order(created.getPromotionId(), lines(created))));
+        assertThat(echoed.getTotalAmount()).isEqualByComparingTo("81000");
+
+        // Thêm 1 cà phê → vẫn tự chọn lại tổ hợp: 140.000 - 12.000 - 8.000 - 15.000
+        List<OrderItem> more = lines(echoed);
+        more.add(line(null, coffee, 1));
+        OrderDTO grown = inTx(() -> orderService.update(created.getId(), order(echoed.getPromotionId(), more)));
+        assertThat(grown.getTotalAmount()).isEqualByComparingTo("105000");
+
+        // Client chủ động chọn 1 khuyến mãi khác → chỉ tính khuyến mãi đó, gửi lại vẫn giữ nguyên
+        OrderDTO chosen = inTx(() -> orderService.update(created.getId(),
+                order(teaTenPercent.getId(), lines(grown))));
+        assertThat(chosen.getTotalAmount()).isEqualByComparingTo("132000");
+        OrderDTO chosenAgain = inTx(() -> orderService.update(created.getId(),
+                order(chosen.getPromotionId(), lines(chosen))));
+        assertThat(chosenAgain.getTotalAmount()).isEqualByComparingTo("132000");
+    }
+
+    @Test
+    void paidOrdersCountLikeABackfillAndLeaveWithDelete() {
+        OrderDTO paid = inTx(() -> {
+            Order order = order(null, line(null, tea, 2));
+            order.setStatus(OrderStatus.PAID);
+            return orderService.create(order);
+        });
+        inTx(() -> orderService.create(order(null, line(null, coffee, 3))));
+
+        // Đơn tạo thẳng ở PAID: cộng ngay, khớp với dựng lại từ lịch sử; đơn PENDING không tính
+        List<RevenueCountDTO> live = rollups.dailyRevenue(1);
+        List<ProductSalesDTO> liveTop = rollups.topSellingProducts(10);
+        assertThat(live).extracting(RevenueCountDTO::getOrderCount).containsExactly(1L);
+        assertThat(live.get(0).getTotalRevenue()).isEqualByComparingTo(paid.getTotalAmount());
+        assertThat(liveTop).extracting(ProductSalesDTO::getProductId, ProductSalesDTO::getTotalQuantity)
+                .containsExactly(tuple(tea.getId(), 2L));
+
+        rollups.rebuild();
+        assertThat(rollups.dailyRevenue(1)).extracting(RevenueCountDTO::getOrderCount).containsExactly(1L);
+        assertThat(rollups.dailyRevenue(1).get(0).getTotalRevenue()).isEqualByComparingTo(paid.getTotalAmount());
+        assertThat(rollups.topSellingProducts(10))
+                .extracting(ProductSalesDTO::getProductId, ProductSalesDTO::getTotalQuantity)
+                .containsExactly(tuple(tea.getId(), 2L));
+
+        inTx(() -> {
+            orderService.delete(paid.getId());
+            return null;
+        });
+        assertThat(rollups.dailyRevenue(1)).isEmpty();
+        assertThat(rollups.topSellingProducts(10)).isEmpty();
+    }
+
+    private <T> T inTx(Supplier<T> call) {
+        return new TransactionTemplate(transactionManager).execute(status -> call.get());
+    }
+
+    private Order order(Long promotionId, OrderItem... items) {
+        return order(promotionId, new ArrayList<>(List.of(items)));
+    }
+
+    private Order order(Long promotionId, List<OrderItem> items) {
+        return Order.builder()
+                .table(TableEntity.builder().id(table.getId()).build())
+                .status(OrderStatus.PENDING)
+                .promotion(promotionId != null ? Promotion.builder().id(promotionId).build() : null)
+                .items(items)
+                .build();
+    }
+
+    // Món đang có trong đơn (kèm id) như client gửi lại khi sửa
+    private static List<OrderItem> lines(OrderDTO dto) {
+        List<OrderItem> items = new ArrayList<>();
+        for (OrderItemDTO line : dto.getItems()) {
+            items.add(line(line.getId(), Product.builder().id(line.getProductId()).build(), line.getQuantity(),
+                    line.getPrice()));
+        }
+        return items;
+    }
+
+    private static OrderItem line(Long id, Product product, int quantity) {
+        return line(id, product, quantity, product.getPrice());
+    }
+
+    private static OrderItem line(Long id, Product product, int quantity, BigDecimal price) {
+        OrderItem item = new OrderItem();
+        item.setId(id);
+        item.setProduct(product);
+        item.setPrice(price);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static Promotion promotion(String name, String percentage, String amount, Product... products) {
+        List<Product> refs = new ArrayList<>();
+        for (Product p : products) {
+            refs.add(Product.builder().id(p.getId()).build());
+        }
+        return Promotion.builder()
+                .name(name)
+                .discountPercentage(percentage != null ? new BigDecimal(percentage) : null)
+                .discountAmount(amount != null ? new BigDecimal(amount) : null)
+                .isActive(true)
+                .products(refs)
+                .build();
+    }
+
+    private static Product product(String name, String price) {
+        return Product.builder()
+                .name(name)
+                .price(new BigDecimal(price))
+                .isActive(true)
+                .stockQuantity(10)
+                .promotions(new ArrayList<>())
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tranthanhsang.example304.entity.Category;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.repository.CategoryRepository;
+import com.tranthanhsang.example304.repository.ProductRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Kiểm tra chỉ mục tìm kiếm: không dấu, tiền tố, xếp hạng, lọc BitSet, cập nhật từng sản phẩm
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate=WARN"
+})
+@Import({ ProductSearchIndex.class, ProductSuggestService.class, MenuSnapshotService.class, ProductService.class,
+        CategoryService.class, FileUploadService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductSearchIndexTest {
+
+    @Autowired
+    private EntityManagerFactory emf;
+    @Autowired
+    private CategoryRepository categoryRepo;
+    @Autowired
+    private ProductRepository productRepo;
+    @Autowired
+    private ProductSearchIndex index;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private CategoryService categoryService;
+
+    private Category tea;
+    private Product peachTea;
+    private Product lycheeTea;
+    private Product peachJuice;
+
+    @BeforeEach
+    void seed() {
+        tea = categoryRepo.save(Category.builder().name("Trà").build());
+        Category juice = categoryRepo.save(Category.builder().name("Nước ép").build());
+        peachTea = productRepo.save(product("Trà đào cam sả", "Trà đen, đào ngâm, cam tươi", "45000", tea));
+        lycheeTea = productRepo.save(product("Trà vải", "Trà ô long, vải thiều", "39000", tea));
+        peachJuice = productRepo.save(product("Nước ép đào", "Đào tươi ép, không pha trà", "35000", juice));
+        // Ghi thẳng qua repository → báo cho chỉ mục như ProductService làm
+        index.refresh(seededIds());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        productRepo.deleteAll();
+        categoryRepo.deleteAll();
+        index.refresh(seededIds());
+    }
+
+    @Test
+    void matchesUnaccentedPrefixesAndRanksNameAboveDescription() {
+        // Nước ép đào cũng khớp ("trà" trong mô tả) nhưng xếp sau
+        assertThat(index.search("tra dao", null, null, null)).containsExactly(peachTea.getId(), peachJuice.getId());
+        assertThat(index.search("TRÀ ĐÀO", null, null, null)).containsExactly(peachTea.getId(), peachJuice.getId());
+        assertThat(index.search("tr da", null, null, null)).containsExactly(peachTea.getId(), peachJuice.getId());
+        assertThat(index.search("dao cam", null, null, null)).containsExactly(peachTea.getId());
+
+        // "tra" trong tên xếp trên "tra" chỉ có trong mô tả
+        assertThat(index.search("tra", null, null, null))
+                .containsExactly(peachTea.getId(), lycheeTea.getId(), peachJuice.getId());
+        assertThat(index.search("ca phe", null, null, null)).isEmpty();
+    }
+
+    @Test
+    void filtersByCategoryAndPriceWithoutDatabase() {
+        index.search(null, null, null, null);
+
+        Statistics stats = statistics();
+        List<Long> teaUnder40k = index.search(null, "tra", null, new BigDecimal("40000"));
+        List<Long> peachFrom40k = index.search("dao", null, new BigDecimal("40000"), null);
+
+        assertThat(teaUnder40k).containsExactly(lycheeTea.getId());
+        assertThat(peachFrom40k).containsExactly(peachTea.getId());
+        assertThat(stats.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void productAndCategoryWritesUpdateTheIndexIncrementally() {
+        index.search(null, null, null, null);
+        long version = index.version();
+
+        Product update = product("Trà vải hoa hồng", "Trà ô long, vải thiều, hoa hồng", "42000", tea);
+        productService.update(lycheeTea.getId(), update);
+        assertThat(index.search("hoa hong", null, null, null)).containsExactly(lycheeTea.getId());
+        assertThat(index.version()).isGreaterThan(version);
+
+        tea.setName("Trà trái cây");
+        categoryService.update(tea.getId(), tea);
+        assertThat(index.search(null, "tra trai cay", null, null))
+                .containsExactlyInAnyOrder(peachTea.getId(), lycheeTea.getId());
+
+        productService.delete(peachJuice.getId());
+        assertThat(index.search("nuoc ep", null, null, null)).isEmpty();
+    }
+
+    private List<Long> seededIds() {
+        return List.of(peachTea.getId(), lycheeTea.getId(), peachJuice.getId());
+    }
+
+    private Statistics statistics() {
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        return stats;
+    }
+
+    private static Product product(String name, String description, String price, Category category) {
+        return Product.builder()
+                .name(name)
+                .description(description)
+                .price(new BigDecimal(price))
+                .category(category)
+                .isActive(true)
+                .stockQuantity(10)
+                .promotions(new ArrayList<>())
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.Promotion;
+import com.tranthanhsang.example304.payload.response.PromotionQuoteDTO;
+
+// Kiểm tra tính khuyến mãi đã biên dịch: giữ quy tắc cũ + chia giảm giá từng món
+class PromotionEngineTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+    private final List<OrderItem> items = List.of(
+            item(1L, "30000", 2),
+            item(2L, "45000", 1),
+            item(3L, "25000", 1));
+
+    @Test
+    void percentageDiscountsOnlyPromotedLines() {
+        PromotionRule rule = PromotionRule.compile(promotion("10", null, 1L, 2L));
+
+        PromotionQuoteDTO quote = PromotionEngine.evaluate(items, rule, TODAY);
+
+        assertThat(quote.getOriginalAmount()).isEqualByComparingTo("130000");
+        assertThat(quote.getDiscountAmount()).isEqualByComparingTo("10500");
+        assertThat(quote.getTotalAmount()).isEqualByComparingTo("119500");
+        assertThat(quote.getLines()).extracting(PromotionQuoteDTO.LineDTO::getDiscount)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("6000"), new BigDecimal("4500"), BigDecimal.ZERO);
+    }
+
+    @Test
+    void fixedAmountIsSplitProRataAndClampedAtZero() {
+        PromotionRule rule = PromotionRule.compile(promotion(null, "10000", 1L, 3L));
+        PromotionQuoteDTO quote = PromotionEngine.evaluate(items, rule, TODAY);
+
+        assertThat(quote.getTotalAmount()).isEqualByComparingTo("120000");
+        BigDecimal sum = quote.getLines().stream().map(PromotionQuoteDTO.LineDTO::getDiscount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(sum).isEqualByComparingTo("10000");
+        assertThat(quote.getLines().get(1).getDiscount()).isEqualByComparingTo("0");
+
+        PromotionRule huge = PromotionRule.compile(promotion(null, "500000", 2L));
+        PromotionQuoteDTO clamped = PromotionEngine.evaluate(items, huge, TODAY);
+        assertThat(clamped.getTotalAmount()).isEqualByComparingTo("0");
+        assertThat(clamped.getDiscountAmount()).isEqualByComparingTo("130000");
+    }
+
+    @Test
+    void validityIsInclusiveAndRequiresAPromotedLine() {
+        Promotion promo = promotion("10", null, 1L);
+        promo.setStartDate(TODAY);
+        promo.setEndDate(TODAY);
+        PromotionRule rule = PromotionRule.compile(promo);
+
+        assertThat(PromotionEngine.evaluate(items, rule, TODAY).getTotalAmount()).isEqualByComparingTo("124000");
+        assertThat(PromotionEngine.evaluate(items, rule, TODAY.plusDays(1)).getTotalAmount())
+                .isEqualByComparingTo("130000");
+
+        PromotionRule unrelated = PromotionRule.compile(promotion(null, "10000", 99L));
+        assertThat(PromotionEngine.evaluate(items, unrelated, TODAY).getTotalAmount()).isEqualByComparingTo("130000");
+
+        // Cùng kết quả với cách tính qua OrderService
+        assertThat(new OrderService().calculateTotal(items, promo, TODAY)).isEqualByComparingTo("124000");
+    }
+
+    private static Promotion promotion(String percentage, String amount, Long... productIds) {
+        List<Product> products = new ArrayList<>();
+        for (Long id : productIds) {
+            products.add(Product.builder().id(id).build());
+        }
+        return Promotion.builder()
+                .id(1L)
+                .name("KM")
+                .discountPercentage(percentage != null ? new BigDecimal(percentage) : null)
+                .discountAmount(amount != null ? new BigDecimal(amount) : null)
+                .isActive(true)
+                .products(products)
+                .build();
+    }
+
+    private static OrderItem item(Long productId, String price, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProduct(Product.builder().id(productId).build());
+        item.setPrice(new BigDecimal(price));
+        item.setQuantity(quantity);
+        item.setSubtotal(new BigDecimal(price).multiply(BigDecimal.valueOf(quantity)));
+        return item;
+    }
+}
@@ -0,0 +1,192 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.Promotion;
+import com.tranthanhsang.example304.payload.response.PromotionQuoteDTO;
+import com.tranthanhsang.example304.repository.ProductRepository;
+import com.tranthanhsang.example304.repository.PromotionRepository;
+
+// Kiểm tra tự chọn khuyến mãi: lọc theo ngày hiệu lực + sản phẩm trong đơn, chọn tốt nhất, cộng dồn;
+// danh sách khuyến mãi đang hoạt động tính cả ngày bắt đầu / kết thúc
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "logging.level.org.hibernate=WARN"
+})
+@Import({ PromotionEngine.class, PromotionService.class, MenuCacheEvictor.class, MenuSnapshotService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PromotionSelectionTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+    @Autowired
+    private ProductRepository productRepo;
+    @Autowired
+    private PromotionRepository promoRepo;
+    @Autowired
+    private PromotionService promotionService;
+    @Autowired
+    private PromotionEngine engine;
+
+    private Product tea;
+    private Product coffee;
+
+    @BeforeEach
+    void seed() {
+        tea = productRepo.save(product("Trà đào", "40000"));
+        coffee = productRepo.save(product("Cà phê sữa", "30000"));
+
+        promotionService.create(promotion("Trà giảm 10%", "10", null, TODAY.minusDays(3), TODAY, tea));
+        promotionService.create(promotion("Giảm 15.000đ", null, "15000", TODAY, null, tea, coffee));
+        promotionService.create(promotion("Cà phê giảm 20%", "20", null, null, null, coffee));
+        // Hết hạn hôm qua / chưa bắt đầu → không được chọn dù giảm nhiều
+        promotionService.create(promotion("Hết hạn", "50", null, null, TODAY.minusDays(1), tea));
+        promotionService.create(promotion("Tháng sau", "50", null, TODAY.plusMonths(1), null, coffee));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ReflectionTestUtils.setField(engine, "maxPromotions", 1);
+        ReflectionTestUtils.setField(engine, "messagingTemplate", null);
+        promoRepo.findAll().forEach(p -> promotionService.delete(p.getId()));
+        productRepo.deleteAll();
+    }
+
+    @Test
+    void picksTheSingleBestValidPromotion() {
+        List<OrderItem> items = List.of(item(tea, 2), item(coffee, 1));
+
+        PromotionQuoteDTO quote = engine.best(items, TODAY);
+
+        assertThat(quote.getPromotionName()).isEqualTo("Giảm 15.000đ");
+        assertThat(quote.getTotalAmount()).isEqualByComparingTo("95000");
+        assertThat(quote.getPromotions()).hasSize(1);
+
+        // Ngày hiệu lực tính cả 2 đầu: ngày mai trà 10% đã hết, 10 ngày trước chỉ còn khuyến mãi "Hết hạn"
+        assertThat(engine.best(List.of(item(tea, 1)), TODAY.plusDays(1)).getPromotionName())
+                .isEqualTo("Giảm 15.000đ");
+        assertThat(engine.best(List.of(item(tea, 1)), TODAY.minusDays(10)).getPromotionName())
+                .isEqualTo("Hết hạn");
+        assertThat(engine.best(List.of(item(coffee, 1)), TODAY.minusDays(10)).getPromotionName())
+                .isEqualTo("Cà phê giảm 20%");
+    }
+
+    @Test
+    void stacksPercentagesBeforeFixedAmount() {
+        ReflectionTestUtils.setField(engine, "maxPromotions", 3);
+        List<OrderItem> items = List.of(item(tea, 2), item(coffee, 1));
+
+        PromotionQuoteDTO quote = engine.best(items, TODAY);
+
+        // 110.000 - 6.000 (cà phê 20%) - 8.000 (trà 10%) - 15.000
+        assertThat(quote.getPromotions()).extracting(PromotionQuoteDTO.AppliedDTO::getPromotionName)
+                .containsExactly("Cà phê giảm 20%", "Trà giảm 10%", "Giảm 15.000đ");
+        assertThat(quote.getTotalAmount()).isEqualByComparingTo("81000");
+        assertThat(quote.getPromotionName()).isEqualTo("Giảm 15.000đ");
+    }
+
+    @Test
+    void promotionWritesRebuildTheIndex() {
+        List<OrderItem> items = List.of(item(coffee, 1));
+        assertThat(engine.best(items, TODAY).getPromotionName()).isEqualTo("Giảm 15.000đ");
+
+        promotionService.create(promotion("Cà phê giảm 60%", "60", null, null, null, coffee));
+
+        assertThat(engine.best(items, TODAY).getPromotionName()).isEqualTo("Cà phê giảm 60%");
+    }
+
+    @Test
+    void activeListIncludesPromotionsStartingOrEndingToday() {
+        LocalDate today = LocalDate.now();
+        promotionService.create(promotion("Bắt đầu hôm nay", "5", null, today, today.plusDays(7), tea));
+        promotionService.create(promotion("Kết thúc hôm nay", "5", null, today.minusDays(7), today, tea));
+        promotionService.create(promotion("Kết thúc hôm qua", "5", null, today.minusDays(7), today.minusDays(1), tea));
+
+        List<Promotion> active = promotionService.getActivePromotions();
+
+        assertThat(active).extracting(Promotion::getName)
+                .contains("Bắt đầu hôm nay", "Kết thúc hôm nay", "Cà phê giảm 20%")
+                .doesNotContain("Kết thúc hôm qua");
+        // Đọc lại: cùng danh sách dựng sẵn
+        assertThat(promotionService.getActivePromotions()).isSameAs(active);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void editingAnActivePromotionPushesTheNewTerms() {
+        List<Object> pushes = new ArrayList<>();
+        ReflectionTestUtils.setField(engine, "messagingTemplate", new SimpMessagingTemplate((message, timeout) -> {
+            pushes.add(message.getPayload());
+            return true;
+        }));
+        engine.activePromotions();
+
+        // Cùng tập id, chỉ đổi tên + mức giảm → client vẫn phải nhận bản mới
+        Promotion coffeeDeal = promoRepo.findAll().stream()
+                .filter(p -> p.getName().equals("Cà phê giảm 20%")).findFirst().orElseThrow();
+        coffeeDeal.setName("Cà phê giảm 25%");
+        coffeeDeal.setDiscountPercentage(new BigDecimal("25"));
+        promoRepo.save(coffeeDeal);
+        pushes.clear();
+        engine.invalidate();
+
+        assertThat(pushes).hasSize(1);
+        assertThat((List<Promotion>) pushes.get(0)).extracting(Promotion::getName)
+                .contains("Cà phê giảm 25%")
+                .doesNotContain("Cà phê giảm 20%");
+    }
+
+    private static Promotion promotion(String name, String percentage, String amount, LocalDate start,
+            LocalDate end, Product... products) {
+        List<Product> refs = new ArrayList<>();
+        for (Product p : products) {
+            refs.add(Product.builder().id(p.getId()).build());
+        }
+        return Promotion.builder()
+                .name(name)
+                .discountPercentage(percentage != null ? new BigDecimal(percentage) : null)
+                .discountAmount(amount != null ? new BigDecimal(amount) : null)
+                .startDate(start)
+                .endDate(end)
+                .isActive(true)
+                .products(refs)
+                .build();
+    }
+
+    private static OrderItem item(Product product, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setPrice(product.getPrice());
+        item.setQuantity(quantity);
+        item.setSubtotal(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+        return item;
+    }
+
+    private static Product product(String name, String price) {
+        return Product.builder()
+                .name(name)
+                .price(new BigDecimal(price))
+                .isActive(true)
+                .stockQuantity(10)
+                .promotions(new ArrayList<>())
+                .build();
+    }
+}
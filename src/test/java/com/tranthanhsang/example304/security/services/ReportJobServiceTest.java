@@ -0,0 +1,130 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tranthanhsang.example304.entity.Order;
+import com.tranthanhsang.example304.entity.TableEntity;
+import com.tranthanhsang.example304.entity.enums.OrderStatus;
+import com.tranthanhsang.example304.payload.response.ReportJobDTO;
+import com.tranthanhsang.example304.repository.OrderRepository;
+import com.tranthanhsang.example304.repository.TableRepository;
+
+// Job xuất báo cáo: chạy nền ghi file, gửi lại cùng tham số thì dùng lại file, vượt dung lượng thì FAILED
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "logging.level.org.hibernate=WARN",
+        "app.reports.fetch-size=50",
+        "app.reports.dir=${java.io.tmpdir}/example304-reports-test"
+})
+@Import(ReportJobService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReportJobServiceTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 15);
+
+    @Autowired
+    private ReportJobService reports;
+    @Autowired
+    private OrderRepository orderRepo;
+    @Autowired
+    private TableRepository tableRepo;
+
+    @BeforeEach
+    void seed() {
+        TableEntity table = tableRepo.save(TableEntity.builder().number(7).capacity(4).build());
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            orders.add(Order.builder()
+                    .table(table)
+                    .status(OrderStatus.PAID)
+                    .totalAmount(new BigDecimal("45000"))
+                    .createdAt(DAY.atTime(8, 0).plusMinutes(i * 10L))
+                    .items(new ArrayList<>())
+                    .build());
+        }
+        orderRepo.saveAll(orders);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepo.deleteAll();
+        tableRepo.deleteAll();
+    }
+
+    @Test
+    void writesCsvInBackgroundAndReusesFileForSameParameters() throws Exception {
+        ReportJobDTO submitted = reports.submit("orders", "csv", DAY.toString(), DAY.toString());
+        ReportJobDTO done = await(submitted.getId());
+
+        assertThat(done.getStatus()).isEqualTo("DONE");
+        // 120 đơn trong 20 giờ từ 08:00 → 96 đơn thuộc ngày 15
+        assertThat(done.getRows()).isEqualTo(96);
+        List<String> lines = Files.readAllLines(reports.file(done.getId()), StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(97);
+        assertThat(lines.get(0)).isEqualTo("\uFEFForder_id,created_at,table_number,employee,status,promotion,total_amount");
+        assertThat(lines.get(1)).endsWith(",2025-06-15T08:00,7,,PAID,,45000.00");
+
+        ReportJobDTO again = reports.submit("orders", "csv", DAY.toString(), DAY.toString());
+        assertThat(again.getId()).isEqualTo(done.getId());
+        assertThat(again.isCached()).isTrue();
+        assertThat(again.getStatus()).isEqualTo("DONE");
+    }
+
+    @Test
+    void startupCleanupOnlyRemovesJobFiles() throws Exception {
+        Path dir = (Path) ReflectionTestUtils.getField(reports, "dir");
+        Path foreign = Files.writeString(dir.resolve("notes.txt"), "không phải file báo cáo");
+        Path stale = Files.writeString(dir.resolve("0123456789abcdef0123456789abcdef.csv.part"), "dở dang");
+        try {
+            reports.shutdown();
+            reports.init();
+
+            assertThat(stale).doesNotExist();
+            assertThat(foreign).exists();
+        } finally {
+            Files.deleteIfExists(foreign);
+        }
+    }
+
+    @Test
+    void jobOverByteLimitFails() throws Exception {
+        ReflectionTestUtils.setField(reports, "maxBytes", 2_000L);
+        try {
+            ReportJobDTO done = await(reports.submit("orders", "json", DAY.toString(), DAY.plusDays(1).toString()).getId());
+
+            assertThat(done.getStatus()).isEqualTo("FAILED");
+            assertThat(done.getError()).contains("2000");
+        } finally {
+            ReflectionTestUtils.setField(reports, "maxBytes", 104_857_600L);
+        }
+    }
+
+    private ReportJobDTO await(String id) throws InterruptedException, IOException {
+        for (int i = 0; i < 200; i++) {
+            ReportJobDTO job = reports.status(id);
+            if (job.getStatus().equals("DONE") || job.getStatus().equals("FAILED")) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new IOException("Job " + id + " chưa xong");
+    }
+}
@@ -0,0 +1,70 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.tranthanhsang.example304.security.services.RevenueSeries.Granularity;
+
+// Kiểm tra chuỗi doanh thu: tổng 1 khoảng ghép từ các khung phải bằng cộng trực tiếp từng đơn
+class RevenueSeriesTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 15, 14, 37);
+
+    @Test
+    void rangeTotalsMatchBruteForce() {
+        Random random = new Random(11);
+        RevenueSeries series = new RevenueSeries();
+        List<LocalDateTime> times = new ArrayList<>();
+        List<Long> amounts = new ArrayList<>();
+        // 5.000 đơn rải trong 90 ngày, ghi theo thứ tự thời gian như khi thanh toán
+        LocalDateTime at = NOW.minusDays(90);
+        for (int i = 0; i < 5_000; i++) {
+            at = at.plusSeconds(random.nextInt(3_000));
+            long cents = 100 * (20_000 + random.nextInt(200_000));
+            series.add(at, 1, cents);
+            times.add(at);
+            amounts.add(cents);
+        }
+        LocalDateTime latest = at;
+
+        for (int k = 0; k < 200; k++) {
+            // Đầu khoảng: trong 2 ngày gần nhất thì tới phút, cũ hơn thì tròn giờ (khung phút đã bị ghi đè)
+            LocalDateTime from = latest.minusMinutes(random.nextInt(90 * 24 * 60));
+            from = from.isAfter(latest.minusDays(2)) ? from.withSecond(0) : from.withMinute(0).withSecond(0);
+            LocalDateTime to = from.plusMinutes(1 + random.nextInt(40 * 24 * 60));
+            if (to.isBefore(latest.minusDays(2))) {
+                to = to.withMinute(0).withSecond(0).plusHours(1);
+            }
+
+            long orders = 0;
+            long cents = 0;
+            for (int i = 0; i < times.size(); i++) {
+                if (!times.get(i).isBefore(from) && times.get(i).isBefore(to)) {
+                    orders++;
+                    cents += amounts.get(i);
+                }
+            }
+
+            assertThat(series.total(from, to)).as("%s → %s", from, to).containsExactly(orders, cents);
+        }
+    }
+
+    @Test
+    void weeksStartOnMondayAndRefundsSubtract() {
+        RevenueSeries series = new RevenueSeries();
+        series.add(NOW, 1, 5_000_000); // Chủ nhật 15/06/2025
+        series.add(NOW.minusDays(6), 1, 3_000_000); // thứ Hai 09/06
+        series.add(NOW.minusDays(6), -1, -3_000_000); // hoàn lại
+
+        long week = Granularity.WEEK.index(NOW);
+        assertThat(Granularity.WEEK.label(week)).isEqualTo("2025-06-09");
+        assertThat(series.bucket(Granularity.WEEK, week)).containsExactly(1, 5_000_000);
+        assertThat(Granularity.MONTH.label(Granularity.MONTH.index(NOW))).isEqualTo("2025-06");
+        assertThat(Granularity.HOUR.label(Granularity.HOUR.index(NOW))).isEqualTo("2025-06-15T14:00");
+    }
+}
@@ -0,0 +1,165 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.tranthanhsang.example304.entity.Category;
+import com.tranthanhsang.example304.entity.Order;
+import com.tranthanhsang.example304.entity.OrderItem;
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.entity.TableEntity;
+import com.tranthanhsang.example304.entity.enums.OrderStatus;
+import com.tranthanhsang.example304.model.User;
+import com.tranthanhsang.example304.payload.response.EmployeeSalesDTO;
+import com.tranthanhsang.example304.payload.response.ProductSalesDTO;
+import com.tranthanhsang.example304.payload.response.RevenueCountDTO;
+
+// Bảng tổng hợp doanh số: cộng dồn từng đơn khi thanh toán phải khớp với dựng lại từ lịch sử
+// (H2 chế độ MySQL để chạy được INSERT ... ON DUPLICATE KEY UPDATE)
+@DataJpaTest(properties = {
+        "spring.test.database.replace=none",
+        "spring.datasource.url=jdbc:h2:mem:rollup;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "logging.level.org.hibernate=WARN"
+})
+@Import({ SalesRollupService.class, TopSellingTracker.class, RevenueSeriesService.class, MenuSnapshotService.class })
+class SalesRollupTest {
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private SalesRollupService rollups;
+
+    private TableEntity table;
+    private User lan;
+    private User minh;
+    private Product tea;
+    private Product peachTea;
+    private Product coffee;
+
+    @BeforeEach
+    void seed() {
+        Category teas = em.persist(Category.builder().name("Trà").build());
+        Category coffees = em.persist(Category.builder().name("Cà phê").build());
+        tea = em.persist(product("Trà sen", "35000", teas));
+        peachTea = em.persist(product("Trà đào", "40000", teas));
+        coffee = em.persist(product("Cà phê sữa", "30000", coffees));
+        table = em.persist(TableEntity.builder().number(1).capacity(4).build());
+        lan = employee("lan");
+        minh = employee("minh");
+    }
+
+    @Test
+    void incrementalRollupsMatchRebuildFromHistory() {
+        LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+        LocalDateTime today = LocalDateTime.now();
+
+        // Đơn có 2 dòng cùng 1 món → gộp thành 1 lần cộng
+        pay(order(lan, yesterday, "100000", item(tea, 2), item(coffee, 1)));
+        pay(order(lan, today, "110000", item(peachTea, 1), item(peachTea, 2), item(coffee, 1)));
+        pay(order(minh, today, "60000", item(coffee, 2)));
+        order(minh, today, "80000", item(tea, 2)); // chưa thanh toán → không tính
+
+        List<ProductSalesDTO> topProducts = rollups.topSellingProducts(10);
+        List<ProductSalesDTO> byCategory = rollups.revenueByCategory();
+        List<EmployeeSalesDTO> employees = rollups.topSellingEmployees(7);
+        List<RevenueCountDTO> daily = rollups.dailyRevenue(7);
+
+        assertThat(topProducts).extracting(ProductSalesDTO::getProductName, ProductSalesDTO::getTotalQuantity)
+                .containsExactly(
+                        tuple("Cà phê sữa", 4L),
+                        tuple("Trà đào", 3L),
+                        tuple("Trà sen", 2L));
+        assertThat(byCategory).extracting(ProductSalesDTO::getProductName).containsExactly("Trà", "Cà phê");
+        assertThat(byCategory.get(0).getTotalRevenue()).isEqualByComparingTo("190000");
+        assertThat(employees).extracting(EmployeeSalesDTO::getEmployeeName, EmployeeSalesDTO::getTotalOrders)
+                .containsExactly(
+                        tuple("NV lan", 2L),
+                        tuple("NV minh", 1L));
+        assertThat(daily).extracting(RevenueCountDTO::getPeriod)
+                .containsExactly(yesterday.toLocalDate().toString(), today.toLocalDate().toString());
+        assertThat(daily.get(1).getOrderCount()).isEqualTo(2L);
+        assertThat(daily.get(1).getTotalRevenue()).isEqualByComparingTo("170000");
+
+        rollups.rebuild();
+        em.clear();
+
+        assertThat(rollups.topSellingProducts(10)).usingRecursiveComparison().isEqualTo(topProducts);
+        assertThat(rollups.revenueByCategory()).usingRecursiveComparison().isEqualTo(byCategory);
+        assertThat(rollups.topSellingEmployees(7)).usingRecursiveComparison().isEqualTo(employees);
+        assertThat(rollups.dailyRevenue(7)).usingRecursiveComparison().isEqualTo(daily);
+    }
+
+    @Test
+    void orderLeavingPaidIsSubtractedAgain() {
+        Order order = pay(order(lan, LocalDateTime.now(), "70000", item(tea, 2)));
+        assertThat(rollups.dailyRevenue(1)).hasSize(1);
+
+        rollups.apply(rollups.contributionOf(order), -1);
+
+        assertThat(rollups.dailyRevenue(1)).isEmpty();
+        assertThat(rollups.topSellingProducts(10)).isEmpty();
+        assertThat(rollups.topSellingEmployees(1)).isEmpty();
+        assertThat(rollups.revenueByCategory()).isEmpty();
+    }
+
+    private Order pay(Order order) {
+        order.setStatus(OrderStatus.PAID);
+        em.persistAndFlush(order);
+        rollups.recordPaid(order);
+        return order;
+    }
+
+    private Order order(User employee, LocalDateTime createdAt, String total, OrderItem... items) {
+        Order order = Order.builder()
+                .table(table)
+                .employee(employee)
+                .status(OrderStatus.PENDING)
+                .totalAmount(new BigDecimal(total))
+                .createdAt(createdAt)
+                .items(new ArrayList<>())
+                .build();
+        for (OrderItem item : items) {
+            item.setOrder(order);
+            order.getItems().add(item);
+        }
+        return em.persistAndFlush(order);
+    }
+
+    private static OrderItem item(Product product, int quantity) {
+        return OrderItem.builder()
+                .product(product)
+                .quantity(quantity)
+                .price(product.getPrice())
+                .subtotal(product.getPrice().multiply(BigDecimal.valueOf(quantity)))
+                .build();
+    }
+
+    private User employee(String username) {
+        User user = new User(username, username + "@coffee.vn", "secret");
+        user.setFullName("NV " + username);
+        return em.persist(user);
+    }
+
+    private static Product product(String name, String price, Category category) {
+        return Product.builder()
+                .name(name)
+                .price(new BigDecimal(price))
+                .category(category)
+                .isActive(true)
+                .stockQuantity(10)
+                .build();
+    }
+}
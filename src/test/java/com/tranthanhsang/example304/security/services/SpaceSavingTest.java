@@ -0,0 +1,59 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Kiểm tra Space-Saving: chính xác khi ít món hơn số bộ đếm, còn lại đếm thật luôn nằm trong [count - error, count]
+class SpaceSavingTest {
+
+    @Test
+    void exactWhileDistinctKeysFitCapacity() {
+        SpaceSaving summary = new SpaceSaving(8);
+        summary.add(1, 3);
+        summary.add(2, 5);
+        summary.add(1, 4);
+        summary.add(2, -2); // hoàn lại 2
+
+        Map<Long, long[]> counts = SpaceSaving.merge(List.of(summary));
+
+        assertThat(counts.get(1L)).containsExactly(7, 0);
+        assertThat(counts.get(2L)).containsExactly(3, 0);
+    }
+
+    @Test
+    void skewedStreamKeepsHeavyHittersWithinErrorBound() {
+        Random random = new Random(7);
+        SpaceSaving first = new SpaceSaving(10);
+        SpaceSaving second = new SpaceSaving(10);
+        Map<Long, Long> truth = new HashMap<>();
+        long total = 0;
+
+        for (int i = 0; i < 20_000; i++) {
+            // Món 1..3 chiếm ~60% lượt bán, 200 món còn lại chia nhau phần còn lại
+            long key = random.nextInt(10) < 6 ? 1 + random.nextInt(3) : 4 + random.nextInt(200);
+            long quantity = 1 + random.nextInt(3);
+            (i % 2 == 0 ? first : second).add(key, quantity);
+            truth.merge(key, quantity, Long::sum);
+            total += quantity;
+        }
+
+        Map<Long, long[]> merged = SpaceSaving.merge(List.of(first, second));
+
+        for (long key = 1; key <= 3; key++) {
+            long[] estimate = merged.get(key);
+            assertThat(estimate).isNotNull();
+            assertThat(truth.get(key)).isBetween(estimate[0] - estimate[1], estimate[0]);
+            assertThat(estimate[1]).isLessThanOrEqualTo(total / 10);
+        }
+        for (Map.Entry<Long, long[]> e : merged.entrySet()) {
+            long[] estimate = e.getValue();
+            assertThat(truth.get(e.getKey())).isBetween(estimate[0] - estimate[1], estimate[0]);
+        }
+    }
+}
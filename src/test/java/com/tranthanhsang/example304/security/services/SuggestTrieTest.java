@@ -0,0 +1,51 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.tranthanhsang.example304.payload.response.ProductSuggestionDTO;
+
+// Kiểm tra trie gợi ý: khóa không dấu, khớp đầu mỗi từ, top-K theo lượt bán
+class SuggestTrieTest {
+
+    private final SuggestTrie trie = SuggestTrie.build(List.of(
+            entry(1L, "Trà đào cam sả", 120),
+            entry(2L, "Trà vải", 300),
+            entry(3L, "Cà phê sữa đá", 500),
+            entry(4L, "Nước ép đào", 10),
+            entry(5L, "Trà trà", 0)), 3);
+
+    @Test
+    void matchesFoldedPrefixOrderedBySales() {
+        assertThat(names(trie.suggest("tra", 10))).containsExactly("Trà vải", "Trà đào cam sả", "Trà trà");
+        assertThat(names(trie.suggest("TRÀ Đ", 10))).containsExactly("Trà đào cam sả");
+        assertThat(names(trie.suggest("tra v", 10))).containsExactly("Trà vải");
+    }
+
+    @Test
+    void matchesStartOfEveryWord() {
+        assertThat(names(trie.suggest("dao", 10))).containsExactly("Trà đào cam sả", "Nước ép đào");
+        assertThat(names(trie.suggest("sua", 10))).containsExactly("Cà phê sữa đá");
+        assertThat(trie.suggest("ao", 10)).isEmpty();
+    }
+
+    @Test
+    void keepsTopKPerNodeAndHonoursLimit() {
+        // Rỗng → món bán chạy nhất, tối đa K = 3
+        assertThat(names(trie.suggest("", 10))).containsExactly("Cà phê sữa đá", "Trà vải", "Trà đào cam sả");
+        assertThat(names(trie.suggest("tra", 1))).containsExactly("Trà vải");
+        assertThat(SuggestTrie.EMPTY.suggest("tra", 5)).isEmpty();
+    }
+
+    private static List<String> names(List<ProductSuggestionDTO> suggestions) {
+        return suggestions.stream().map(ProductSuggestionDTO::getName).toList();
+    }
+
+    private static SuggestTrie.Entry entry(Long id, String name, long sold) {
+        return new SuggestTrie.Entry(id, name, "/images/" + id + ".jpg", new BigDecimal("30000"), sold);
+    }
+}
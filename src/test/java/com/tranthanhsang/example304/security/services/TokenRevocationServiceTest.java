@@ -0,0 +1,37 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import com.tranthanhsang.example304.repository.TokenRevocationRepository;
+
+// Thu hồi theo mili giây: token cấp trước mốc bị từ chối, token đăng nhập lại ngay sau đó (cùng giây) vẫn hợp lệ
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "logging.level.org.hibernate=WARN",
+        "bezkoder.app.jwtExpirationMs=900000"
+})
+@Import(TokenRevocationService.class)
+class TokenRevocationServiceTest {
+
+    @Autowired
+    private TokenRevocationService revocations;
+    @Autowired
+    private TokenRevocationRepository revocationRepo;
+
+    @Test
+    void tokenIssuedRightAfterRevocationIsAccepted() {
+        long before = System.currentTimeMillis() - 1;
+        revocations.revokeAllForUser(1L);
+        long watermark = revocationRepo.findById(1L).orElseThrow().getRevokedBefore();
+
+        assertThat(revocations.isRevoked(1L, before)).isTrue();
+        assertThat(revocations.isRevoked(1L, watermark)).isFalse();
+        assertThat(revocations.isRevoked(1L, null)).isTrue();
+        assertThat(revocations.isRevoked(2L, before)).isFalse();
+    }
+}
@@ -0,0 +1,75 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.tranthanhsang.example304.entity.Product;
+import com.tranthanhsang.example304.payload.response.ProductSalesDTO;
+import com.tranthanhsang.example304.security.services.TopSellingTracker.Window;
+
+// Top bán chạy ghi theo thời điểm tạo đơn: sửa đơn PAID ngày cũ (trừ rồi cộng lại) không cộng dồn vào hôm nay,
+// đơn đã trôi khỏi cửa sổ 7 ngày thì bỏ qua
+class TopSellingTrackerTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 15, 12, 0);
+
+    private TopSellingTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        MenuSnapshot menu = new MenuSnapshot(0, "test", List.of(
+                Product.builder().id(1L).name("Trà sen").build(),
+                Product.builder().id(2L).name("Cà phê sữa").build()));
+        tracker = new TopSellingTracker();
+        ReflectionTestUtils.setField(tracker, "capacity", 16);
+        ReflectionTestUtils.setField(tracker, "menuSnapshotService", new MenuSnapshotService() {
+            @Override
+            public MenuSnapshot current() {
+                return menu;
+            }
+        });
+        tracker.init();
+    }
+
+    @Test
+    void editingAnOlderPaidOrderStaysInItsOwnDay() {
+        LocalDateTime yesterday = NOW.minusDays(1);
+        tracker.record(Map.of(1L, 2L), yesterday, NOW);
+        tracker.record(Map.of(2L, 1L), NOW.minusMinutes(10), NOW);
+
+        // Sửa đơn hôm qua: trừ phần cũ, cộng phần mới (3 trà)
+        tracker.record(Map.of(1L, -2L), yesterday, NOW);
+        tracker.record(Map.of(1L, 3L), yesterday, NOW);
+
+        assertThat(tracker.top(Window.TODAY, 10, NOW))
+                .extracting(ProductSalesDTO::getProductId, ProductSalesDTO::getTotalQuantity)
+                .containsExactly(tuple(2L, 1L));
+        assertThat(tracker.top(Window.HOUR, 10, NOW))
+                .extracting(ProductSalesDTO::getProductId, ProductSalesDTO::getTotalQuantity)
+                .containsExactly(tuple(2L, 1L));
+        assertThat(tracker.top(Window.WEEK, 10, NOW))
+                .extracting(ProductSalesDTO::getProductId, ProductSalesDTO::getTotalQuantity)
+                .containsExactly(tuple(1L, 3L), tuple(2L, 1L));
+    }
+
+    @Test
+    void ordersOutsideTheRingAreIgnored() {
+        tracker.record(Map.of(2L, 4L), NOW, NOW);
+
+        // 7 ngày trước (rơi vào đúng ô vòng của hôm nay) → không được xóa khung hôm nay
+        tracker.record(Map.of(1L, 9L), NOW.minusDays(7), NOW);
+
+        assertThat(tracker.top(Window.TODAY, 10, NOW))
+                .extracting(ProductSalesDTO::getProductId, ProductSalesDTO::getTotalQuantity)
+                .containsExactly(tuple(2L, 4L));
+        assertThat(tracker.top(Window.WEEK, 10, NOW)).extracting(ProductSalesDTO::getProductId)
+                .containsExactly(2L);
+    }
+}
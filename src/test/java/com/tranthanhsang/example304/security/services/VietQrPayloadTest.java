@@ -0,0 +1,45 @@
+package com.tranthanhsang.example304.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.itextpdf.text.Image;
+
+// Chuỗi VietQR: đúng cấu trúc ID-độ dài-giá trị, CRC16 khớp; ảnh QR lấy từ cache nhưng mỗi lần là bản sao
+class VietQrPayloadTest {
+
+    @Test
+    void buildsEmvcoPayloadWithValidCrc() {
+        // Giá trị kiểm tra chuẩn của CRC-16/CCITT-FALSE
+        assertThat(VietQrPayload.crc16("123456789")).isEqualTo(0x29B1);
+
+        String payload = VietQrPayload.build("970422", "0398617329", 70_000, "DonHang42");
+
+        assertThat(payload).startsWith("000201010212"
+                + "3854" + "0010A000000727" + "0124" + "0006970422" + "01100398617329" + "0208QRIBFTTA"
+                + "5303704" + "540570000" + "5802VN" + "62130809DonHang42" + "6304");
+        String body = payload.substring(0, payload.length() - 4);
+        assertThat(payload.substring(payload.length() - 4))
+                .isEqualTo(String.format("%04X", VietQrPayload.crc16(body)));
+    }
+
+    @Test
+    void cachedImageIsCopiedPerCall() throws Exception {
+        VietQrService service = new VietQrService();
+        ReflectionTestUtils.setField(service, "bankBin", "970422");
+        ReflectionTestUtils.setField(service, "accountNo", "0398617329");
+        ReflectionTestUtils.setField(service, "cacheSize", 10L);
+        service.init();
+
+        Image first = service.image(70_000, 42L);
+        first.scaleAbsolute(150, 150);
+        Image second = service.image(70_000, 42L);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getRawData()).isSameAs(first.getRawData());
+        assertThat(second.getScaledWidth()).isNotEqualTo(150f);
+        assertThat(service.image(80_000, 42L).getRawData()).isNotSameAs(first.getRawData());
+    }
+}